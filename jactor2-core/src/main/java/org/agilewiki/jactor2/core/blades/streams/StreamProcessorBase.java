@@ -0,0 +1,159 @@
+package org.agilewiki.jactor2.core.blades.streams;
+
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A stage of a pipeline, which subscribes to one publisher and transforms its elements
+ * for a single subscriber of its own. Demand is passed upstream as it is received,
+ * so the stage buffers nothing. Elements which are dropped are requested again,
+ * and completion, exceptions and cancellation are passed along.
+ *
+ * @param <IN_TYPE>  The type of element received.
+ * @param <OUT_TYPE> The type of element passed.
+ */
+public abstract class StreamProcessorBase<IN_TYPE, OUT_TYPE> extends
+        StreamPublisherBase<OUT_TYPE> implements StreamSubscriber<IN_TYPE> {
+
+    /**
+     * The subscription to the upstream publisher, or null.
+     */
+    private StreamSubscription upstream;
+
+    /**
+     * The demand received before the upstream subscription.
+     */
+    private long pendingDemand;
+
+    /**
+     * The number of elements dropped.
+     */
+    private long droppedCount;
+
+    /**
+     * Create a StreamProcessorBase.
+     *
+     * @param _reactor The blade's reactor.
+     */
+    protected StreamProcessorBase(final Reactor _reactor) {
+        super(_reactor);
+    }
+
+    /**
+     * Returns the number of elements dropped.
+     *
+     * @return The number of elements dropped.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    @Override
+    protected void requested(final long _n) {
+        if (upstream != null) {
+            upstream.request(_n);
+            return;
+        }
+        pendingDemand += _n;
+        if (pendingDemand < 0) {
+            pendingDemand = Long.MAX_VALUE;
+        }
+    }
+
+    @Override
+    protected void canceled() {
+        if (upstream != null) {
+            upstream.cancel();
+        }
+    }
+
+    @Override
+    public SIOp<Void> onSubscribeSOp(final StreamSubscription _subscription) {
+        return new SIOp<Void>("onSubscribe", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                if ((upstream != null) || isDone()) {
+                    _subscription.cancel();
+                    return null;
+                }
+                upstream = _subscription;
+                if (pendingDemand > 0) {
+                    upstream.request(pendingDemand);
+                    pendingDemand = 0;
+                }
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public SIOp<Void> onNextSOp(final List<IN_TYPE> _batch) {
+        return new SIOp<Void>("onNext", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                if (isDone()) {
+                    return null;
+                }
+                final int size = _batch.size();
+                final List<OUT_TYPE> out = new ArrayList<OUT_TYPE>(size);
+                try {
+                    for (int i = 0; i < size; i++) {
+                        final OUT_TYPE element = process(_batch.get(i));
+                        if (element != null) {
+                            out.add(element);
+                        }
+                    }
+                } catch (final Exception e) {
+                    upstream.cancel();
+                    fail(e);
+                    return null;
+                }
+                final int dropped = size - out.size();
+                pass(out);
+                if (dropped > 0) {
+                    droppedCount += dropped;
+                    upstream.request(dropped);
+                }
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public SIOp<Void> onErrorSOp(final Exception _exception) {
+        return new SIOp<Void>("onError", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                fail(_exception);
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public SIOp<Void> onCompleteSOp() {
+        return new SIOp<Void>("onComplete", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                complete();
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Transforms an element.
+     *
+     * @param _element The element received.
+     * @return The element to pass, or null to drop it.
+     */
+    protected abstract OUT_TYPE process(final IN_TYPE _element) throws Exception;
+}
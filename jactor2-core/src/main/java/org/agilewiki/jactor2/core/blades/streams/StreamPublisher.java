@@ -0,0 +1,21 @@
+package org.agilewiki.jactor2.core.blades.streams;
+
+import org.agilewiki.jactor2.core.blades.Blade;
+import org.agilewiki.jactor2.core.messages.SIOp;
+
+/**
+ * A blade which passes a stream of elements to a subscriber.
+ *
+ * @param <ELEMENT_TYPE> The type of element.
+ */
+public interface StreamPublisher<ELEMENT_TYPE> extends Blade {
+    /**
+     * Returns a signal which subscribes to this publisher.
+     * The subscriber is then passed a StreamSubscription, or an exception
+     * if it can not be subscribed.
+     *
+     * @param _subscriber The subscriber.
+     * @return The signal.
+     */
+    SIOp<Void> subscribeSOp(final StreamSubscriber<ELEMENT_TYPE> _subscriber);
+}
@@ -0,0 +1,241 @@
+package org.agilewiki.jactor2.core.blades.streams;
+
+import org.agilewiki.jactor2.core.blades.BladeBase;
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+
+import java.util.List;
+
+/**
+ * Implements the publisher side of a stream for a single subscriber:
+ * it tracks the demand of the subscriber and checks each batch passed against it.
+ * A second subscriber is passed an IllegalStateException.
+ *
+ * @param <ELEMENT_TYPE> The type of element.
+ */
+public abstract class StreamPublisherBase<ELEMENT_TYPE> extends BladeBase
+        implements StreamPublisher<ELEMENT_TYPE> {
+
+    /**
+     * The subscriber, or null.
+     */
+    private StreamSubscriber<ELEMENT_TYPE> subscriber;
+
+    /**
+     * The current subscription, or null.
+     */
+    private Subscription subscription;
+
+    /**
+     * True once a subscriber has been accepted.
+     */
+    private boolean subscribed;
+
+    /**
+     * True once the stream has ended.
+     */
+    private boolean done;
+
+    /**
+     * The number of elements requested but not yet passed.
+     */
+    private long demand;
+
+    /**
+     * The number of elements passed.
+     */
+    private long elementCount;
+
+    /**
+     * The number of batches passed.
+     */
+    private long batchCount;
+
+    /**
+     * Create a StreamPublisherBase.
+     *
+     * @param _reactor The blade's reactor.
+     */
+    protected StreamPublisherBase(final Reactor _reactor) {
+        _initialize(_reactor);
+    }
+
+    @Override
+    public SIOp<Void> subscribeSOp(final StreamSubscriber<ELEMENT_TYPE> _subscriber) {
+        return new SIOp<Void>("subscribe", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                if (subscribed) {
+                    _subscriber.onErrorSOp(new IllegalStateException(
+                            "Already subscribed")).signal();
+                    return null;
+                }
+                subscribed = true;
+                subscriber = _subscriber;
+                subscription = new Subscription();
+                _subscriber.onSubscribeSOp(subscription).signal();
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of elements requested but not yet passed.
+     *
+     * @return The demand.
+     */
+    public long getDemand() {
+        return demand;
+    }
+
+    /**
+     * Returns the number of elements passed.
+     *
+     * @return The number of elements passed.
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Returns the number of batches passed.
+     *
+     * @return The number of batches passed.
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Returns true once the stream has been completed, failed or canceled.
+     *
+     * @return True once the stream has ended.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Passes a batch of elements to the subscriber.
+     * Must be called on the thread of this blade's reactor.
+     *
+     * @param _batch The elements, no more than the demand.
+     */
+    protected void pass(final List<ELEMENT_TYPE> _batch) {
+        if (done) {
+            return;
+        }
+        final int size = _batch.size();
+        if (size > demand) {
+            throw new IllegalStateException("More elements than requested: "
+                    + size + " > " + demand);
+        }
+        if (size == 0) {
+            return;
+        }
+        demand -= size;
+        elementCount += size;
+        batchCount += 1;
+        subscriber.onNextSOp(_batch).signal();
+    }
+
+    /**
+     * Ends the stream normally.
+     * Must be called on the thread of this blade's reactor.
+     */
+    protected void complete() {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (subscriber != null) {
+            subscriber.onCompleteSOp().signal();
+            subscriber = null;
+        }
+    }
+
+    /**
+     * Ends the stream with an exception.
+     * Must be called on the thread of this blade's reactor.
+     *
+     * @param _exception The exception.
+     */
+    protected void fail(final Exception _exception) {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (subscriber != null) {
+            subscriber.onErrorSOp(_exception).signal();
+            subscriber = null;
+        }
+    }
+
+    /**
+     * Called on the thread of this blade's reactor when the subscriber requests more elements.
+     *
+     * @param _n The number of additional elements requested.
+     */
+    protected abstract void requested(final long _n) throws Exception;
+
+    /**
+     * Called on the thread of this blade's reactor when the subscriber cancels.
+     * By default, does nothing.
+     */
+    protected void canceled() throws Exception {
+    }
+
+    /**
+     * Passes requests and cancellation to the reactor of the publisher.
+     */
+    private class Subscription implements StreamSubscription {
+        @Override
+        public void request(final long _n) {
+            new SIOp<Void>("request", getReactor()) {
+                @Override
+                protected Void processSyncOperation(final RequestImpl _requestImpl)
+                        throws Exception {
+                    if (done || (subscription != Subscription.this)) {
+                        return null;
+                    }
+                    if (_n <= 0) {
+                        fail(new IllegalArgumentException(
+                                "Request must be positive: " + _n));
+                        canceled();
+                        return null;
+                    }
+                    demand += _n;
+                    if (demand < 0) {
+                        demand = Long.MAX_VALUE;
+                    }
+                    try {
+                        requested(_n);
+                    } catch (final Exception e) {
+                        fail(e);
+                        canceled();
+                    }
+                    return null;
+                }
+            }.signal();
+        }
+
+        @Override
+        public void cancel() {
+            new SIOp<Void>("cancel", getReactor()) {
+                @Override
+                protected Void processSyncOperation(final RequestImpl _requestImpl)
+                        throws Exception {
+                    if (done || (subscription != Subscription.this)) {
+                        return null;
+                    }
+                    done = true;
+                    subscriber = null;
+                    canceled();
+                    return null;
+                }
+            }.signal();
+        }
+    }
+}
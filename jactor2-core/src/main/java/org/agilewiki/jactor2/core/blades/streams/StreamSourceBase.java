@@ -0,0 +1,101 @@
+package org.agilewiki.jactor2.core.blades.streams;
+
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A publisher which pulls its elements from the next method, one batch per signal.
+ * While there is demand, the next batch is passed by a signal to this blade's own reactor,
+ * so a cancellation or other message is not held up by a long or unbounded stream.
+ *
+ * @param <ELEMENT_TYPE> The type of element.
+ */
+public abstract class StreamSourceBase<ELEMENT_TYPE> extends
+        StreamPublisherBase<ELEMENT_TYPE> {
+
+    /**
+     * The maximum number of elements in a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * True while a drain signal is pending.
+     */
+    private boolean draining;
+
+    /**
+     * Create a StreamSourceBase.
+     *
+     * @param _reactor   The blade's reactor.
+     * @param _batchSize The maximum number of elements in a batch.
+     */
+    protected StreamSourceBase(final Reactor _reactor, final int _batchSize) {
+        super(_reactor);
+        if (_batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be at least 1: "
+                    + _batchSize);
+        }
+        batchSize = _batchSize;
+    }
+
+    @Override
+    protected void requested(final long _n) {
+        if (!draining) {
+            draining = true;
+            drainSOp().signal();
+        }
+    }
+
+    /**
+     * Returns a signal which passes the next batch and, while there is still demand,
+     * signals itself again.
+     */
+    private SIOp<Void> drainSOp() {
+        return new SIOp<Void>("drain", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                draining = false;
+                if (isDone() || (getDemand() == 0)) {
+                    return null;
+                }
+                final int size = (int) Math.min(getDemand(), batchSize);
+                final List<ELEMENT_TYPE> batch = new ArrayList<ELEMENT_TYPE>(size);
+                boolean end = false;
+                try {
+                    while (batch.size() < size) {
+                        final ELEMENT_TYPE element = next();
+                        if (element == null) {
+                            end = true;
+                            break;
+                        }
+                        batch.add(element);
+                    }
+                } catch (final Exception e) {
+                    pass(batch);
+                    fail(e);
+                    return null;
+                }
+                pass(batch);
+                if (end) {
+                    complete();
+                } else if (getDemand() > 0) {
+                    draining = true;
+                    drainSOp().signal();
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns the next element of the stream.
+     *
+     * @return The next element, or null at the end of the stream.
+     */
+    protected abstract ELEMENT_TYPE next() throws Exception;
+}
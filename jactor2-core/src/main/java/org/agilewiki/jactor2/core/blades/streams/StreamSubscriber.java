@@ -0,0 +1,46 @@
+package org.agilewiki.jactor2.core.blades.streams;
+
+import org.agilewiki.jactor2.core.blades.Blade;
+import org.agilewiki.jactor2.core.messages.SIOp;
+
+import java.util.List;
+
+/**
+ * A blade which is passed a stream of elements by a publisher.
+ * A publisher passes onSubscribe first, then any number of batches of elements,
+ * but never more elements than requested, and then at most one of onError or onComplete.
+ *
+ * @param <ELEMENT_TYPE> The type of element.
+ */
+public interface StreamSubscriber<ELEMENT_TYPE> extends Blade {
+    /**
+     * Returns a signal which passes the subscription.
+     *
+     * @param _subscription Used to request elements or to cancel.
+     * @return The signal.
+     */
+    SIOp<Void> onSubscribeSOp(final StreamSubscription _subscription);
+
+    /**
+     * Returns a signal which passes a batch of elements.
+     *
+     * @param _batch The elements, none of which are null.
+     * @return The signal.
+     */
+    SIOp<Void> onNextSOp(final List<ELEMENT_TYPE> _batch);
+
+    /**
+     * Returns a signal which passes the exception that ended the stream.
+     *
+     * @param _exception The exception.
+     * @return The signal.
+     */
+    SIOp<Void> onErrorSOp(final Exception _exception);
+
+    /**
+     * Returns a signal which passes the end of the stream.
+     *
+     * @return The signal.
+     */
+    SIOp<Void> onCompleteSOp();
+}
@@ -0,0 +1,235 @@
+package org.agilewiki.jactor2.core.blades.streams;
+
+import org.agilewiki.jactor2.core.blades.BladeBase;
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+
+import java.util.List;
+
+/**
+ * A subscriber which keeps a window of elements requested: the window is requested
+ * on subscribe, and topped up once no more than half of it is outstanding.
+ *
+ * @param <ELEMENT_TYPE> The type of element.
+ */
+public abstract class StreamSubscriberBase<ELEMENT_TYPE> extends BladeBase
+        implements StreamSubscriber<ELEMENT_TYPE> {
+
+    /**
+     * The maximum number of elements requested but not yet received.
+     */
+    private final int window;
+
+    /**
+     * The subscription, or null.
+     */
+    private StreamSubscription subscription;
+
+    /**
+     * The number of elements requested but not yet received.
+     */
+    private long outstanding;
+
+    /**
+     * True once the stream has ended.
+     */
+    private boolean done;
+
+    /**
+     * The number of elements received.
+     */
+    private long elementCount;
+
+    /**
+     * The number of batches received.
+     */
+    private long batchCount;
+
+    /**
+     * When the first element was received, in nanoseconds.
+     */
+    private long firstNanos;
+
+    /**
+     * When the last element was received, in nanoseconds.
+     */
+    private long lastNanos;
+
+    /**
+     * Create a StreamSubscriberBase.
+     *
+     * @param _reactor The blade's reactor.
+     * @param _window  The maximum number of elements requested but not yet received.
+     */
+    protected StreamSubscriberBase(final Reactor _reactor, final int _window) {
+        if (_window < 1) {
+            throw new IllegalArgumentException("window must be at least 1: "
+                    + _window);
+        }
+        window = _window;
+        _initialize(_reactor);
+    }
+
+    /**
+     * Returns the number of elements received.
+     *
+     * @return The number of elements received.
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * Returns the number of batches received.
+     *
+     * @return The number of batches received.
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Returns the rate at which elements were received, from the first batch to the last.
+     *
+     * @return The elements per second, or 0 when that cannot be measured.
+     */
+    public double getElementsPerSecond() {
+        final long nanos = lastNanos - firstNanos;
+        if (nanos <= 0) {
+            return 0;
+        }
+        return elementCount * 1000000000.0 / nanos;
+    }
+
+    /**
+     * Returns true once the stream has been completed, failed or canceled.
+     *
+     * @return True once the stream has ended.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public SIOp<Void> onSubscribeSOp(final StreamSubscription _subscription) {
+        return new SIOp<Void>("onSubscribe", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                if ((subscription != null) || done) {
+                    _subscription.cancel();
+                    return null;
+                }
+                subscription = _subscription;
+                outstanding = window;
+                subscription.request(window);
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public SIOp<Void> onNextSOp(final List<ELEMENT_TYPE> _batch) {
+        return new SIOp<Void>("onNext", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                if (done) {
+                    return null;
+                }
+                final int size = _batch.size();
+                final long now = System.nanoTime();
+                if (elementCount == 0) {
+                    firstNanos = now;
+                }
+                lastNanos = now;
+                elementCount += size;
+                batchCount += 1;
+                outstanding -= size;
+                try {
+                    for (int i = 0; i < size; i++) {
+                        process(_batch.get(i));
+                    }
+                } catch (final Exception e) {
+                    cancel();
+                    failed(e);
+                    return null;
+                }
+                if (!done && (outstanding <= window / 2)) {
+                    subscription.request(window - outstanding);
+                    outstanding = window;
+                }
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public SIOp<Void> onErrorSOp(final Exception _exception) {
+        return new SIOp<Void>("onError", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                if (done) {
+                    return null;
+                }
+                done = true;
+                failed(_exception);
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public SIOp<Void> onCompleteSOp() {
+        return new SIOp<Void>("onComplete", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                if (done) {
+                    return null;
+                }
+                done = true;
+                completed();
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Cancels the subscription, so no more elements are received.
+     * Must be called on the thread of this blade's reactor.
+     */
+    protected void cancel() {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * Processes an element.
+     *
+     * @param _element The element.
+     */
+    protected abstract void process(final ELEMENT_TYPE _element) throws Exception;
+
+    /**
+     * Called when the stream is completed. By default, does nothing.
+     */
+    protected void completed() throws Exception {
+    }
+
+    /**
+     * Called when the stream ends with an exception, including an exception raised by process.
+     * By default, does nothing.
+     *
+     * @param _exception The exception.
+     */
+    protected void failed(final Exception _exception) throws Exception {
+    }
+}
@@ -0,0 +1,20 @@
+package org.agilewiki.jactor2.core.blades.streams;
+
+/**
+ * Links a StreamSubscriber to a StreamPublisher. Both methods are thread-safe,
+ * as they only signal the reactor of the publisher.
+ */
+public interface StreamSubscription {
+    /**
+     * Adds to the number of elements the publisher may pass.
+     * A count that is not positive cancels the subscription with an IllegalArgumentException.
+     *
+     * @param _n The number of additional elements wanted.
+     */
+    void request(final long _n);
+
+    /**
+     * Asks the publisher to stop passing elements.
+     */
+    void cancel();
+}
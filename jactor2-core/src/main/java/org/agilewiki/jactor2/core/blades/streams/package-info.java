@@ -0,0 +1,15 @@
+/**
+ * <p>
+ *     Streams of elements passed between blades with backpressure, following the
+ * Reactive Streams protocol: a subscriber signals its demand with request(n), and a
+ * publisher never passes more elements than have been requested.
+ * </p>
+ * <p>
+ *     Every interaction is a signal to the reactor of the blade receiving it, and elements
+ * are passed in batches, one signal per batch. StreamSourceBase, StreamProcessorBase and
+ * StreamSubscriberBase implement the protocol, so a pipeline only defines how elements
+ * are produced, transformed and consumed. Each also counts the elements and batches
+ * it has passed.
+ * </p>
+ */
+package org.agilewiki.jactor2.core.blades.streams;
@@ -70,6 +70,12 @@ public abstract class AOp<RESPONSE_TYPE> implements
                 .createAsyncRequestImpl(this, targetReactor).call();
     }
 
+    @GwtIncompatible
+    public ResponseFuture<RESPONSE_TYPE> future() {
+        return PlantImpl.getSingleton()
+                .createAsyncRequestImpl(this, targetReactor).future();
+    }
+
     @Override
     public String toString() {
         return opName;
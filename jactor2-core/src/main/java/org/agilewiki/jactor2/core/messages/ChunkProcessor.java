@@ -0,0 +1,19 @@
+package org.agilewiki.jactor2.core.messages;
+
+import java.util.List;
+
+/**
+ * Processes the chunks of elements passed back by a StreamAOp.
+ *
+ * @param <ELEMENT_TYPE> The type of element.
+ */
+public interface ChunkProcessor<ELEMENT_TYPE> {
+    /**
+     * Process a chunk of elements, on the thread of the reactor which sent the request.
+     * The next chunk is not passed until this method returns, and
+     * an exception thrown here ends the stream.
+     *
+     * @param _chunk The elements, in the order they were produced.
+     */
+    void processChunk(final List<ELEMENT_TYPE> _chunk) throws Exception;
+}
@@ -0,0 +1,27 @@
+package org.agilewiki.jactor2.core.messages;
+
+/**
+ * This exception is the response to a request whose deadline passed before
+ * the target reactor began processing it, so the request was dropped.
+ * Like an InboxFullException, it is passed back without the request being processed.
+ */
+public class DeadlineExceededException extends RuntimeException {
+    /**  */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new runtime exception with {@code null} as its
+     * detail message.
+     */
+    public DeadlineExceededException() {
+    }
+
+    /**
+     * Constructs a new runtime exception with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public DeadlineExceededException(final String message) {
+        super(message);
+    }
+}
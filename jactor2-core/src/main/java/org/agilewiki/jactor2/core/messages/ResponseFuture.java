@@ -0,0 +1,42 @@
+package org.agilewiki.jactor2.core.messages;
+
+import org.agilewiki.jactor2.core.GwtIncompatible;
+
+import java.util.concurrent.Future;
+
+/**
+ * The pending response of a request passed with future(), which, unlike call(),
+ * does not block the thread passing the request.
+ * <p>
+ * Listeners are run once the response is received, by the completion executor of
+ * the plant or, when there is none, by the thread of the target reactor.
+ * Canceling the future also cancels the request.
+ * </p>
+ *
+ * @param <RESPONSE_TYPE> The type of response.
+ */
+@GwtIncompatible
+public interface ResponseFuture<RESPONSE_TYPE> extends Future<RESPONSE_TYPE> {
+    /**
+     * Adds a listener to be run once the response is received, or at once if it already has been.
+     *
+     * @param _listener The listener.
+     */
+    void whenComplete(final CompletionListener<? super RESPONSE_TYPE> _listener);
+
+    /**
+     * Receives the response of a ResponseFuture.
+     *
+     * @param <RESPONSE_TYPE> The type of response.
+     */
+    interface CompletionListener<RESPONSE_TYPE> {
+        /**
+         * Process the response.
+         *
+         * @param _response  The response, or null when there is an exception.
+         * @param _exception The exception raised in place of a response, or null.
+         *                   A CancellationException when the future was canceled.
+         */
+        void onComplete(final RESPONSE_TYPE _response, final Throwable _exception);
+    }
+}
@@ -22,4 +22,17 @@ public abstract class SIOp<RESPONSE_TYPE> extends SOp<RESPONSE_TYPE> {
         PlantImpl.getSingleton().createSyncRequestImpl(this, targetReactor)
                 .signal();
     }
+
+    /**
+     * Passes a signal, unless a signal with an equal key is queued on the target reactor
+     * and has not yet begun processing. Use this for signals which need only be processed
+     * once per burst, like a notice that the state of a blade has changed.
+     *
+     * @param _key Identifies equivalent signals.
+     * @return True when the signal was passed, false when it was dropped.
+     */
+    public boolean signal(final Object _key) {
+        return PlantImpl.getSingleton().createSyncRequestImpl(this, targetReactor)
+                .signal(_key);
+    }
 }
@@ -66,6 +66,12 @@ public abstract class SOp<RESPONSE_TYPE> implements
                 .createSyncRequestImpl(this, targetReactor).call();
     }
 
+    @GwtIncompatible
+    public ResponseFuture<RESPONSE_TYPE> future() {
+        return PlantImpl.getSingleton()
+                .createSyncRequestImpl(this, targetReactor).future();
+    }
+
     @Override
     public String toString() {
         return opName;
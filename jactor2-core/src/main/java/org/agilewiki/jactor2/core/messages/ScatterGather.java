@@ -0,0 +1,211 @@
+package org.agilewiki.jactor2.core.messages;
+
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+
+/**
+ * Sends a number of subordinate requests, no more than a given number at a time,
+ * and folds their responses into a result.
+ * <p>
+ * Start a ScatterGather with AsyncRequestImpl.scatterGather. The send method is then
+ * called for each index in turn, first to fill the window and then once for each
+ * response received. Each response is passed to gather, which typically folds it into
+ * fields of the ScatterGather, so no object need be created per response. Once the quorum
+ * of responses has been gathered, the remaining requests are canceled via cancelAll and
+ * the value returned by getResult is passed back.
+ * </p>
+ * <p>
+ * As cancelAll cancels all the subordinate requests of the originating request,
+ * a ScatterGather with a quorum less than its size should not be started while other
+ * subordinate requests are pending. Exceptions raised by the subordinate requests are
+ * passed to the exception handler of the originating request, as with any other send.
+ * </p>
+ * <p>
+ * A ScatterGather is not thread-safe and is used only once, by the thread of the
+ * originating request.
+ * </p>
+ *
+ * @param <ITEM_RESPONSE_TYPE> The type of response of the subordinate requests.
+ * @param <RESPONSE_TYPE>      The type of result.
+ */
+public abstract class ScatterGather<ITEM_RESPONSE_TYPE, RESPONSE_TYPE> implements
+        AsyncResponseProcessor<ITEM_RESPONSE_TYPE> {
+    /**
+     * The number of subordinate requests.
+     */
+    private final int size;
+
+    /**
+     * The maximum number of subordinate requests pending at a time.
+     */
+    private final int window;
+
+    /**
+     * The number of responses needed for a result.
+     */
+    private final int quorum;
+
+    /**
+     * The originating request.
+     */
+    private AsyncRequestImpl<?> asyncRequestImpl;
+
+    /**
+     * Receives the result.
+     */
+    private AsyncResponseProcessor<RESPONSE_TYPE> asyncResponseProcessor;
+
+    /**
+     * The number of subordinate requests sent.
+     */
+    private int sent;
+
+    /**
+     * The number of responses gathered.
+     */
+    private int gathered;
+
+    /**
+     * True once the result has been passed back.
+     */
+    private boolean done;
+
+    /**
+     * Create a ScatterGather which needs all the responses.
+     *
+     * @param _size   The number of subordinate requests.
+     * @param _window The maximum number of subordinate requests pending at a time.
+     */
+    public ScatterGather(final int _size, final int _window) {
+        this(_size, _window, _size);
+    }
+
+    /**
+     * Create a ScatterGather.
+     *
+     * @param _size   The number of subordinate requests.
+     * @param _window The maximum number of subordinate requests pending at a time.
+     * @param _quorum The number of responses needed for a result.
+     */
+    public ScatterGather(final int _size, final int _window, final int _quorum) {
+        if (_size < 0) {
+            throw new IllegalArgumentException("size must not be negative: "
+                    + _size);
+        }
+        if (_window < 1) {
+            throw new IllegalArgumentException("window must be at least 1: "
+                    + _window);
+        }
+        if ((_quorum < 0) || (_quorum > _size)) {
+            throw new IllegalArgumentException("quorum must be from 0 to "
+                    + _size + ": " + _quorum);
+        }
+        size = _size;
+        window = _window;
+        quorum = _quorum;
+    }
+
+    /**
+     * Sends the first window of subordinate requests.
+     * Called by AsyncRequestImpl.scatterGather.
+     *
+     * @param _asyncRequestImpl       The originating request.
+     * @param _asyncResponseProcessor Receives the result.
+     */
+    public void start(final AsyncRequestImpl<?> _asyncRequestImpl,
+                      final AsyncResponseProcessor<RESPONSE_TYPE> _asyncResponseProcessor)
+            throws Exception {
+        if (asyncRequestImpl != null) {
+            throw new IllegalStateException("Already used");
+        }
+        asyncRequestImpl = _asyncRequestImpl;
+        asyncResponseProcessor = _asyncResponseProcessor;
+        if (quorum == 0) {
+            complete();
+            return;
+        }
+        final int first = Math.min(size, window);
+        while (sent < first) {
+            sendNext();
+        }
+    }
+
+    /**
+     * Returns the number of responses gathered so far.
+     *
+     * @return The number of responses gathered.
+     */
+    public int getGathered() {
+        return gathered;
+    }
+
+    /**
+     * Returns the number of subordinate requests sent so far.
+     *
+     * @return The number of subordinate requests sent.
+     */
+    public int getSent() {
+        return sent;
+    }
+
+    /**
+     * Gathers a response and then either passes back the result
+     * or sends the next subordinate request.
+     *
+     * @param _response The response to a subordinate request.
+     */
+    @Override
+    public void processAsyncResponse(final ITEM_RESPONSE_TYPE _response)
+            throws Exception {
+        if (done) {
+            return;
+        }
+        gathered += 1;
+        gather(_response);
+        if (gathered >= quorum) {
+            complete();
+        } else if (sent < size) {
+            sendNext();
+        }
+    }
+
+    private void sendNext() throws Exception {
+        final int index = sent;
+        sent += 1;
+        send(asyncRequestImpl, index, this);
+    }
+
+    private void complete() throws Exception {
+        done = true;
+        if (gathered < sent) {
+            asyncRequestImpl.cancelAll();
+        }
+        asyncResponseProcessor.processAsyncResponse(getResult());
+    }
+
+    /**
+     * Sends a subordinate request.
+     *
+     * @param _asyncRequestImpl  The originating request.
+     * @param _index             The index of the subordinate request, from 0 to size - 1.
+     * @param _responseProcessor The response processor to pass with the subordinate request.
+     */
+    protected abstract void send(final AsyncRequestImpl<?> _asyncRequestImpl,
+                                 final int _index,
+                                 final AsyncResponseProcessor<ITEM_RESPONSE_TYPE> _responseProcessor)
+            throws Exception;
+
+    /**
+     * Folds the response of a subordinate request into the result.
+     *
+     * @param _response The response to a subordinate request.
+     */
+    protected abstract void gather(final ITEM_RESPONSE_TYPE _response)
+            throws Exception;
+
+    /**
+     * Returns the result, once the quorum of responses has been gathered.
+     *
+     * @return The result.
+     */
+    protected abstract RESPONSE_TYPE getResult() throws Exception;
+}
@@ -0,0 +1,171 @@
+package org.agilewiki.jactor2.core.messages;
+
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An asynchronous operation which passes back its result as a stream of chunks,
+ * followed by a single response: the number of elements passed.
+ * <p>
+ * Elements are pulled from next on the thread of the target reactor and grouped
+ * into chunks of up to batchSize elements. Each chunk is sent as a request to the
+ * reactor which sent this request, where it is passed to the ChunkProcessor. No more
+ * than window chunks are pending at a time, each response to a chunk being a credit
+ * for the next, so no more than batchSize * window elements are held at once.
+ * The response is passed back only once every chunk has been processed.
+ * </p>
+ * <p>
+ * When this request is not sent by a reactor, as with call, the chunks are processed
+ * by the thread of the target reactor instead.
+ * An exception raised by next or by the ChunkProcessor ends the stream, and canceling
+ * this request stops further chunks from being sent.
+ * </p>
+ *
+ * @param <ELEMENT_TYPE> The type of element.
+ */
+public abstract class StreamAOp<ELEMENT_TYPE> extends AOp<Long> {
+    /**
+     * Processes the chunks.
+     */
+    private final ChunkProcessor<ELEMENT_TYPE> chunkProcessor;
+
+    /**
+     * The maximum number of elements in a chunk.
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum number of chunks pending at a time.
+     */
+    private final int window;
+
+    /**
+     * Create a StreamAOp.
+     *
+     * @param _opName         The name of the operation.
+     * @param _targetReactor  The reactor whose thread will produce the elements.
+     * @param _chunkProcessor Processes the chunks.
+     * @param _batchSize      The maximum number of elements in a chunk.
+     * @param _window         The maximum number of chunks pending at a time.
+     */
+    public StreamAOp(final String _opName, final Reactor _targetReactor,
+                     final ChunkProcessor<ELEMENT_TYPE> _chunkProcessor,
+                     final int _batchSize, final int _window) {
+        super(_opName, _targetReactor);
+        if (_chunkProcessor == null) {
+            throw new NullPointerException("chunkProcessor");
+        }
+        if (_batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be at least 1: "
+                    + _batchSize);
+        }
+        if (_window < 1) {
+            throw new IllegalArgumentException("window must be at least 1: "
+                    + _window);
+        }
+        chunkProcessor = _chunkProcessor;
+        batchSize = _batchSize;
+        window = _window;
+    }
+
+    @Override
+    protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                         final AsyncResponseProcessor<Long> _asyncResponseProcessor)
+            throws Exception {
+        final Reactor sourceReactor = _asyncRequestImpl.getSourceReactor();
+        new Pump(_asyncRequestImpl,
+                sourceReactor == null ? _asyncRequestImpl.getTargetReactor() : sourceReactor,
+                _asyncResponseProcessor).fill();
+    }
+
+    /**
+     * Returns the next element of the stream, on the thread of the target reactor.
+     *
+     * @return The next element, or null at the end of the stream.
+     */
+    protected abstract ELEMENT_TYPE next() throws Exception;
+
+    /**
+     * Sends the chunks of a single request, topping up the window as each is processed.
+     */
+    private class Pump implements AsyncResponseProcessor<Void> {
+        private final AsyncRequestImpl<?> asyncRequestImpl;
+
+        private final Reactor chunkReactor;
+
+        private final AsyncResponseProcessor<Long> asyncResponseProcessor;
+
+        /**
+         * The number of chunks sent and not yet processed.
+         */
+        private int pending;
+
+        /**
+         * The number of elements sent.
+         */
+        private long count;
+
+        /**
+         * True once next has returned null.
+         */
+        private boolean ended;
+
+        Pump(final AsyncRequestImpl<?> _asyncRequestImpl,
+             final Reactor _chunkReactor,
+             final AsyncResponseProcessor<Long> _asyncResponseProcessor) {
+            asyncRequestImpl = _asyncRequestImpl;
+            chunkReactor = _chunkReactor;
+            asyncResponseProcessor = _asyncResponseProcessor;
+        }
+
+        @Override
+        public void processAsyncResponse(final Void _response) throws Exception {
+            pending -= 1;
+            fill();
+        }
+
+        /**
+         * Sends chunks until the window is full or the stream has ended,
+         * and passes back the count once every chunk has been processed.
+         */
+        void fill() throws Exception {
+            while (!ended && (pending < window)) {
+                if (asyncRequestImpl.isCanceled()) {
+                    return;
+                }
+                final List<ELEMENT_TYPE> chunk = new ArrayList<ELEMENT_TYPE>(batchSize);
+                while (chunk.size() < batchSize) {
+                    final ELEMENT_TYPE element = next();
+                    if (element == null) {
+                        ended = true;
+                        break;
+                    }
+                    chunk.add(element);
+                }
+                if (!chunk.isEmpty()) {
+                    pending += 1;
+                    count += chunk.size();
+                    asyncRequestImpl.send(chunkSOp(chunk), this);
+                }
+            }
+            if (ended && (pending == 0)) {
+                asyncResponseProcessor.processAsyncResponse(count);
+            }
+        }
+
+        private SOp<Void> chunkSOp(final List<ELEMENT_TYPE> _chunk) {
+            return new SOp<Void>(getOpName() + ".chunk", chunkReactor) {
+                @Override
+                protected Void processSyncOperation(final RequestImpl _requestImpl)
+                        throws Exception {
+                    chunkProcessor.processChunk(_chunk);
+                    return null;
+                }
+            };
+        }
+    }
+}
@@ -76,11 +76,28 @@ public interface AsyncRequestImpl<RESPONSE_TYPE> extends
     <RT, RT2> void send(final RequestImpl<RT> _requestImpl,
             final AsyncResponseProcessor<RT2> _dis, final RT2 _fixedResponse);
 
+    /**
+     * Start a scatter-gather, which sends a number of subordinate requests and folds
+     * their responses into a result, providing the originating request is not canceled.
+     *
+     * @param _scatterGather          Sends the subordinate requests and gathers the responses.
+     * @param _asyncResponseProcessor Receives the result.
+     * @param <RT>                    The response value type of the subordinate requests.
+     * @param <RT2>                   The type of result.
+     */
+    <RT, RT2> void scatterGather(final ScatterGather<RT, RT2> _scatterGather,
+            final AsyncResponseProcessor<RT2> _asyncResponseProcessor)
+            throws Exception;
+
     /**
      * Cancel a subordinate RequestImpl.
+     * This method is thread safe, but when not called by the thread of the target reactor,
+     * the request is canceled later by that thread.
      *
      * @param _requestImpl The subordinate RequestImpl.
-     * @return True if the subordinate RequestImpl was canceled.
+     * @return True if the subordinate RequestImpl was canceled. When not called by the
+     * thread of the target reactor, true only means that its cancellation was requested,
+     * as it may still respond before being canceled.
      */
     boolean cancel(RequestImpl<?> _requestImpl);
 
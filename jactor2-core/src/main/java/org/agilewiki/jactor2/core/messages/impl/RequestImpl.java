@@ -3,6 +3,7 @@ package org.agilewiki.jactor2.core.messages.impl;
 import org.agilewiki.jactor2.core.GwtIncompatible;
 import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
 import org.agilewiki.jactor2.core.messages.Operation;
+import org.agilewiki.jactor2.core.messages.ResponseFuture;
 import org.agilewiki.jactor2.core.messages.SOp;
 import org.agilewiki.jactor2.core.messages.alt.SyncNativeRequest;
 import org.agilewiki.jactor2.core.reactors.Reactor;
@@ -70,6 +71,16 @@ public interface RequestImpl<RESPONSE_TYPE> extends AutoCloseable, Comparable<Re
      */
     void signal();
 
+    /**
+     * Passes this Request to the target Reactor as a signal, unless a signal with an equal key
+     * has been passed to the target Reactor and has not yet begun processing, in which case
+     * this Request is dropped. So a burst of equivalent signals is processed only once.
+     *
+     * @param _key Identifies equivalent signals.
+     * @return True when this Request was passed, false when it was dropped.
+     */
+    boolean signal(final Object _key);
+
     /**
      * Passes this Request to the target Reactor and blocks the current thread until
      * a result is returned. The call method sends the message directly without buffering,
@@ -82,6 +93,16 @@ public interface RequestImpl<RESPONSE_TYPE> extends AutoCloseable, Comparable<Re
     @GwtIncompatible
     RESPONSE_TYPE call() throws Exception;
 
+    /**
+     * Passes this Request to the target Reactor without blocking the current thread.
+     * Like call, the message is sent directly without buffering, but this may be
+     * used by any thread, as it does not wait for the response.
+     *
+     * @return The future response.
+     */
+    @GwtIncompatible
+    ResponseFuture<RESPONSE_TYPE> future();
+
     <RT> RT syncDirect(final SOp<RT> _sOp)
             throws Exception;
 
@@ -91,4 +112,23 @@ public interface RequestImpl<RESPONSE_TYPE> extends AutoCloseable, Comparable<Re
     void setMessageTimeoutMillis(int _timeoutMillis);
 
     int getMessageTimeoutMillis();
+
+    /**
+     * Sets the time by which this request must begin processing, per the plant scheduler
+     * (PlantBase.getPlantScheduler().currentTimeMillis()). The requests sent while this
+     * request is processed inherit its deadline, and a request still queued once its
+     * deadline has passed is dropped and passed back a DeadlineExceededException.
+     * A deadline later than the current one is ignored, so an inherited deadline
+     * can only be brought forward.
+     *
+     * @param _deadlineMillis The deadline in milliseconds, or 0 for none.
+     */
+    void setDeadlineMillis(long _deadlineMillis);
+
+    /**
+     * Returns the time by which this request must begin processing, per the plant scheduler.
+     *
+     * @return The deadline in milliseconds, or 0 when there is none.
+     */
+    long getDeadlineMillis();
 }
@@ -61,6 +61,45 @@ abstract public class PlantImpl {
             final IsolationReactor _parentReactor, int _initialOutboxSize,
             int _initialLocalQueueSize);
 
+    /**
+     * Create the object used to implement a non-blocking reactor
+     * which runs on a named thread pool.
+     * By default the thread pool name is ignored.
+     *
+     * @param _parentReactor          The parent reactor.
+     * @param _initialOutboxSize      Initial size of the list of requests/responses for each destination.
+     * @param _initialLocalQueueSize  Initial size of the local input queue.
+     * @param _reactorThreadPoolName  The name of the thread pool, or null.
+     * @return The object used to implement the reactor.
+     */
+    public ReactorImpl createNonBlockingReactorImpl(
+            final IsolationReactor _parentReactor, final int _initialOutboxSize,
+            final int _initialLocalQueueSize, final String _reactorThreadPoolName) {
+        return createNonBlockingReactorImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize);
+    }
+
+    /**
+     * Create the object used to implement a non-blocking reactor
+     * which runs on a named thread pool with a given priority.
+     * By default the priority is ignored.
+     *
+     * @param _parentReactor          The parent reactor.
+     * @param _initialOutboxSize      Initial size of the list of requests/responses for each destination.
+     * @param _initialLocalQueueSize  Initial size of the local input queue.
+     * @param _reactorThreadPoolName  The name of the thread pool, or null.
+     * @param _priority               The priority of the reactor, or
+     *                                PoolThreadReactorImpl.INHERITED_PRIORITY.
+     * @return The object used to implement the reactor.
+     */
+    public ReactorImpl createNonBlockingReactorImpl(
+            final IsolationReactor _parentReactor, final int _initialOutboxSize,
+            final int _initialLocalQueueSize, final String _reactorThreadPoolName,
+            final int _priority) {
+        return createNonBlockingReactorImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize, _reactorThreadPoolName);
+    }
+
     abstract public ReactorImpl createBlockingReactorImpl(
             final IsolationReactor _parentReactor, int _initialOutboxSize,
             int _initialLocalQueueSize);
@@ -69,6 +108,45 @@ abstract public class PlantImpl {
             final IsolationReactor _parentReactor, int _initialOutboxSize,
             int _initialLocalQueueSize);
 
+    /**
+     * Create the object used to implement an isolation reactor
+     * which runs on a named thread pool.
+     * By default the thread pool name is ignored.
+     *
+     * @param _parentReactor          The parent reactor.
+     * @param _initialOutboxSize      Initial size of the list of requests/responses for each destination.
+     * @param _initialLocalQueueSize  Initial size of the local input queue.
+     * @param _reactorThreadPoolName  The name of the thread pool, or null.
+     * @return The object used to implement the reactor.
+     */
+    public ReactorImpl createIsolationReactorImpl(
+            final IsolationReactor _parentReactor, final int _initialOutboxSize,
+            final int _initialLocalQueueSize, final String _reactorThreadPoolName) {
+        return createIsolationReactorImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize);
+    }
+
+    /**
+     * Create the object used to implement an isolation reactor
+     * which runs on a named thread pool with a given priority.
+     * By default the priority is ignored.
+     *
+     * @param _parentReactor          The parent reactor.
+     * @param _initialOutboxSize      Initial size of the list of requests/responses for each destination.
+     * @param _initialLocalQueueSize  Initial size of the local input queue.
+     * @param _reactorThreadPoolName  The name of the thread pool, or null.
+     * @param _priority               The priority of the reactor, or
+     *                                PoolThreadReactorImpl.INHERITED_PRIORITY.
+     * @return The object used to implement the reactor.
+     */
+    public ReactorImpl createIsolationReactorImpl(
+            final IsolationReactor _parentReactor, final int _initialOutboxSize,
+            final int _initialLocalQueueSize, final String _reactorThreadPoolName,
+            final int _priority) {
+        return createIsolationReactorImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize, _reactorThreadPoolName);
+    }
+
     abstract public ReactorImpl createSwingBoundReactorImpl(
             final IsolationReactor _parentReactor, int _initialOutboxSize,
             int _initialLocalQueueSize);
@@ -0,0 +1,27 @@
+package org.agilewiki.jactor2.core.reactors;
+
+/**
+ * This exception is the response to a request passed to a reactor whose inbox is full,
+ * when the reactor rejects requests on overflow.
+ * Unlike a ReactorClosedException, the request may succeed if passed again later.
+ */
+public class InboxFullException extends RuntimeException {
+    /**  */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new runtime exception with {@code null} as its
+     * detail message.
+     */
+    public InboxFullException() {
+    }
+
+    /**
+     * Constructs a new runtime exception with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public InboxFullException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package org.agilewiki.jactor2.core.reactors;
+
+/**
+ * The kinds of message held by the inbox of a reactor.
+ */
+public enum InboxLane {
+    /**
+     * Responses to requests sent by the reactor.
+     */
+    RESPONSE,
+
+    /**
+     * Signals, which pass no result back.
+     */
+    SIGNAL,
+
+    /**
+     * New requests.
+     */
+    REQUEST
+}
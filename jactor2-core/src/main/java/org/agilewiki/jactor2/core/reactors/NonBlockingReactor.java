@@ -74,6 +74,72 @@ public class NonBlockingReactor extends ReactorBase implements CommonReactor,
                 _initialLocalQueueSize));
     }
 
+    /**
+     * Create a non-blocking reactor which runs on a named thread pool.
+     * Reactors created with this reactor as their parent run on the same thread pool.
+     *
+     * @param _parentReactor            The parent reactor.
+     * @param _reactorThreadPoolName    The name of the thread pool, or null to use
+     *                                  the thread pool of the parent reactor.
+     */
+    public NonBlockingReactor(final IsolationReactor _parentReactor,
+            final String _reactorThreadPoolName) throws Exception {
+        this(_parentReactor, _parentReactor.asReactorImpl()
+                .getInitialBufferSize(), _parentReactor.asReactorImpl()
+                .getInitialLocalQueueSize(), _reactorThreadPoolName);
+    }
+
+    /**
+     * Create a non-blocking reactor which runs on a named thread pool.
+     * Reactors created with this reactor as their parent run on the same thread pool.
+     *
+     * @param _parentReactor            The parent reactor.
+     * @param _initialOutboxSize        Initial size of the list of requests/responses for each destination.
+     * @param _initialLocalQueueSize    Initial size of the local input queue.
+     * @param _reactorThreadPoolName    The name of the thread pool, or null to use
+     *                                  the thread pool of the parent reactor.
+     */
+    public NonBlockingReactor(final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName) throws Exception {
+        initialize(createReactorImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize, _reactorThreadPoolName));
+    }
+
+    /**
+     * Create a non-blocking reactor with a given priority.
+     * Reactors created with this reactor as their parent have the same priority,
+     * unless they are given one of their own.
+     *
+     * @param _parentReactor            The parent reactor.
+     * @param _priority                 The priority of the reactor, e.g. PoolThreadReactorImpl.HIGH_PRIORITY.
+     */
+    public NonBlockingReactor(final IsolationReactor _parentReactor,
+            final int _priority) throws Exception {
+        this(_parentReactor, _parentReactor.asReactorImpl()
+                .getInitialBufferSize(), _parentReactor.asReactorImpl()
+                .getInitialLocalQueueSize(), null, _priority);
+    }
+
+    /**
+     * Create a non-blocking reactor which runs on a named thread pool with a given priority.
+     *
+     * @param _parentReactor            The parent reactor.
+     * @param _initialOutboxSize        Initial size of the list of requests/responses for each destination.
+     * @param _initialLocalQueueSize    Initial size of the local input queue.
+     * @param _reactorThreadPoolName    The name of the thread pool, or null to use
+     *                                  the thread pool of the parent reactor.
+     * @param _priority                 The priority of the reactor, or
+     *                                  PoolThreadReactorImpl.INHERITED_PRIORITY.
+     */
+    public NonBlockingReactor(final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName, final int _priority)
+            throws Exception {
+        initialize(createReactorImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize, _reactorThreadPoolName, _priority));
+    }
+
     /**
      * Create the object used to implement the reactor.
      *
@@ -89,6 +155,44 @@ public class NonBlockingReactor extends ReactorBase implements CommonReactor,
                 _parentReactor, _initialOutboxSize, _initialLocalQueueSize);
     }
 
+    /**
+     * Create the object used to implement a reactor which runs on a named thread pool.
+     *
+     * @param _parentReactor            The parent reactor impl object.
+     * @param _initialOutboxSize        Initial size of the list of requests/responses for each destination.
+     * @param _initialLocalQueueSize    Initial size of the local input queue.
+     * @param _reactorThreadPoolName    The name of the thread pool, or null.
+     * @return The object used to implement the reactor.
+     */
+    protected ReactorImpl createReactorImpl(
+            final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName) {
+        return createReactorImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize, _reactorThreadPoolName,
+                PoolThreadReactorImpl.INHERITED_PRIORITY);
+    }
+
+    /**
+     * Create the object used to implement a reactor with a given priority.
+     *
+     * @param _parentReactor            The parent reactor impl object.
+     * @param _initialOutboxSize        Initial size of the list of requests/responses for each destination.
+     * @param _initialLocalQueueSize    Initial size of the local input queue.
+     * @param _reactorThreadPoolName    The name of the thread pool, or null.
+     * @param _priority                 The priority of the reactor, or
+     *                                  PoolThreadReactorImpl.INHERITED_PRIORITY.
+     * @return The object used to implement the reactor.
+     */
+    protected ReactorImpl createReactorImpl(
+            final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName, final int _priority) {
+        return PlantImpl.getSingleton().createNonBlockingReactorImpl(
+                _parentReactor, _initialOutboxSize, _initialLocalQueueSize,
+                _reactorThreadPoolName, _priority);
+    }
+
     /**
      * Define the activity which occurs when the input queue is empty.
      * By default, nothing is done.
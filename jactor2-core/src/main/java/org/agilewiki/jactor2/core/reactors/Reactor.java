@@ -74,6 +74,46 @@ public interface Reactor extends Closeable, Blade {
      */
     boolean isInboxEmpty();
 
+    /**
+     * Returns the approximate number of messages in the inbox. Thread safe.
+     *
+     * @return The number of messages in the inbox.
+     */
+    int getInboxSize();
+
+    /**
+     * Returns the approximate number of messages of a kind in the inbox. Thread safe.
+     *
+     * @param _lane The kind of message.
+     * @return The number of messages of that kind in the inbox.
+     */
+    int getInboxSize(final InboxLane _lane);
+
+    /**
+     * Returns how long the oldest message in the inbox has been waiting, in milliseconds.
+     * This is approximate, to within the resolution of the plant scheduler's clock,
+     * and may overstate the age when messages are not processed in the order received.
+     * Thread safe.
+     *
+     * @return The age of the oldest message, or 0 when the inbox is empty.
+     */
+    long getInboxAgeMillis();
+
+    /**
+     * Returns the approximate number of messages added to the inbox. Thread safe.
+     *
+     * @return The total number of messages added.
+     */
+    long getInboxEnqueuedCount();
+
+    /**
+     * Returns the approximate number of messages which have left the inbox,
+     * to be processed or because they were dropped. Thread safe.
+     *
+     * @return The total number of messages which have left the inbox.
+     */
+    long getInboxDequeuedCount();
+
     /**
      * Returns a request targeted to the reactor that does nothing.
      * Used for synchronizing state with another reactor.
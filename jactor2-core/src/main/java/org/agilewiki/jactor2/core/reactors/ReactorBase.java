@@ -76,6 +76,31 @@ abstract public class ReactorBase extends BladeBase implements Reactor {
         return asReactorImpl().isInboxEmpty();
     }
 
+    @Override
+    public int getInboxSize() {
+        return asReactorImpl().getInboxSize();
+    }
+
+    @Override
+    public int getInboxSize(final InboxLane _lane) {
+        return asReactorImpl().getInboxSize(_lane);
+    }
+
+    @Override
+    public long getInboxAgeMillis() {
+        return asReactorImpl().getInboxAgeMillis();
+    }
+
+    @Override
+    public long getInboxEnqueuedCount() {
+        return asReactorImpl().getInboxEnqueuedCount();
+    }
+
+    @Override
+    public long getInboxDequeuedCount() {
+        return asReactorImpl().getInboxDequeuedCount();
+    }
+
     @Override
     public SOp<Void> nullSOp() {
         return asReactorImpl().nullSOp();
@@ -1,6 +1,7 @@
 package org.agilewiki.jactor2.core.reactors.facilities;
 
 import org.agilewiki.jactor2.core.blades.NamedBlade;
+import org.agilewiki.jactor2.core.plant.impl.PlantBase;
 import org.agilewiki.jactor2.core.plant.impl.PlantImpl;
 import org.agilewiki.jactor2.core.reactors.IsolationReactor;
 
@@ -33,6 +34,39 @@ public class Facility extends IsolationReactor implements NamedBlade {
         name = _name;
     }
 
+    /**
+     * Create a facility which runs on a named thread pool.
+     * Reactors created with the facility as their parent run on the same thread pool.
+     *
+     * @param _name                  The name of the facility.
+     * @param _parentReactor         The parent reactor, or null for the Plant internal reactor.
+     * @param _reactorThreadPoolName The name of the thread pool.
+     */
+    public Facility(final String _name, final Facility _parentReactor,
+                    final String _reactorThreadPoolName) throws Exception {
+        super(_parentReactor == null ? PlantBase.getInternalFacility()
+                : _parentReactor, _reactorThreadPoolName);
+        name = _name;
+    }
+
+    /**
+     * Create a facility with a given priority, which is also the default priority
+     * of the reactors created with the facility as their parent.
+     *
+     * @param _name                  The name of the facility.
+     * @param _parentReactor         The parent reactor, or null for the Plant internal reactor.
+     * @param _reactorThreadPoolName The name of the thread pool, or null to use
+     *                               the thread pool of the parent reactor.
+     * @param _priority              The priority, e.g. PoolThreadReactorImpl.HIGH_PRIORITY.
+     */
+    public Facility(final String _name, final Facility _parentReactor,
+                    final String _reactorThreadPoolName, final int _priority)
+            throws Exception {
+        super(_parentReactor == null ? PlantBase.getInternalFacility()
+                : _parentReactor, _reactorThreadPoolName, _priority);
+        name = _name;
+    }
+
     /**
      * Create a facility with the Plant internal reactor as the parent.
      *
@@ -7,6 +7,33 @@ package org.agilewiki.jactor2.core.reactors.impl;
  * </p>
  */
 public interface PoolThreadReactorImpl extends ReactorImpl {
+    /**
+     * The priority of reactors which may wait while higher priority reactors run.
+     */
+    public static final int LOW_PRIORITY = 0;
+
+    /**
+     * The default priority.
+     */
+    public static final int NORMAL_PRIORITY = 1;
+
+    /**
+     * The priority of reactors which must stay responsive, like health checks and timeouts.
+     */
+    public static final int HIGH_PRIORITY = 2;
+
+    /**
+     * Passed when creating a reactor which is to have the same priority as its parent.
+     */
+    public static final int INHERITED_PRIORITY = -1;
+
+    /**
+     * Returns the priority with which the reactor is picked to run.
+     *
+     * @return LOW_PRIORITY, NORMAL_PRIORITY or HIGH_PRIORITY.
+     */
+    public int getPriority();
+
     /**
      * The object to be run when the inbox is emptied and before the threadReference is cleared.
      */
@@ -4,6 +4,7 @@ import org.agilewiki.jactor2.core.blades.Blade;
 import org.agilewiki.jactor2.core.messages.ExceptionHandler;
 import org.agilewiki.jactor2.core.messages.SOp;
 import org.agilewiki.jactor2.core.plant.impl.MetricsTimer;
+import org.agilewiki.jactor2.core.reactors.InboxLane;
 import org.agilewiki.jactor2.core.reactors.IsolationReactor;
 import org.agilewiki.jactor2.core.reactors.Reactor;
 import org.agilewiki.jactor2.core.reactors.closeable.Closeable;
@@ -64,12 +65,52 @@ public interface ReactorImpl extends Closeable, Runnable, Blade {
     void fail(final String _reason) throws Exception;
 
     /**
-     * Returns true when the inbox is not empty.
+     * Returns true when there are no more messages in the inbox.
      *
-     * @return True when the inbox is not empty.
+     * @return True when the inbox is empty.
      */
     boolean isInboxEmpty();
 
+    /**
+     * Returns the approximate number of messages in the inbox. Thread safe.
+     *
+     * @return The number of messages in the inbox.
+     */
+    int getInboxSize();
+
+    /**
+     * Returns the approximate number of messages of a kind in the inbox. Thread safe.
+     *
+     * @param _lane The kind of message.
+     * @return The number of messages of that kind in the inbox.
+     */
+    int getInboxSize(final InboxLane _lane);
+
+    /**
+     * Returns how long the oldest message in the inbox has been waiting, in milliseconds.
+     * This is approximate, to within the resolution of the plant scheduler's clock,
+     * and may overstate the age when messages are not processed in the order received.
+     * Thread safe.
+     *
+     * @return The age of the oldest message, or 0 when the inbox is empty.
+     */
+    long getInboxAgeMillis();
+
+    /**
+     * Returns the approximate number of messages added to the inbox. Thread safe.
+     *
+     * @return The total number of messages added.
+     */
+    long getInboxEnqueuedCount();
+
+    /**
+     * Returns the approximate number of messages which have left the inbox,
+     * to be processed or because they were dropped. Thread safe.
+     *
+     * @return The total number of messages which have left the inbox.
+     */
+    long getInboxDequeuedCount();
+
     /**
      * Assign an exception handler.
      *
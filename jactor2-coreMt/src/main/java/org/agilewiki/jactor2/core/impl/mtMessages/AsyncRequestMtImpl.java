@@ -12,11 +12,6 @@ import org.agilewiki.jactor2.core.plant.impl.PlantImpl;
 import org.agilewiki.jactor2.core.reactors.CommonReactor;
 import org.agilewiki.jactor2.core.reactors.Reactor;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
  * Internal implementation of AsyncRequest.
  *
@@ -36,9 +31,17 @@ public class AsyncRequestMtImpl<RESPONSE_TYPE> extends
     private volatile long start;
 
     /**
-     * The expected number of responses.
+     * The most recently sent of the pending requests, which are linked through
+     * their pendingPrevious and pendingNext fields. Requests are sent and their
+     * responses received by the thread of the target reactor, so only that thread
+     * changes the list.
+     */
+    private RequestMtImpl<?> pendingHead;
+
+    /**
+     * The number of pending requests.
      */
-    private int expectedResponses = 16;
+    private int pendingCount;
 
     /**
      * Create an AsyncRequestMtImpl and bind it to its operation and target targetReactor.
@@ -83,120 +86,73 @@ public class AsyncRequestMtImpl<RESPONSE_TYPE> extends
      *
      * @return true if no subordinate requests have not yet responded.
      */
-    @SuppressWarnings("rawtypes")
     @Override
     public final boolean hasNoPendingResponses() {
-        final Object pr = get();
-        return (pr == null)
-                || ((pr instanceof ConcurrentHashMap) && ((ConcurrentHashMap) pr)
-                .isEmpty());
+        return pendingHead == null;
     }
 
     /**
-     * Removes a RequestImpl from the pending requests; returns true if present.
+     * Returns true when called by the thread of the target reactor.
      *
-     * @param request The request to be removed
-     * @return true if present.
+     * @return True when the pending requests can be changed.
      */
-    @SuppressWarnings("rawtypes")
-    private boolean pendingRequestsRemove(final RequestImpl<?> request) {
-        while (true) {
-            final Object pendingRequests = get();
-            if (pendingRequests != null) {
-                if (pendingRequests instanceof RequestImpl) {
-                    if (pendingRequests == request) {
-                        if (compareAndSet(pendingRequests, null)) {
-                            // We just removed it
-                            return true;
-                        }
-                        // Concurrent modification; try again
-                        continue;
-                    }
-                    // Not there
-                } else {
-                    return ((ConcurrentHashMap) pendingRequests)
-                            .remove(request) != null;
-                }
-            }
-            return false;
-        }
+    private boolean isTargetThread() {
+        return targetReactorImpl.getThreadReference().get() == Thread
+                .currentThread();
     }
 
     /**
-     * Adds a RequestImpl to the pending requests.
+     * Removes a RequestImpl from the pending requests; returns true if present.
      *
-     * @param request The request to be added
+     * @param _request The request to be removed
+     * @return true if present.
      */
-    private void pendingRequestsAdd(final RequestImpl<?> request) {
-        while (true) {
-            final Object pendingRequests = get();
-            if (pendingRequests == null) {
-                if (compareAndSet(null, request)) {
-                    // We just added it
-                    return;
-                }
-                // Concurrent modification; try again
-            } else {
-                if (pendingRequests instanceof RequestImpl) {
-                    final ConcurrentHashMap<RequestImpl<?>, Boolean> map = new ConcurrentHashMap<RequestImpl<?>, Boolean>(
-                            expectedResponses, 0.75f, 4);
-                    map.put((RequestImpl<?>) pendingRequests, Boolean.TRUE);
-                    map.put(request, Boolean.TRUE);
-                    if (compareAndSet(pendingRequests, map)) {
-                        // We just added it
-                        return;
-                    }
-                    // Concurrent modification; try again
-                } else {
-                    final ConcurrentHashMap<RequestImpl<?>, Boolean> map = (ConcurrentHashMap<RequestImpl<?>, Boolean>) pendingRequests;
-                    map.put(request, Boolean.TRUE);
-                    // We just added it
-                    return;
-                }
+    private boolean pendingRequestsRemove(final RequestMtImpl<?> _request) {
+        if (_request.oldMessage != this) {
+            return false;
+        }
+        final RequestMtImpl<?> previous = _request.pendingPrevious;
+        final RequestMtImpl<?> next = _request.pendingNext;
+        if (previous == null) {
+            if (pendingHead != _request) {
+                return false;
             }
+            pendingHead = next;
+        } else {
+            previous.pendingNext = next;
+        }
+        if (next != null) {
+            next.pendingPrevious = previous;
         }
+        _request.pendingPrevious = null;
+        _request.pendingNext = null;
+        pendingCount -= 1;
+        return true;
     }
 
     /**
-     * A safe way to copy pendingRequests.
+     * Adds a RequestImpl to the pending requests.
      *
-     * @return A copy of pendingRequests.
+     * @param _request The request to be added
      */
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    private List<RequestImpl<?>> copyPendingRequests() {
-        final Object pendingRequests = get();
-        if (pendingRequests == null) {
-            return Collections.emptyList();
-        }
-        if (pendingRequests instanceof RequestImpl) {
-            // Weird generics issue here.
-            return (List) Collections.singletonList(pendingRequests);
-        }
-        final ConcurrentHashMap<RequestImpl<?>, Boolean> map = (ConcurrentHashMap<RequestImpl<?>, Boolean>) pendingRequests;
-        final ArrayList<RequestImpl<?>> result = new ArrayList<RequestImpl<?>>(
-                (int) (map.size() * 1.1));
-        while (true) {
-            result.clear();
-            try {
-                result.addAll(map.keySet());
-                while (result.remove(null)) {
-                    // NOP
-                }
-                return result;
-            } catch (final Throwable e) {
-                // NOP
-            }
+    private void pendingRequestsAdd(final RequestMtImpl<?> _request) {
+        final RequestMtImpl<?> head = pendingHead;
+        if (head != null) {
+            head.pendingPrevious = _request;
         }
+        _request.pendingNext = head;
+        pendingHead = _request;
+        pendingCount += 1;
     }
 
     /**
-     * Sets the "expected" number of pending responses. This is just a hint.
+     * Sets the "expected" number of pending responses. This is just a hint,
+     * and is not needed as the pending requests are linked through the requests themselves.
      *
      * @param responses the "expected" number of pending responses.
      */
     @Override
     public final void setExpectedPendingResponses(final int responses) {
-        expectedResponses = responses;
     }
 
     /**
@@ -243,7 +199,7 @@ public class AsyncRequestMtImpl<RESPONSE_TYPE> extends
 
     @Override
     public void responseReceived(final RequestImpl<?> request) {
-        pendingRequestsRemove(request);
+        pendingRequestsRemove((RequestMtImpl<?>) request);
     }
 
     @Override
@@ -266,10 +222,13 @@ public class AsyncRequestMtImpl<RESPONSE_TYPE> extends
                     "send called on inactive request");
         }
         final RequestMtImpl<RT> requestImpl = (RequestMtImpl<RT>) _requestImpl;
-        if (_responseProcessor != OneWayResponseProcessor.SINGLETON) {
+        // A one-way request may be recycled as soon as it is passed.
+        final boolean oneWay = (_responseProcessor == null)
+                || (_responseProcessor == OneWayResponseProcessor.SINGLETON);
+        requestImpl.doSend(targetReactorImpl, _responseProcessor);
+        if (!oneWay) {
             pendingRequestsAdd(requestImpl);
         }
-        requestImpl.doSend(targetReactorImpl, _responseProcessor);
     }
 
     @Override
@@ -283,7 +242,6 @@ public class AsyncRequestMtImpl<RESPONSE_TYPE> extends
                     "send called on inactive request");
         }
         final RequestMtImpl<RT> requestImpl = (RequestMtImpl<RT>) _requestImpl;
-        pendingRequestsAdd(requestImpl);
         requestImpl.doSend(targetReactorImpl, new AsyncResponseProcessor<RT>() {
             @Override
             public void processAsyncResponse(final RT _response)
@@ -291,6 +249,21 @@ public class AsyncRequestMtImpl<RESPONSE_TYPE> extends
                 _dis.processAsyncResponse(_fixedResponse);
             }
         });
+        pendingRequestsAdd(requestImpl);
+    }
+
+    @Override
+    public <RT, RT2> void scatterGather(final ScatterGather<RT, RT2> _scatterGather,
+                                        final AsyncResponseProcessor<RT2> _asyncResponseProcessor)
+            throws Exception {
+        if (canceled) {
+            return;
+        }
+        if (targetReactorImpl.getCurrentRequest() != this) {
+            throw new UnsupportedOperationException(
+                    "scatterGather called on inactive request");
+        }
+        _scatterGather.start(this, _asyncResponseProcessor);
     }
 
     /**
@@ -333,8 +306,15 @@ public class AsyncRequestMtImpl<RESPONSE_TYPE> extends
         if (!incomplete) {
             return;
         }
-        for (final RequestImpl<?> request : copyPendingRequests()) {
-            ((RequestMtImpl<?>) request).cancel();
+        // When the reactor is closed by another thread, the list may be
+        // changing, so no more than pendingCount requests are visited.
+        int count = pendingCount;
+        RequestMtImpl<?> request = pendingHead;
+        while ((request != null) && (count > 0)) {
+            final RequestMtImpl<?> next = request.pendingNext;
+            request.cancel();
+            request = next;
+            count -= 1;
         }
         super.close();
         asOperation().onClose(this);
@@ -342,14 +322,30 @@ public class AsyncRequestMtImpl<RESPONSE_TYPE> extends
 
     /**
      * Cancel a subordinate RequestImpl.
+     * When not called by the thread of the target reactor,
+     * the request is canceled later by that thread.
      *
      * @param _requestImpl The subordinate RequestImpl.
-     * @return True if the subordinate RequestImpl was canceled.
+     * @return True if the subordinate RequestImpl was canceled or, when not called by the
+     * thread of the target reactor, if its cancellation was requested.
      */
     @Override
     public boolean cancel(final RequestImpl<?> _requestImpl) {
-        // Note: This will be called outside of our own reactor.
         final RequestMtImpl<?> requestImpl = (RequestMtImpl<?>) _requestImpl;
+        if (!isTargetThread()) {
+            if ((requestImpl.oldMessage != this) || requestImpl.isComplete()) {
+                return false;
+            }
+            // Only the thread of the target reactor changes the pending requests.
+            new BoundResponseProcessor<Void>(targetReactor,
+                    new AsyncResponseProcessor<Void>() {
+                        @Override
+                        public void processAsyncResponse(final Void _response) {
+                            cancel(requestImpl);
+                        }
+                    }).processAsyncResponse(null);
+            return true;
+        }
         if (!pendingRequestsRemove(requestImpl)) {
             return false;
         }
@@ -359,11 +355,25 @@ public class AsyncRequestMtImpl<RESPONSE_TYPE> extends
 
     /**
      * Cancel all subordinate RequestImpl's.
+     * When not called by the thread of the target reactor,
+     * the requests are canceled later by that thread.
      */
     @Override
     public void cancelAll() {
-        for (final RequestImpl<?> request : copyPendingRequests()) {
-            cancel(request);
+        if (!isTargetThread()) {
+            new BoundResponseProcessor<Void>(targetReactor,
+                    new AsyncResponseProcessor<Void>() {
+                        @Override
+                        public void processAsyncResponse(final Void _response) {
+                            cancelAll();
+                        }
+                    }).processAsyncResponse(null);
+            return;
+        }
+        RequestMtImpl<?> request;
+        while ((request = pendingHead) != null) {
+            pendingRequestsRemove(request);
+            request.cancel();
         }
     }
 
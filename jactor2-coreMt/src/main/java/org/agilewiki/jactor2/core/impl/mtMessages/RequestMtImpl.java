@@ -16,20 +16,23 @@ import org.agilewiki.jactor2.core.reactors.ReactorClosedException;
 import org.agilewiki.jactor2.core.reactors.impl.ReactorImpl;
 
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Base class for internal reactor implementations.
  *
  * @param <RESPONSE_TYPE>
  */
-public abstract class RequestMtImpl<RESPONSE_TYPE> extends
-        AtomicReference<Object> implements RequestImpl<RESPONSE_TYPE>,
-        Operation<RESPONSE_TYPE> {
+public abstract class RequestMtImpl<RESPONSE_TYPE> implements
+        RequestImpl<RESPONSE_TYPE>, Operation<RESPONSE_TYPE> {
     private static volatile int nextHash;
 
     private int messageTimeoutMillis = -1;
 
+    /**
+     * The time by which this request must begin processing, per the plant scheduler, or 0.
+     */
+    private long deadlineMillis;
+
     /**
      * Assigned to current time when Facility.DEBUG.
      */
@@ -45,13 +48,13 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
      * The reactor where this Request Object is passed for processing. The thread
      * owned by this targetReactor will process the Request.
      */
-    protected final Reactor targetReactor;
+    protected Reactor targetReactor;
 
     /**
      * The reactor impl where this Request Object is passed for processing. The thread
      * owned by this reactor impl will process the Request.
      */
-    protected final ReactorMtImpl targetReactorImpl;
+    protected ReactorMtImpl targetReactorImpl;
 
     /**
      * The source reactor or Pender that will receive the results.
@@ -100,6 +103,26 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
      */
     protected boolean canceled;
 
+    /**
+     * The key under which this signal is coalesced, or null.
+     */
+    private Object coalescingKey;
+
+    /**
+     * When the target reactor's inbox received this message, per the plant scheduler.
+     */
+    private long receivedMillis;
+
+    /**
+     * The previous request in the pending requests of oldMessage, or null.
+     */
+    RequestMtImpl<?> pendingPrevious;
+
+    /**
+     * The next request in the pending requests of oldMessage, or null.
+     */
+    RequestMtImpl<?> pendingNext;
+
     /**
      * Our hashcode.
      */
@@ -119,6 +142,48 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
         targetReactorImpl = (ReactorMtImpl) targetReactor.asReactorImpl();
     }
 
+    /**
+     * Clears this request so it can be reused, dropping all references
+     * to the objects it was passed with.
+     */
+    protected void clear() {
+        targetReactor = null;
+        targetReactorImpl = null;
+        used = false;
+        requestSource = null;
+        oldMessage = null;
+        sourceExceptionHandler = null;
+        responseProcessor = null;
+        incomplete = true;
+        closed = false;
+        isolationReactor = null;
+        response = null;
+        canceled = false;
+        coalescingKey = null;
+        receivedMillis = 0;
+        messageTimeoutMillis = -1;
+        deadlineMillis = 0;
+        pendingPrevious = null;
+        pendingNext = null;
+    }
+
+    /**
+     * Binds a cleared request to a new target reactor.
+     *
+     * @param _targetReactor The targetReactor where this Request Object is passed for processing.
+     */
+    protected void reuse(final Reactor _targetReactor) {
+        targetReactor = _targetReactor;
+        targetReactorImpl = (ReactorMtImpl) targetReactor.asReactorImpl();
+    }
+
+    /**
+     * Called by the reactor which last handles this request, once it is done with it.
+     * A pooled request is then recycled.
+     */
+    public void recycle() {
+    }
+
     public RequestMtImpl<?> getOldRequest() {
         return oldMessage;
     }
@@ -150,6 +215,15 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
                 || (responseProcessor == SignalResponseProcessor.SINGLETON);
     }
 
+    /**
+     * Returns true when the request was passed using the call or future method.
+     *
+     * @return True when the request was passed using the call or future method.
+     */
+    public boolean isCall() {
+        return responseProcessor == CallResponseProcessor.SINGLETON;
+    }
+
     /**
      * Returns true when the request was passed using the signal method.
      *
@@ -211,6 +285,49 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
         targetReactorImpl.unbufferedAddMessage(this, false);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean signal(final Object _key) {
+        if (_key == null) {
+            throw new NullPointerException("key");
+        }
+        use();
+        responseProcessor = (AsyncResponseProcessor<RESPONSE_TYPE>) SignalResponseProcessor.SINGLETON;
+        coalescingKey = _key;
+        if (!targetReactorImpl.coalesceSignal(this)) {
+            return false;
+        }
+        targetReactorImpl.unbufferedAddMessage(this, false);
+        return true;
+    }
+
+    /**
+     * Returns when the target reactor's inbox received this message.
+     *
+     * @return The time in milliseconds, per the plant scheduler.
+     */
+    public long getReceivedMillis() {
+        return receivedMillis;
+    }
+
+    /**
+     * Notes when the target reactor's inbox received this message.
+     *
+     * @param _receivedMillis The time in milliseconds, per the plant scheduler.
+     */
+    public void setReceivedMillis(final long _receivedMillis) {
+        receivedMillis = _receivedMillis;
+    }
+
+    /**
+     * Returns the key under which this signal is coalesced.
+     *
+     * @return The key, or null when this is not a coalescing signal.
+     */
+    public Object getCoalescingKey() {
+        return coalescingKey;
+    }
+
     /**
      * Passes this RequestImpl together with the AsyncResponseProcessor to the target Reactor.
      * Responses are passed back via the source reactor and processed by the
@@ -245,6 +362,9 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
                     "A valid source sourceReactor can not be idle");
         }
         oldMessage = source.getCurrentRequest();
+        if (oldMessage != null) {
+            setDeadlineMillis(oldMessage.deadlineMillis);
+        }
         if (!source.isCommonReactor())
             isolationReactor = (IsolationReactor) source.asReactor();
         else if ((oldMessage != null)) {
@@ -280,10 +400,32 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
     public RESPONSE_TYPE call() throws Exception {
         use();
         PlantMtImpl.getSingleton().validateCall();
-        requestSource = new Pender();
+        final Pender pender = new Pender();
+        requestSource = pender;
+        responseProcessor = (AsyncResponseProcessor<RESPONSE_TYPE>) CallResponseProcessor.SINGLETON;
+        // Once passed, this request may be processed and recycled at any time.
+        targetReactorImpl.unbufferedAddMessage(this, false);
+        return (RESPONSE_TYPE) pender.pend();
+    }
+
+    /**
+     * Passes this Request to the target Reactor without blocking the current thread.
+     * Like call, the message is sent directly without buffering, but this may be
+     * used by any thread, as it does not wait for the response.
+     *
+     * @return The future response.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public ResponseFuture<RESPONSE_TYPE> future() {
+        use();
+        final ResponseFutureMtImpl<RESPONSE_TYPE> future = new ResponseFutureMtImpl<RESPONSE_TYPE>(
+                this, PlantMtImpl.getSingleton().getCompletionExecutor());
+        requestSource = future;
         responseProcessor = (AsyncResponseProcessor<RESPONSE_TYPE>) CallResponseProcessor.SINGLETON;
+        // Once passed, this request may be processed and recycled at any time.
         targetReactorImpl.unbufferedAddMessage(this, false);
-        return (RESPONSE_TYPE) ((Pender) requestSource).pend();
+        return future;
     }
 
     /**
@@ -366,6 +508,7 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
         if (!incomplete) {
             return;
         }
+        targetReactorImpl.releaseCoalescedSignal(this);
         incomplete = false;
         closed = true;
         response = new ReactorClosedException();
@@ -374,6 +517,24 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
         }
     }
 
+    /**
+     * Completes this request with an exception without it being processed,
+     * as when the inbox of the target reactor is full.
+     *
+     * @param _e The exception passed back to the source.
+     */
+    public void reject(final Exception _e) {
+        if (!incomplete) {
+            return;
+        }
+        targetReactorImpl.releaseCoalescedSignal(this);
+        incomplete = false;
+        response = _e;
+        if (requestSource != null) {
+            requestSource.incomingResponse(this, null);
+        }
+    }
+
     /**
      * Cancel this request.
      */
@@ -389,6 +550,9 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
      */
     public void eval() {
         if (incomplete) {
+            // An equivalent signal passed from now on is not dropped,
+            // as it may follow changes made while this one is processed.
+            targetReactorImpl.releaseCoalescedSignal(this);
             targetReactorImpl.setExceptionHandler(null);
             targetReactorImpl.setCurrentRequest(this);
             targetReactorImpl.requestBegin(this);
@@ -583,7 +747,7 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
 
     /**
      * A subclass of AsyncResponseProcessor that is used as a place holder when the RequestMtImpl.call
-     * method is used.
+     * or RequestMtImpl.future method is used.
      */
     final private static class CallResponseProcessor implements
             AsyncResponseProcessor<Object> {
@@ -620,4 +784,27 @@ public abstract class RequestMtImpl<RESPONSE_TYPE> extends
     public int getMessageTimeoutMillis() {
         return messageTimeoutMillis;
     }
+
+    @Override
+    public void setDeadlineMillis(final long _deadlineMillis) {
+        if ((_deadlineMillis > 0)
+                && ((deadlineMillis == 0) || (_deadlineMillis < deadlineMillis))) {
+            deadlineMillis = _deadlineMillis;
+        }
+    }
+
+    @Override
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * Returns true when this request has a deadline which has passed.
+     *
+     * @param _nowMillis The current time in milliseconds, per the plant scheduler.
+     * @return True when the deadline has passed.
+     */
+    public boolean isPastDeadline(final double _nowMillis) {
+        return (deadlineMillis != 0) && (deadlineMillis < _nowMillis);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+package org.agilewiki.jactor2.core.impl.mtMessages;
+
+import org.agilewiki.jactor2.core.messages.ResponseFuture;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.impl.ReactorImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Internal implementation of ResponseFuture, used by RequestMtImpl.future
+ * in place of the Pender used by call.
+ *
+ * @param <RESPONSE_TYPE> The type of response.
+ */
+final class ResponseFutureMtImpl<RESPONSE_TYPE> implements
+        ResponseFuture<RESPONSE_TYPE>, RequestSource {
+
+    /**
+     * Runs the listeners, or null when they are run by the thread completing this future.
+     */
+    private final Executor completionExecutor;
+
+    /**
+     * Used to log the exceptions thrown by listeners.
+     */
+    private final ReactorImpl targetReactorImpl;
+
+    /**
+     * Released once this future is complete.
+     */
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * The request, until this future is complete. Once its response has been received,
+     * the request may be recycled, so it is only canceled while this is locked.
+     */
+    private RequestMtImpl<RESPONSE_TYPE> request;
+
+    /**
+     * True once there is a result.
+     */
+    private boolean complete;
+
+    /**
+     * The response, or the Throwable raised in its place.
+     */
+    private Object result;
+
+    /**
+     * The listeners added before this future was complete, or null.
+     */
+    private List<CompletionListener<? super RESPONSE_TYPE>> listeners;
+
+    /**
+     * Create a ResponseFutureMtImpl.
+     *
+     * @param _request            The request passed with future.
+     * @param _completionExecutor Runs the listeners, or null.
+     */
+    ResponseFutureMtImpl(final RequestMtImpl<RESPONSE_TYPE> _request,
+                         final Executor _completionExecutor) {
+        request = _request;
+        targetReactorImpl = _request.getTargetReactor().asReactorImpl();
+        completionExecutor = _completionExecutor;
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public void incomingResponse(final RequestImpl _message,
+                                 final ReactorImpl _responseSource) {
+        final List<CompletionListener<? super RESPONSE_TYPE>> completed;
+        synchronized (this) {
+            completed = setResult(((RequestMtImpl) _message).response);
+        }
+        notifyListeners(completed);
+    }
+
+    @Override
+    public boolean cancel(final boolean _mayInterruptIfRunning) {
+        final List<CompletionListener<? super RESPONSE_TYPE>> completed;
+        synchronized (this) {
+            if (complete) {
+                return false;
+            }
+            request.cancel();
+            completed = setResult(new CancellationException());
+        }
+        notifyListeners(completed);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return result instanceof CancellationException;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    @Override
+    public RESPONSE_TYPE get() throws InterruptedException, ExecutionException {
+        done.await();
+        return report();
+    }
+
+    @Override
+    public RESPONSE_TYPE get(final long _timeout, final TimeUnit _unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!done.await(_timeout, _unit)) {
+            throw new TimeoutException();
+        }
+        return report();
+    }
+
+    @Override
+    public void whenComplete(final CompletionListener<? super RESPONSE_TYPE> _listener) {
+        if (_listener == null) {
+            throw new NullPointerException("listener");
+        }
+        synchronized (this) {
+            if (!complete) {
+                if (listeners == null) {
+                    listeners = new ArrayList<CompletionListener<? super RESPONSE_TYPE>>(2);
+                }
+                listeners.add(_listener);
+                return;
+            }
+        }
+        notifyListener(_listener);
+    }
+
+    /**
+     * Completes this future, unless it already is. Must be called while this is locked.
+     *
+     * @param _result The response, or the Throwable raised in its place.
+     * @return The listeners to be notified, or null.
+     */
+    private List<CompletionListener<? super RESPONSE_TYPE>> setResult(
+            final Object _result) {
+        if (complete) {
+            return null;
+        }
+        complete = true;
+        result = _result;
+        request = null;
+        final List<CompletionListener<? super RESPONSE_TYPE>> completed = listeners;
+        listeners = null;
+        done.countDown();
+        return completed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RESPONSE_TYPE report() throws ExecutionException {
+        final Object r;
+        synchronized (this) {
+            r = result;
+        }
+        if (r instanceof CancellationException) {
+            throw new CancellationException();
+        }
+        if (r instanceof Throwable) {
+            throw new ExecutionException((Throwable) r);
+        }
+        return (RESPONSE_TYPE) r;
+    }
+
+    private void notifyListeners(
+            final List<CompletionListener<? super RESPONSE_TYPE>> _listeners) {
+        if (_listeners == null) {
+            return;
+        }
+        for (int i = 0; i < _listeners.size(); i++) {
+            notifyListener(_listeners.get(i));
+        }
+    }
+
+    private void notifyListener(final CompletionListener<? super RESPONSE_TYPE> _listener) {
+        if (completionExecutor == null) {
+            runListener(_listener);
+            return;
+        }
+        completionExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                runListener(_listener);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runListener(final CompletionListener<? super RESPONSE_TYPE> _listener) {
+        final Object r;
+        synchronized (this) {
+            r = result;
+        }
+        try {
+            if (r instanceof Throwable) {
+                _listener.onComplete(null, (Throwable) r);
+            } else {
+                _listener.onComplete((RESPONSE_TYPE) r, null);
+            }
+        } catch (final Throwable t) {
+            targetReactorImpl.warn("Uncaught throwable in a ResponseFuture listener", t);
+        }
+    }
+}
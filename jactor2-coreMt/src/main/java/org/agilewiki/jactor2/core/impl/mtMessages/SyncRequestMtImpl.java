@@ -14,7 +14,13 @@ import org.agilewiki.jactor2.core.reactors.Reactor;
 public class SyncRequestMtImpl<RESPONSE_TYPE> extends
         RequestMtImpl<RESPONSE_TYPE> implements SyncNativeRequest<RESPONSE_TYPE> {
 
-    private final SyncOperation<RESPONSE_TYPE> syncOperation;
+    private SyncOperation<RESPONSE_TYPE> syncOperation;
+
+    /**
+     * The maximum number of free requests kept by the pool this request is
+     * returned to, or 0 when this request is not pooled.
+     */
+    private int poolSize;
 
     /**
      * Create a SyncRequestMtImpl and bind it to its operation and target reactor.
@@ -33,6 +39,36 @@ public class SyncRequestMtImpl<RESPONSE_TYPE> extends
         syncOperation = this;
     }
 
+    /**
+     * Binds a pooled request to its operation and target reactor.
+     *
+     * @param _syncOperation The request being implemented.
+     * @param _targetReactor The target reactor.
+     * @param _poolSize      The maximum number of free requests kept per thread.
+     */
+    void reuse(final SyncOperation<RESPONSE_TYPE> _syncOperation,
+               final Reactor _targetReactor, final int _poolSize) {
+        reuse(_targetReactor);
+        syncOperation = _syncOperation;
+        poolSize = _poolSize;
+    }
+
+    @Override
+    protected void clear() {
+        super.clear();
+        syncOperation = null;
+    }
+
+    @Override
+    public void recycle() {
+        if (poolSize > 0) {
+            final int size = poolSize;
+            poolSize = 0;
+            clear();
+            SyncRequestPool.release(this, size);
+        }
+    }
+
     @Override
     public String getOpName() {
         return asOperation().getOpName();
@@ -0,0 +1,117 @@
+package org.agilewiki.jactor2.core.impl.mtMessages;
+
+import org.agilewiki.jactor2.core.messages.SyncOperation;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+
+/**
+ * The per-thread free lists of SyncRequestMtImpl objects, used when
+ * PlantConfiguration.getRequestPoolSize is not 0.
+ * <p>
+ * A pooled request is recycled into the free list of the thread of the reactor
+ * which last handles it: the source reactor once it has processed the response,
+ * or the target reactor once it has processed a signal, a one-way request or
+ * a request passed with call. A request which is canceled, or not processed
+ * because its reactor closed, is simply left to the garbage collector.
+ * </p>
+ * <p>
+ * So with pooling, the RequestImpl returned by AsyncRequestImpl.send
+ * must not be used once its response has been processed,
+ * as it may by then be carrying another request.
+ * </p>
+ */
+public final class SyncRequestPool {
+
+    private static final ThreadLocal<SyncRequestPool> POOLS = new ThreadLocal<SyncRequestPool>() {
+        @Override
+        protected SyncRequestPool initialValue() {
+            return new SyncRequestPool();
+        }
+    };
+
+    /**
+     * The free requests.
+     */
+    private SyncRequestMtImpl<?>[] free = new SyncRequestMtImpl<?>[16];
+
+    /**
+     * The number of free requests.
+     */
+    private int size;
+
+    /**
+     * The number of requests created by this thread because the pool was empty.
+     */
+    private long createdCount;
+
+    private SyncRequestPool() {
+    }
+
+    /**
+     * Returns a request bound to an operation and target reactor,
+     * reusing a free request of the current thread when there is one.
+     *
+     * @param _syncOperation The request being implemented.
+     * @param _targetReactor The target reactor.
+     * @param _poolSize      The maximum number of free requests kept per thread.
+     * @return The request.
+     */
+    @SuppressWarnings("unchecked")
+    public static <RESPONSE_TYPE> SyncRequestMtImpl<RESPONSE_TYPE> acquire(
+            final SyncOperation<RESPONSE_TYPE> _syncOperation,
+            final Reactor _targetReactor, final int _poolSize) {
+        final SyncRequestPool pool = POOLS.get();
+        final SyncRequestMtImpl<RESPONSE_TYPE> request;
+        if (pool.size > 0) {
+            pool.size -= 1;
+            request = (SyncRequestMtImpl<RESPONSE_TYPE>) pool.free[pool.size];
+            pool.free[pool.size] = null;
+            request.reuse(_syncOperation, _targetReactor, _poolSize);
+        } else {
+            pool.createdCount += 1;
+            request = new SyncRequestMtImpl<RESPONSE_TYPE>(_syncOperation,
+                    _targetReactor);
+            request.reuse(_syncOperation, _targetReactor, _poolSize);
+        }
+        return request;
+    }
+
+    /**
+     * Adds a cleared request to the free list of the current thread, unless it is full.
+     *
+     * @param _request The request.
+     * @param _poolSize The maximum number of free requests kept per thread.
+     */
+    static void release(final SyncRequestMtImpl<?> _request, final int _poolSize) {
+        final SyncRequestPool pool = POOLS.get();
+        if (pool.size >= _poolSize) {
+            return;
+        }
+        if (pool.size == pool.free.length) {
+            final SyncRequestMtImpl<?>[] free = new SyncRequestMtImpl<?>[Math.min(
+                    pool.size * 2, _poolSize)];
+            System.arraycopy(pool.free, 0, free, 0, pool.size);
+            pool.free = free;
+        }
+        pool.free[pool.size] = _request;
+        pool.size += 1;
+    }
+
+    /**
+     * Returns the number of free requests kept by the current thread.
+     *
+     * @return The number of free requests.
+     */
+    public static int getFreeCount() {
+        return POOLS.get().size;
+    }
+
+    /**
+     * Returns the number of pooled requests created by the current thread
+     * because it had no free request.
+     *
+     * @return The number of requests created.
+     */
+    public static long getCreatedCount() {
+        return POOLS.get().createdCount;
+    }
+}
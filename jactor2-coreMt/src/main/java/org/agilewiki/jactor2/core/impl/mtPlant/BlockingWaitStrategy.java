@@ -0,0 +1,15 @@
+package org.agilewiki.jactor2.core.impl.mtPlant;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Parks the idle thread right away. This uses the least CPU,
+ * but every wakeup pays for unparking the thread.
+ */
+public class BlockingWaitStrategy extends WaitStrategy {
+
+    @Override
+    public void acquire(final Semaphore _permits) throws InterruptedException {
+        parkAcquire(_permits);
+    }
+}
@@ -0,0 +1,17 @@
+package org.agilewiki.jactor2.core.impl.mtPlant;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Never parks the idle thread, giving the lowest wakeup latency.
+ * Each idle pool thread keeps a CPU busy, so the thread pool should
+ * be smaller than the number of available cores.
+ */
+public class BusySpinWaitStrategy extends WaitStrategy {
+
+    @Override
+    public void acquire(final Semaphore _permits) throws InterruptedException {
+        while (!spinAcquire(_permits, Integer.MAX_VALUE)) {
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.agilewiki.jactor2.core.impl.mtPlant;
+
+import org.agilewiki.jactor2.core.impl.mtReactors.PoolThreadReactorMtImpl;
+
+/**
+ * Decides when a pool thread, having flushed the outbox of a reactor,
+ * follows the last batch of messages to an idle target reactor instead of
+ * placing the target in the run queue.
+ * The default MigrationPolicy is created by PlantConfiguration.
+ * <p>
+ * Migrating is good for pipelines, as the messages are processed while still in the cache.
+ * But when the target is a hub which fans out to many reactors, the migrating thread
+ * ends up running the hub, while the messages sent by the hub queue up for other threads.
+ * So by default a thread only migrates to a target whose recent fan-out is small,
+ * unless the batch of messages is large enough for cache locality to dominate.
+ * </p>
+ */
+public class MigrationPolicy {
+
+    /**
+     * Returns true when the current thread is to migrate to the target reactor.
+     * Only called when the target is idle and runs on the same thread pool,
+     * and the current thread has not exceeded its maximum number of thread migrations.
+     *
+     * @param _source               The reactor whose outbox is being flushed.
+     * @param _target               The reactor the messages are sent to.
+     * @param _bufferedMessageCount The number of messages being sent to the target.
+     * @return True when the current thread should migrate.
+     */
+    public boolean mayMigrate(final PoolThreadReactorMtImpl _source,
+                              final PoolThreadReactorMtImpl _target,
+                              final int _bufferedMessageCount) {
+        if (_bufferedMessageCount >= getMigrationBatchThreshold()) {
+            return true;
+        }
+        return _target.getRecentFanOut() <= getMaxTargetFanOut();
+    }
+
+    /**
+     * Returns 2.
+     *
+     * @return The largest recent fan-out of a target reactor to which a thread migrates.
+     */
+    public double getMaxTargetFanOut() {
+        return 2;
+    }
+
+    /**
+     * Returns 64.
+     *
+     * @return The number of messages sent to a target which always warrants a migration.
+     */
+    public int getMigrationBatchThreshold() {
+        return 64;
+    }
+}
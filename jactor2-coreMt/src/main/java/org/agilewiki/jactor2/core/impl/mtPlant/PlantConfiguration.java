@@ -1,7 +1,9 @@
 package org.agilewiki.jactor2.core.impl.mtPlant;
 
+import org.agilewiki.jactor2.core.impl.mtReactors.InboxOverflowPolicy;
 import org.agilewiki.jactor2.core.plant.impl.PlantScheduler;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
 
 /**
@@ -18,6 +20,8 @@ public class PlantConfiguration {
 
     private PlantScheduler plantScheduler;
 
+    private MigrationPolicy migrationPolicy;
+
     /**
      * Create a plant configuration with a reactor thread pool size of 20.
      */
@@ -55,6 +59,27 @@ public class PlantConfiguration {
         return recovery;
     }
 
+    /**
+     * Create the default MigrationPolicy instance.
+     *
+     * @return The default MigrationPolicy instance.
+     */
+    protected MigrationPolicy createMigrationPolicy() {
+        return new MigrationPolicy();
+    }
+
+    /**
+     * Returns the default MigrationPolicy instance.
+     *
+     * @return The default MigrationPolicy instance.
+     */
+    public MigrationPolicy getMigrationPolicy() {
+        if (migrationPolicy == null) {
+            migrationPolicy = createMigrationPolicy();
+        }
+        return migrationPolicy;
+    }
+
     /**
      * Create the plant scheduler.
      * @return The plant scheduler.
@@ -87,15 +112,237 @@ public class PlantConfiguration {
         return 1000;
     }
 
+    /**
+     * Returns false.
+     * Override to return true to give each pool thread its own queue of
+     * reactors, with idle threads stealing work from the other threads.
+     *
+     * @return True when the reactor thread pool uses work stealing.
+     */
+    public boolean isWorkStealing() {
+        return false;
+    }
+
+    /**
+     * Create the wait strategy used by the idle threads of the reactor thread pool.
+     * Override to return a SpinYieldParkWaitStrategy or a BusySpinWaitStrategy
+     * when wakeup latency matters more than CPU usage.
+     *
+     * @return A BlockingWaitStrategy.
+     */
+    protected WaitStrategy createWaitStrategy() {
+        return new BlockingWaitStrategy();
+    }
+
+    /**
+     * Create the wait strategy used by the idle threads of the blocking reactor thread pool.
+     * As that pool is large, its threads are parked.
+     *
+     * @return A BlockingWaitStrategy.
+     */
+    protected WaitStrategy createBlockingWaitStrategy() {
+        return new BlockingWaitStrategy();
+    }
+
+    /**
+     * Create the wait strategy used by the idle threads of a named thread pool.
+     *
+     * @param _name The name of the thread pool.
+     * @return The same kind of wait strategy as is used by the reactor thread pool.
+     */
+    protected WaitStrategy createWaitStrategy(final String _name) {
+        return createWaitStrategy();
+    }
+
+    /**
+     * Create the run queue used by a reactor pool thread manager.
+     *
+     * @param _threadCount  The number of threads in the thread pool.
+     * @param _waitStrategy How the idle threads of the pool wait for a reactor to run.
+     * @return The run queue.
+     */
+    protected RunQueue createRunQueue(final int _threadCount,
+                                      final WaitStrategy _waitStrategy) {
+        if (isWorkStealing()) {
+            return new WorkStealingRunQueue(_threadCount, _waitStrategy,
+                    getPriorityAgingInterval(), isReactorAffinity());
+        }
+        return new SharedRunQueue(_waitStrategy, getPriorityAgingInterval());
+    }
+
+    /**
+     * Returns false.
+     * Override to return true to have a reactor run by the thread which last ran it,
+     * when that thread is idle, so that the state of the reactor is still in its cache.
+     * Only used with work stealing, as a shared run queue can not pick the thread.
+     *
+     * @return True when a reactor is preferably run by the thread which last ran it.
+     */
+    public boolean isReactorAffinity() {
+        return false;
+    }
+
+    /**
+     * Returns 16.
+     * Runnable reactors are picked by priority, but to keep low priority reactors
+     * from starving, every so often the lowest priority is served first.
+     *
+     * @return How often a pool thread serves the lowest priority first.
+     */
+    public int getPriorityAgingInterval() {
+        return 16;
+    }
+
     /**
      * Create the reactor pool thread manager.
      *
      * @return The reactor pool thread manager.
      */
     public ReactorPoolThreadManager createReactorPoolThreadManager() {
+        if (isElasticReactorThreadPool()) {
+            final int maxThreadCount = getMaxReactorThreadPoolSize();
+            return new ReactorPoolThreadManager(reactorThreadPoolSize,
+                    maxThreadCount, getElasticKeepAliveMillis(),
+                    getMaxThreadMigrations(),
+                    createReactorPoolThreadFactory(),
+                    createRunQueue(maxThreadCount, createWaitStrategy()));
+        }
         return new ReactorPoolThreadManager(reactorThreadPoolSize,
                 getMaxThreadMigrations(),
-                createReactorPoolThreadFactory());
+                createReactorPoolThreadFactory(),
+                createRunQueue(reactorThreadPoolSize, createWaitStrategy()));
+    }
+
+    /**
+     * Returns false.
+     * Override to return true to have the reactor thread pool, and the blocking
+     * reactor thread pool when there is one, add threads while their threads are
+     * blocked and there are reactors waiting to run.
+     * The added threads are retired once they are no longer needed.
+     *
+     * @return True when the reactor thread pools are elastic.
+     */
+    public boolean isElasticReactorThreadPool() {
+        return false;
+    }
+
+    /**
+     * Returns 4 times the reactor thread pool size.
+     *
+     * @return The maximum size of an elastic reactor thread pool.
+     */
+    public int getMaxReactorThreadPoolSize() {
+        return reactorThreadPoolSize * 4;
+    }
+
+    /**
+     * Returns twice the blocking reactor thread pool size.
+     *
+     * @return The maximum size of an elastic blocking reactor thread pool.
+     */
+    public int getMaxBlockingReactorThreadPoolSize() {
+        return getBlockingReactorThreadPoolSize() * 2;
+    }
+
+    /**
+     * Returns 10.
+     *
+     * @return How often the elastic thread pools check for blocked threads, in milliseconds.
+     */
+    public int getElasticPollMillis() {
+        return 10;
+    }
+
+    /**
+     * Returns 1000.
+     *
+     * @return How long an elastic thread pool must have surplus threads
+     * before one is retired, in milliseconds.
+     */
+    public long getElasticKeepAliveMillis() {
+        return 1000;
+    }
+
+    /**
+     * Returns false.
+     * Override to return true to run blocking reactors on a thread pool of their own,
+     * so that slow blocking calls do not starve the other pool thread reactors.
+     *
+     * @return True when blocking reactors have their own thread pool.
+     */
+    public boolean isBlockingReactorThreadPool() {
+        return false;
+    }
+
+    /**
+     * Returns 100.
+     *
+     * @return The size of the thread pool used by blocking reactors.
+     */
+    public int getBlockingReactorThreadPoolSize() {
+        return 100;
+    }
+
+    /**
+     * Create the reactor pool thread manager used by blocking reactors.
+     *
+     * @return The reactor pool thread manager, or null when blocking reactors
+     * share the reactor thread pool.
+     */
+    public ReactorPoolThreadManager createBlockingReactorPoolThreadManager() {
+        if (!isBlockingReactorThreadPool()) {
+            return null;
+        }
+        final int threadCount = getBlockingReactorThreadPoolSize();
+        if (isElasticReactorThreadPool()) {
+            final int maxThreadCount = getMaxBlockingReactorThreadPoolSize();
+            return new ReactorPoolThreadManager(threadCount,
+                    maxThreadCount, getElasticKeepAliveMillis(),
+                    getMaxThreadMigrations(),
+                    createReactorPoolThreadFactory(),
+                    createRunQueue(maxThreadCount, createBlockingWaitStrategy()));
+        }
+        return new ReactorPoolThreadManager(threadCount,
+                getMaxThreadMigrations(),
+                createReactorPoolThreadFactory(),
+                createRunQueue(threadCount, createBlockingWaitStrategy()));
+    }
+
+    /**
+     * Returns the names of the additional thread pools, which are used to keep
+     * one class of reactors from delaying the others.
+     * A reactor runs on the thread pool named when it, or its parent, was created.
+     * Blocking reactors still run on the blocking reactor thread pool, when there is one.
+     *
+     * @return An empty array.
+     */
+    public String[] getReactorThreadPoolNames() {
+        return new String[0];
+    }
+
+    /**
+     * Returns the size of a named thread pool.
+     *
+     * @param _name The name of the thread pool.
+     * @return The size of the reactor thread pool.
+     */
+    public int getReactorThreadPoolSize(final String _name) {
+        return reactorThreadPoolSize;
+    }
+
+    /**
+     * Create the reactor pool thread manager for a named thread pool.
+     *
+     * @param _name The name of the thread pool.
+     * @return The reactor pool thread manager.
+     */
+    public ReactorPoolThreadManager createReactorPoolThreadManager(
+            final String _name) {
+        final int threadCount = getReactorThreadPoolSize(_name);
+        return new ReactorPoolThreadManager(threadCount,
+                getMaxThreadMigrations(),
+                createReactorPoolThreadFactory(),
+                createRunQueue(threadCount, createWaitStrategy(_name)));
     }
 
     /**
@@ -115,4 +362,122 @@ public class PlantConfiguration {
     public int getInitialBufferSize() {
         return 16;
     }
+
+    /**
+     * Returns 0, meaning that an inbox uses a ConcurrentLinkedQueue
+     * for the messages passed from other threads.
+     * Override to use a pre-sized ring buffer instead, which does not allocate
+     * a node per message.
+     *
+     * @return The default number of slots in the ring buffer of an inbox,
+     * or 0 for a linked queue.
+     */
+    public int getInboxRingBufferSize() {
+        return 0;
+    }
+
+    /**
+     * Returns null, meaning that non-blocking, blocking and thread-bound reactors
+     * process their messages in the order received.
+     * Override to have them process responses, signals and new requests in rounds,
+     * taking up to the given number of each per round.
+     *
+     * @return The default weights of the response, signal and request lanes of an inbox,
+     * or null.
+     */
+    public int[] getInboxLaneWeights() {
+        return null;
+    }
+
+    /**
+     * Returns 0, meaning that an inbox holds any number of messages.
+     * Override to limit the number of messages passed from other threads
+     * which an inbox holds before the overflow policy applies.
+     *
+     * @return The default inbox capacity, or 0 for unbounded inboxes.
+     */
+    public int getInboxCapacity() {
+        return 0;
+    }
+
+    /**
+     * Returns InboxOverflowPolicy.REJECT.
+     *
+     * @return What is done by default with a request passed to a reactor whose inbox is full.
+     */
+    public InboxOverflowPolicy getInboxOverflowPolicy() {
+        return InboxOverflowPolicy.REJECT;
+    }
+
+    /**
+     * Returns 0, meaning that a pool thread reactor processes messages
+     * until its inbox is empty.
+     * Override to limit the number of messages a reactor processes
+     * before giving up its thread to the other reactors in the run queue.
+     *
+     * @return The default maximum number of messages processed per activation,
+     * or 0 for no limit.
+     */
+    public int getMessageQuantum() {
+        return 0;
+    }
+
+    /**
+     * Returns 0, meaning that the time a pool thread reactor spends
+     * processing messages is not limited.
+     * Override to limit how long a reactor runs
+     * before giving up its thread to the other reactors in the run queue.
+     *
+     * @return The default time budget per activation in microseconds,
+     * or 0 for no limit.
+     */
+    public long getMessageQuantumMicros() {
+        return 0;
+    }
+
+    /**
+     * Returns 0, meaning that the messages buffered for a target are sent
+     * only when the reactor is idle.
+     * Override to send them as soon as this many are buffered,
+     * so that downstream reactors start work during a burst.
+     *
+     * @return The default outbox flush threshold, or 0 for no limit.
+     */
+    public int getOutboxFlushThreshold() {
+        return 0;
+    }
+
+    /**
+     * Returns 0, meaning that buffered messages are held until the reactor is idle.
+     * Override to send them once the oldest has been held this long.
+     *
+     * @return The default outbox hold time in microseconds, or 0 for no limit.
+     */
+    public long getOutboxFlushMicros() {
+        return 0;
+    }
+
+    /**
+     * Returns 0, meaning that each request made with an SOp is a new object.
+     * Override to have each thread keep up to this many processed requests
+     * for reuse, so that requests are recycled rather than left to the garbage collector.
+     * (See SyncRequestPool for when a request is recycled.)
+     *
+     * @return The maximum number of free requests kept per thread, or 0 for no pooling.
+     */
+    public int getRequestPoolSize() {
+        return 0;
+    }
+
+    /**
+     * Returns null, meaning that the listeners of a ResponseFuture are run by the
+     * thread of the target reactor, so they must be quick and must not block.
+     * Override to have them run by an executor instead.
+     * The executor is not shut down when the plant is closed.
+     *
+     * @return The completion executor, or null.
+     */
+    public Executor getCompletionExecutor() {
+        return null;
+    }
 }
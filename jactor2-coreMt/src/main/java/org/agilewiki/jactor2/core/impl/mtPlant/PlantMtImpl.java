@@ -4,6 +4,7 @@ import org.agilewiki.jactor2.core.impl.mtMessages.AsyncRequestMtImpl;
 import org.agilewiki.jactor2.core.impl.mtMessages.AsyncRequestMtImplWithData;
 import org.agilewiki.jactor2.core.impl.mtMessages.SyncRequestMtImpl;
 import org.agilewiki.jactor2.core.impl.mtMessages.SyncRequestMtImplWithData;
+import org.agilewiki.jactor2.core.impl.mtMessages.SyncRequestPool;
 import org.agilewiki.jactor2.core.impl.mtReactors.*;
 import org.agilewiki.jactor2.core.messages.AsyncOperation;
 import org.agilewiki.jactor2.core.messages.alt.AsyncRequestImplWithData;
@@ -19,8 +20,13 @@ import org.agilewiki.jactor2.core.reactors.closeable.Closeable;
 import org.agilewiki.jactor2.core.reactors.closeable.impl.CloseableImpl;
 import org.agilewiki.jactor2.core.reactors.closeable.impl.CloseableImplImpl;
 import org.agilewiki.jactor2.core.reactors.facilities.Facility;
+import org.agilewiki.jactor2.core.reactors.impl.PoolThreadReactorImpl;
 import org.agilewiki.jactor2.core.reactors.impl.ReactorImpl;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 public class PlantMtImpl extends PlantImpl {
 
     /**
@@ -40,10 +46,32 @@ public class PlantMtImpl extends PlantImpl {
 
     private PlantConfiguration plantConfiguration;
 
+    /**
+     * The maximum number of free requests kept per thread, or 0 for no pooling.
+     */
+    private final int requestPoolSize;
+
+    /**
+     * Runs the listeners of a ResponseFuture, or null.
+     */
+    private final Executor completionExecutor;
+
     private final Facility internalFacility;
 
     private final ReactorPoolThreadManager reactorPoolThreadManager;
 
+    /**
+     * The thread pool used by blocking reactors, or null when
+     * they share the reactor thread pool.
+     */
+    private final ReactorPoolThreadManager blockingReactorPoolThreadManager;
+
+    /**
+     * The named thread pools.
+     */
+    private final Map<String, ReactorPoolThreadManager> reactorPoolThreadManagers =
+            new HashMap<String, ReactorPoolThreadManager>();
+
     /**
      * Create the singleton with a default configuration.
      */
@@ -96,13 +124,25 @@ public class PlantMtImpl extends PlantImpl {
         } else {
             plantConfiguration = _plantConfiguration;
         }
+        requestPoolSize = plantConfiguration.getRequestPoolSize();
+        completionExecutor = plantConfiguration.getCompletionExecutor();
         reactorPoolThreadManager = plantConfiguration
                 .createReactorPoolThreadManager();
+        blockingReactorPoolThreadManager = plantConfiguration
+                .createBlockingReactorPoolThreadManager();
+        for (final String name : plantConfiguration.getReactorThreadPoolNames()) {
+            reactorPoolThreadManagers.put(name,
+                    plantConfiguration.createReactorPoolThreadManager(name));
+        }
         final int reactorPollMillis = _plantConfiguration.getRecovery()
                 .getReactorPollMillis();
         internalFacility = createInternalFacility();
         _plantConfiguration.getPlantScheduler().scheduleAtFixedRate(
                 plantPoll(), reactorPollMillis);
+        if (plantConfiguration.isElasticReactorThreadPool()) {
+            plantConfiguration.getPlantScheduler().scheduleAtFixedRate(
+                    elasticPoll(), plantConfiguration.getElasticPollMillis());
+        }
     }
 
     public void removeThreadBoundReactor() {
@@ -138,6 +178,25 @@ public class PlantMtImpl extends PlantImpl {
                 _initialLocalQueueSize);
     }
 
+    @Override
+    public ReactorImpl createNonBlockingReactorImpl(
+            final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName) {
+        return createNonBlockingReactorImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize, _reactorThreadPoolName,
+                PoolThreadReactorImpl.INHERITED_PRIORITY);
+    }
+
+    @Override
+    public ReactorImpl createNonBlockingReactorImpl(
+            final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName, final int _priority) {
+        return new NonBlockingReactorMtImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize, _reactorThreadPoolName, _priority);
+    }
+
     @Override
     public ReactorImpl createBlockingReactorImpl(
             final IsolationReactor _parentReactor,
@@ -154,6 +213,25 @@ public class PlantMtImpl extends PlantImpl {
                 _initialLocalQueueSize);
     }
 
+    @Override
+    public ReactorImpl createIsolationReactorImpl(
+            final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName) {
+        return createIsolationReactorImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize, _reactorThreadPoolName,
+                PoolThreadReactorImpl.INHERITED_PRIORITY);
+    }
+
+    @Override
+    public ReactorImpl createIsolationReactorImpl(
+            final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName, final int _priority) {
+        return new IsolationReactorMtImpl(_parentReactor, _initialOutboxSize,
+                _initialLocalQueueSize, _reactorThreadPoolName, _priority);
+    }
+
     @Override
     public ReactorImpl createSwingBoundReactorImpl(
             final IsolationReactor _parentReactor,
@@ -175,6 +253,10 @@ public class PlantMtImpl extends PlantImpl {
     public <RESPONSE_TYPE> RequestImpl<RESPONSE_TYPE> createSyncRequestImpl(
             final SyncOperation<RESPONSE_TYPE> _syncOperation,
             final Reactor _targetReactor) {
+        if (requestPoolSize > 0) {
+            return SyncRequestPool.acquire(_syncOperation, _targetReactor,
+                    requestPoolSize);
+        }
         return new SyncRequestMtImpl<RESPONSE_TYPE>(_syncOperation,
                 _targetReactor);
     }
@@ -222,6 +304,13 @@ public class PlantMtImpl extends PlantImpl {
             getPlantScheduler().close();
             super.close();
             reactorPoolThreadManager.close();
+            if (blockingReactorPoolThreadManager != null) {
+                blockingReactorPoolThreadManager.close();
+            }
+            for (final ReactorPoolThreadManager manager : reactorPoolThreadManagers
+                    .values()) {
+                manager.close();
+            }
         }
     }
 
@@ -234,6 +323,16 @@ public class PlantMtImpl extends PlantImpl {
         return plantConfiguration;
     }
 
+    /**
+     * Returns the executor which runs the listeners of a ResponseFuture.
+     *
+     * @return The completion executor, or null when the listeners are run
+     * by the thread of the target reactor.
+     */
+    public Executor getCompletionExecutor() {
+        return completionExecutor;
+    }
+
     /**
      * Return the scheduler that is a part of the Plant's configuration.
      *
@@ -287,16 +386,95 @@ public class PlantMtImpl extends PlantImpl {
         };
     }
 
+    /**
+     * Returns the Runnable which adjusts the size of the elastic thread pools.
+     *
+     * @return The Runnable which will adjust the thread pools.
+     */
+    private Runnable elasticPoll() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reactorPoolThreadManager.adjust();
+                    if (blockingReactorPoolThreadManager != null) {
+                        blockingReactorPoolThreadManager.adjust();
+                    }
+                } catch (final Exception x) {
+                    x.printStackTrace();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the thread pool used to run a reactor.
+     * When there is a blocking reactor thread pool, it runs all the reactors
+     * which may block their thread, even those assigned to a named thread pool,
+     * so that they do not starve the non-blocking reactors of the named pool.
+     *
+     * @param _name The name of the thread pool assigned to the reactor, or null.
+     * @param _slow True when the reactor may block its thread.
+     * @return The reactor pool thread manager.
+     */
+    public ReactorPoolThreadManager getReactorPoolThreadManager(
+            final String _name, final boolean _slow) {
+        if (_slow && (blockingReactorPoolThreadManager != null)) {
+            return blockingReactorPoolThreadManager;
+        }
+        if (_name != null) {
+            return getReactorPoolThreadManager(_name);
+        }
+        return reactorPoolThreadManager;
+    }
+
+    /**
+     * Returns a named thread pool.
+     *
+     * @param _name The name of the thread pool.
+     * @return The reactor pool thread manager.
+     */
+    public ReactorPoolThreadManager getReactorPoolThreadManager(
+            final String _name) {
+        final ReactorPoolThreadManager manager = reactorPoolThreadManagers
+                .get(_name);
+        if (manager == null) {
+            throw new IllegalArgumentException("no such reactor thread pool: "
+                    + _name);
+        }
+        return manager;
+    }
+
+    /**
+     * Returns the default thread pool.
+     *
+     * @return The reactor pool thread manager.
+     */
+    public ReactorPoolThreadManager getReactorPoolThreadManager() {
+        return reactorPoolThreadManager;
+    }
+
+    /**
+     * Returns the thread pool used by blocking reactors.
+     *
+     * @return The reactor pool thread manager, or null when
+     * blocking reactors share the default thread pool.
+     */
+    public ReactorPoolThreadManager getBlockingReactorPoolThreadManager() {
+        return blockingReactorPoolThreadManager;
+    }
+
     /**
      * Submit a Reactor for subsequent execution.
      *
      * @param _reactor The targetReactor to be run.
+     * @return True when the reactor was placed in a run queue.
      */
-    public final void submit(final PoolThreadReactorMtImpl _reactor) {
+    public final boolean submit(final PoolThreadReactorMtImpl _reactor) {
         final ReactorMtImpl internalFacilityImpl = (ReactorMtImpl) internalFacility
                 .asReactorImpl();
         try {
-            reactorPoolThreadManager.execute(_reactor);
+            return _reactor.getReactorPoolThreadManager().execute(_reactor);
         } catch (final Exception e) {
             if (!internalFacilityImpl.isClosing()) {
                 throw e;
@@ -306,6 +484,7 @@ public class PlantMtImpl extends PlantImpl {
                 throw e;
             }
         }
+        return false;
     }
 
     /**
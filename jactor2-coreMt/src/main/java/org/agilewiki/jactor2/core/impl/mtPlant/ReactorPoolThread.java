@@ -14,6 +14,10 @@ public class ReactorPoolThread extends Thread {
 
     private int migrationCount;
 
+    private int poolIndex = -1;
+
+    private ReactorPoolThreadManager reactorPoolThreadManager;
+
     /**
      * Create a pool thread.
      *
@@ -41,6 +45,43 @@ public class ReactorPoolThread extends Thread {
         currentReactor = _reactor;
     }
 
+    /**
+     * Returns the thread pool which owns this thread.
+     *
+     * @return The reactor pool thread manager, or null.
+     */
+    public ReactorPoolThreadManager getReactorPoolThreadManager() {
+        return reactorPoolThreadManager;
+    }
+
+    /**
+     * Assigns the thread pool which owns this thread.
+     *
+     * @param _reactorPoolThreadManager The reactor pool thread manager.
+     */
+    public void setReactorPoolThreadManager(
+            final ReactorPoolThreadManager _reactorPoolThreadManager) {
+        reactorPoolThreadManager = _reactorPoolThreadManager;
+    }
+
+    /**
+     * Returns the index of this thread within its thread pool.
+     *
+     * @return The pool index, or -1 when not assigned.
+     */
+    public int getPoolIndex() {
+        return poolIndex;
+    }
+
+    /**
+     * Assigns the index of this thread within its thread pool.
+     *
+     * @param _poolIndex The pool index.
+     */
+    public void setPoolIndex(final int _poolIndex) {
+        poolIndex = _poolIndex;
+    }
+
     /**
      * Assigns the max thread migrations.
      *
@@ -5,16 +5,20 @@ import org.agilewiki.jactor2.core.impl.mtReactors.PoolThreadReactorMtImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * The ReactorPoolThreadManager is used to process a queue of Reactor's
  * that have non-empty inboxes.
  * ReactorPoolThreadManager is a thread pool, but it has a simplified API and
- * assumes that the thread pool has a fixed number of threads.
+ * normally has a fixed number of threads.
+ * An elastic thread pool, with a maximum thread count larger than its thread count,
+ * adds compensating threads while threads running reactors are blocked and
+ * there are reactors waiting, and retires them once they are no longer needed.
  * ReactorPoolThreadManager is also responsible for assigning the threadReference
  * when a Reactor is run.
  */
@@ -23,30 +27,79 @@ public final class ReactorPoolThreadManager {
             .getLogger(ReactorPoolThreadManager.class);
 
     /**
-     * The taskRequest semaphore is used to wake up a thread
-     * when there is a Reactor which hasWork.
+     * The runQueue holds the reactors which have messages to be processed.
      */
-    final private Semaphore taskRequest = new Semaphore(0);
+    final private RunQueue runQueue;
 
     /**
-     * The reactors queue holds the reactors which have messages to be processed.
+     * When closing is true, the threads exit as they finish their current activity.
      */
-    final private ConcurrentLinkedQueue<PoolThreadReactorMtImpl> reactors = new ConcurrentLinkedQueue<PoolThreadReactorMtImpl>();
+    private boolean closing = false;
 
     /**
-     * When closing is true, the threads exit as they finish their current activity.
+     * The threadCount is the number of threads in the thread pool,
+     * and the minimum number of threads of an elastic thread pool.
      */
-    private boolean closing = false;
+    private final int threadCount;
+
+    /**
+     * The maximum number of threads.
+     */
+    private final int maxThreadCount;
+
+    /**
+     * How long there must be surplus threads before one is retired.
+     */
+    private final long keepAliveMillis;
 
     /**
-     * The threadCount is the number of threads in the thread pool.
+     * The threads in the thread pool, indexed by pool index.
+     * A slot is null when there is no thread with that index.
      */
-    private int threadCount;
+    private final AtomicReferenceArray<ReactorPoolThread> threads;
 
     /**
-     * The threads in the thread pool.
+     * The number of live threads.
      */
-    private ReactorPoolThread threads[] = null;
+    private final AtomicInteger liveThreadCount = new AtomicInteger();
+
+    /**
+     * The number of threads which are to exit when next idle.
+     */
+    private final AtomicInteger retireRequests = new AtomicInteger();
+
+    /**
+     * The number of compensating threads which have been added.
+     */
+    private final AtomicLong addedThreadCount = new AtomicLong();
+
+    /**
+     * The number of threads which have been retired.
+     */
+    private final AtomicLong retiredThreadCount = new AtomicLong();
+
+    /**
+     * When there first were surplus threads, or 0.
+     */
+    private long surplusSinceMillis;
+
+    /**
+     * The number of reactors each thread has run which had been run before,
+     * indexed by pool index. Each slot is only updated by the thread which owns it.
+     */
+    private final long[] affinityRuns;
+
+    /**
+     * The number of reactors each thread has run which it had also run last time,
+     * indexed by pool index. Each slot is only updated by the thread which owns it.
+     */
+    private final long[] affinityHits;
+
+    private final ThreadFactory threadFactory;
+
+    private final int maxThreadMigrations;
+
+    private final Runnable runnable;
 
     /**
      * Create a ReactorPoolThreadManager
@@ -58,17 +111,65 @@ public final class ReactorPoolThreadManager {
     public ReactorPoolThreadManager(final int _threadCount,
                                     final int _maxThreadMigrations,
                                     final ThreadFactory _threadFactory) {
+        this(_threadCount, _maxThreadMigrations, _threadFactory,
+                new SharedRunQueue());
+    }
+
+    /**
+     * Create a ReactorPoolThreadManager
+     *
+     * @param _threadCount         The number of threads to be created.
+     * @param _threadFactory       Used to create the threads.
+     * @param _maxThreadMigrations Limits the number of times a thread will follow a message in succession.
+     * @param _runQueue            Holds the reactors which have messages to be processed.
+     */
+    public ReactorPoolThreadManager(final int _threadCount,
+                                    final int _maxThreadMigrations,
+                                    final ThreadFactory _threadFactory,
+                                    final RunQueue _runQueue) {
+        this(_threadCount, _threadCount, 0, _maxThreadMigrations,
+                _threadFactory, _runQueue);
+    }
+
+    /**
+     * Create an elastic ReactorPoolThreadManager.
+     *
+     * @param _threadCount         The number of threads to be created,
+     *                             which is also the minimum number of threads.
+     * @param _maxThreadCount      The maximum number of threads.
+     * @param _keepAliveMillis     How long there must be surplus threads before one is retired.
+     * @param _maxThreadMigrations Limits the number of times a thread will follow a message in succession.
+     * @param _threadFactory       Used to create the threads.
+     * @param _runQueue            Holds the reactors which have messages to be processed,
+     *                             and is sized for the maximum number of threads.
+     */
+    public ReactorPoolThreadManager(final int _threadCount,
+                                    final int _maxThreadCount,
+                                    final long _keepAliveMillis,
+                                    final int _maxThreadMigrations,
+                                    final ThreadFactory _threadFactory,
+                                    final RunQueue _runQueue) {
+        if (_maxThreadCount < _threadCount) {
+            throw new IllegalArgumentException(
+                    "maxThreadCount may not be less than threadCount");
+        }
         this.threadCount = _threadCount;
-        final Runnable runnable = new Runnable() {
+        this.maxThreadCount = _maxThreadCount;
+        this.keepAliveMillis = _keepAliveMillis;
+        this.maxThreadMigrations = _maxThreadMigrations;
+        this.threadFactory = _threadFactory;
+        this.runQueue = _runQueue;
+        runnable = new Runnable() {
             @Override
             public void run() {
                 final ReactorPoolThread currentThread = (ReactorPoolThread) Thread
                         .currentThread();
                 while (true) {
                     try {
-                        taskRequest.acquire();
-                        PoolThreadReactorMtImpl reactor = reactors.poll();
+                        PoolThreadReactorMtImpl reactor = runQueue
+                                .take(currentThread);
                         if (reactor != null) {
+                            reactor.unschedule();
                             AtomicReference<Thread> threadReference = reactor
                                     .getThreadReference();
                             if ((threadReference.get() == null)
@@ -76,6 +177,7 @@ public final class ReactorPoolThreadManager {
                                     currentThread)) {
                                 currentThread.setCurrentReactor(reactor);
                                 currentThread.clearMigrationCount();
+                                ranOn(reactor, currentThread.getPoolIndex());
                                 while (true) {
                                     try {
                                         reactor.run();
@@ -85,13 +187,15 @@ public final class ReactorPoolThreadManager {
                                         threadReference.set(null);
                                         if (reactor.isIdler() || hasWork
                                                 || reactor.hasConcurrent()) {
-                                            execute(reactor);
+                                            reactor.schedule();
                                         }
                                         reactor = me.reactor;
                                         threadReference = reactor
                                                 .getThreadReference();
                                         currentThread
                                                 .setCurrentReactor(reactor);
+                                        reactor.setLastPoolIndex(currentThread
+                                                .getPoolIndex());
                                         continue;
                                     } catch (final Throwable e) {
                                         logger.error(
@@ -100,8 +204,10 @@ public final class ReactorPoolThreadManager {
                                     }
                                     final boolean hasWork = reactor.hasWork();
                                     threadReference.set(null);
-                                    if (hasWork || reactor.hasConcurrent()) {
-                                        execute(reactor);
+                                    // A deferred reactor is scheduled when it is resumed.
+                                    if ((hasWork || reactor.hasConcurrent())
+                                            && !reactor.isDeferred()) {
+                                        reactor.schedule();
                                     }
                                     break;
                                 }
@@ -114,29 +220,272 @@ public final class ReactorPoolThreadManager {
                     if (closing) {
                         return;
                     }
+                    if (retire(currentThread)) {
+                        return;
+                    }
                 }
             }
         };
-        threads = new ReactorPoolThread[this.threadCount];
+        threads = new AtomicReferenceArray<ReactorPoolThread>(_maxThreadCount);
+        affinityRuns = new long[_maxThreadCount];
+        affinityHits = new long[_maxThreadCount];
         for (int c = 0; c < _threadCount; c++) {
-            final ReactorPoolThread t = (ReactorPoolThread) _threadFactory.newThread(runnable);
-            threads[c] = t;
-            t.setMaxThreadMigrations(_maxThreadMigrations);
-            t.start();
+            startThread(c);
+        }
+    }
+
+    /**
+     * Create and start a thread.
+     *
+     * @param _poolIndex The index of a free slot.
+     */
+    private void startThread(final int _poolIndex) {
+        final ReactorPoolThread t = (ReactorPoolThread) threadFactory.newThread(runnable);
+        t.setPoolIndex(_poolIndex);
+        t.setReactorPoolThreadManager(this);
+        t.setMaxThreadMigrations(maxThreadMigrations);
+        threads.set(_poolIndex, t);
+        liveThreadCount.incrementAndGet();
+        t.start();
+    }
+
+    /**
+     * Records which thread runs a reactor taken from the run queue.
+     *
+     * @param _reactor   The reactor.
+     * @param _poolIndex The pool index of the current thread.
+     */
+    private void ranOn(final PoolThreadReactorMtImpl _reactor,
+                       final int _poolIndex) {
+        final int last = _reactor.getLastPoolIndex();
+        if (last > -1) {
+            affinityRuns[_poolIndex]++;
+            if (last == _poolIndex) {
+                affinityHits[_poolIndex]++;
+            }
+        }
+        _reactor.setLastPoolIndex(_poolIndex);
+    }
+
+    /**
+     * Returns the fraction of the reactors taken from the run queue which were
+     * run by the same thread as the last time they were run.
+     * Reactors being run for the first time are not counted.
+     * This is intended for monitoring.
+     *
+     * @return The approximate affinity hit rate, between 0 and 1.
+     */
+    public double getAffinityHitRate() {
+        long runs = 0;
+        long hits = 0;
+        for (int c = 0; c < maxThreadCount; c++) {
+            runs += affinityRuns[c];
+            hits += affinityHits[c];
+        }
+        return runs == 0 ? 0 : (double) hits / runs;
+    }
+
+    /**
+     * Called by a pool thread between reactors. Exits the thread when
+     * a thread has been asked to retire.
+     *
+     * @param _currentThread The current thread.
+     * @return True when the current thread is to exit.
+     */
+    private boolean retire(final ReactorPoolThread _currentThread) {
+        while (true) {
+            final int requests = retireRequests.get();
+            if (requests == 0) {
+                return false;
+            }
+            if (retireRequests.compareAndSet(requests, requests - 1)) {
+                break;
+            }
+        }
+        runQueue.retire(_currentThread);
+        threads.set(_currentThread.getPoolIndex(), null);
+        liveThreadCount.decrementAndGet();
+        retiredThreadCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Adds compensating threads while threads are blocked and reactors are waiting,
+     * and retires surplus threads once they have not been needed for keepAliveMillis.
+     * Called periodically by the plant when the thread pool is elastic.
+     */
+    public void adjust() {
+        if (closing || (maxThreadCount == threadCount)) {
+            return;
+        }
+        final int live = liveThreadCount.get() - retireRequests.get();
+        final int unblocked = live - getBlockedThreadCount();
+        final int queueDepth = runQueue.size();
+        if ((queueDepth > 0) && (unblocked < threadCount)) {
+            surplusSinceMillis = 0;
+            int add = Math.min(threadCount - unblocked, maxThreadCount - live);
+            add = Math.min(add, queueDepth);
+            for (int c = 0; (add > 0) && (c < maxThreadCount); c++) {
+                if (threads.get(c) == null) {
+                    // Counted first, as the new thread may run a reactor at once.
+                    addedThreadCount.incrementAndGet();
+                    startThread(c);
+                    add -= 1;
+                }
+            }
+            return;
+        }
+        if ((live <= threadCount) || (unblocked <= threadCount) || (queueDepth > 0)) {
+            surplusSinceMillis = 0;
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (surplusSinceMillis == 0) {
+            surplusSinceMillis = now;
+        } else if ((now - surplusSinceMillis) >= keepAliveMillis) {
+            // Retire one thread at a time, waking an idle thread to do so.
+            surplusSinceMillis = now;
+            retireRequests.incrementAndGet();
+            runQueue.wakeup(1);
+        }
+    }
+
+    /**
+     * Returns the run queue of this thread pool.
+     *
+     * @return The run queue.
+     */
+    public RunQueue getRunQueue() {
+        return runQueue;
+    }
+
+    /**
+     * Returns the number of threads in the thread pool.
+     * For an elastic thread pool, this is the minimum number of threads.
+     *
+     * @return The number of threads.
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Returns the maximum number of threads.
+     *
+     * @return The maximum number of threads, which is the thread count
+     * unless the thread pool is elastic.
+     */
+    public int getMaxThreadCount() {
+        return maxThreadCount;
+    }
+
+    /**
+     * Returns the number of threads currently in the thread pool,
+     * including the compensating threads.
+     *
+     * @return The number of live threads.
+     */
+    public int getLiveThreadCount() {
+        return liveThreadCount.get();
+    }
+
+    /**
+     * Returns the number of compensating threads which have been added.
+     *
+     * @return The number of threads added.
+     */
+    public long getAddedThreadCount() {
+        return addedThreadCount.get();
+    }
+
+    /**
+     * Returns the number of threads which have been retired.
+     *
+     * @return The number of threads retired.
+     */
+    public long getRetiredThreadCount() {
+        return retiredThreadCount.get();
+    }
+
+    /**
+     * Returns the number of threads which are blocked, waiting or sleeping
+     * while running a reactor.
+     *
+     * @return The number of blocked threads.
+     */
+    public int getBlockedThreadCount() {
+        int count = 0;
+        for (int c = 0; c < maxThreadCount; c++) {
+            final ReactorPoolThread t = threads.get(c);
+            if ((t == null) || (t.getCurrentReactorImpl() == null)) {
+                continue;
+            }
+            final Thread.State state = t.getState();
+            if ((state == Thread.State.BLOCKED) || (state == Thread.State.WAITING)
+                    || (state == Thread.State.TIMED_WAITING)) {
+                count += 1;
+            }
         }
+        return count;
+    }
+
+    /**
+     * Returns the approximate number of reactors waiting for a thread.
+     *
+     * @return The approximate queue depth.
+     */
+    public int getQueueDepth() {
+        return runQueue.size();
+    }
+
+    /**
+     * Returns the number of threads currently running a reactor.
+     *
+     * @return The number of busy threads.
+     */
+    public int getActiveThreadCount() {
+        int count = 0;
+        for (int c = 0; c < maxThreadCount; c++) {
+            final ReactorPoolThread t = threads.get(c);
+            if ((t != null) && (t.getCurrentReactorImpl() != null)) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the fraction of the threads which are currently running a reactor.
+     *
+     * @return A value between 0 and 1.
+     */
+    public double getUtilization() {
+        return (double) getActiveThreadCount()
+                / Math.max(threadCount, liveThreadCount.get());
+    }
+
+    /**
+     * Returns the wait strategy of this thread pool,
+     * whose counters describe the wakeups of this pool's threads.
+     *
+     * @return The wait strategy.
+     */
+    public WaitStrategy getWaitStrategy() {
+        return runQueue.getWaitStrategy();
     }
 
     /**
      * Begin running a targetReactor.
      *
      * @param _reactor The run method is to be called by the selected thread.
+     * @return False when the thread pool is closing and the reactor was dropped.
      */
-    public final void execute(final PoolThreadReactorMtImpl _reactor) {
+    public final boolean execute(final PoolThreadReactorMtImpl _reactor) {
         if (closing) {
-            return;
+            return false;
         }
-        reactors.add(_reactor);
-        taskRequest.release();
+        runQueue.offer(_reactor);
+        return true;
     }
 
     /**
@@ -150,10 +499,11 @@ public final class ReactorPoolThreadManager {
             return;
         }
         closing = true;
-        taskRequest.release(threadCount);
+        runQueue.close(maxThreadCount);
         final Thread ct = Thread.currentThread();
-        for (final Thread t : threads) {
-            if (ct != t) {
+        for (int c = 0; c < maxThreadCount; c++) {
+            final Thread t = threads.get(c);
+            if ((t != null) && (ct != t)) {
                 t.interrupt();
             }
         }
@@ -1,6 +1,7 @@
 package org.agilewiki.jactor2.core.impl.mtPlant;
 
 import org.agilewiki.jactor2.core.impl.mtMessages.RequestMtImpl;
+import org.agilewiki.jactor2.core.impl.mtReactors.InboxOverflowPolicy;
 import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
 import org.agilewiki.jactor2.core.plant.impl.MetricsTimer;
 import org.agilewiki.jactor2.core.plant.impl.PlantBase;
@@ -118,6 +119,30 @@ public class Recovery {
         }
     }
 
+    /**
+     * Reports the depth of an inbox each time it reaches a new power of 2,
+     * counting the messages passed from other threads. Default action: none.
+     *
+     * @param _reactorImpl The reactor whose inbox reached a new high-water mark.
+     * @param _depth       The number of messages held by the inbox.
+     */
+    public void onInboxHighWaterMark(final ReactorMtImpl _reactorImpl,
+            final int _depth) {
+    }
+
+    /**
+     * Handles a request passed to a reactor whose inbox is full,
+     * before the overflow policy is applied. Default action: none.
+     *
+     * @param _reactorImpl The reactor whose inbox is full.
+     * @param _requestImpl The request being passed.
+     * @param _policy      The overflow policy of the reactor.
+     */
+    public void onInboxOverflow(final ReactorMtImpl _reactorImpl,
+            final RequestMtImpl<?> _requestImpl,
+            final InboxOverflowPolicy _policy) {
+    }
+
     /**
      * Returns the MetricsTimer used to track the performance of this Request instance.
      *
@@ -0,0 +1,66 @@
+package org.agilewiki.jactor2.core.impl.mtPlant;
+
+import org.agilewiki.jactor2.core.impl.mtReactors.PoolThreadReactorMtImpl;
+
+/**
+ * A RunQueue holds the reactors which have messages to be processed
+ * and hands them out to the threads of a ReactorPoolThreadManager.
+ * The default RunQueue is created by PlantConfiguration.
+ */
+public abstract class RunQueue {
+
+    /**
+     * Add a reactor to the queue and wake up a thread to run it.
+     *
+     * @param _reactor The reactor which has messages to be processed.
+     */
+    abstract public void offer(final PoolThreadReactorMtImpl _reactor);
+
+    /**
+     * Wait until a reactor is available and then remove it from the queue.
+     *
+     * @param _currentThread The pool thread which will run the reactor.
+     * @return The reactor to be run, or null when the thread was awakened
+     * without there being a reactor to run.
+     */
+    abstract public PoolThreadReactorMtImpl take(
+            final ReactorPoolThread _currentThread) throws InterruptedException;
+
+    /**
+     * Returns the approximate number of reactors waiting to be run.
+     * This is intended for monitoring.
+     *
+     * @return The approximate number of reactors in the queue.
+     */
+    abstract public int size();
+
+    /**
+     * Returns the way idle threads wait for a reactor to run.
+     *
+     * @return The wait strategy of this run queue.
+     */
+    abstract public WaitStrategy getWaitStrategy();
+
+    /**
+     * Wake up idle threads, e.g. so that one can retire.
+     *
+     * @param _count The number of threads to wake up.
+     */
+    abstract public void wakeup(final int _count);
+
+    /**
+     * Called by a pool thread which is about to exit.
+     * Any reactors held for that thread alone must be passed on to the other threads.
+     *
+     * @param _currentThread The pool thread which is exiting.
+     */
+    public void retire(final ReactorPoolThread _currentThread) {
+    }
+
+    /**
+     * Wake up all the threads, as the thread pool is closing.
+     *
+     * @param _threadCount The number of threads in the thread pool.
+     */
+    abstract public void close(final int _threadCount);
+}
@@ -0,0 +1,147 @@
+package org.agilewiki.jactor2.core.impl.mtPlant;
+
+import org.agilewiki.jactor2.core.impl.mtReactors.PoolThreadReactorMtImpl;
+import org.agilewiki.jactor2.core.reactors.impl.PoolThreadReactorImpl;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A RunQueue shared by all the threads of the pool.
+ * <p>
+ * There is a queue for each reactor priority, and a thread takes the
+ * highest priority reactor available. To keep lower priority reactors
+ * from starving, every agingInterval-th take serves the lowest priority first.
+ * </p>
+ */
+public class SharedRunQueue extends RunQueue {
+
+    /**
+     * The taskRequest semaphore is used to wake up a thread
+     * when there is a Reactor which hasWork.
+     */
+    final private Semaphore taskRequest = new Semaphore(0);
+
+    /**
+     * The reactors which have messages to be processed, indexed by priority.
+     */
+    final private ConcurrentLinkedQueue<PoolThreadReactorMtImpl>[] reactors;
+
+    /**
+     * The number of reactors in the reactors queues.
+     */
+    final private AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * The number of takes, used to serve lower priorities now and then.
+     */
+    final private AtomicInteger takes = new AtomicInteger();
+
+    /**
+     * How often the lowest priority is served first.
+     */
+    final private int agingInterval;
+
+    /**
+     * How an idle thread waits on the taskRequest semaphore.
+     */
+    final private WaitStrategy waitStrategy;
+
+    /**
+     * Create a SharedRunQueue which parks idle threads.
+     */
+    public SharedRunQueue() {
+        this(new BlockingWaitStrategy());
+    }
+
+    /**
+     * Create a SharedRunQueue which serves the lowest priority first every 16th take.
+     *
+     * @param _waitStrategy How an idle thread waits for a reactor to run.
+     */
+    public SharedRunQueue(final WaitStrategy _waitStrategy) {
+        this(_waitStrategy, 16);
+    }
+
+    /**
+     * Create a SharedRunQueue.
+     *
+     * @param _waitStrategy  How an idle thread waits for a reactor to run.
+     * @param _agingInterval How often a take serves the lowest priority first.
+     */
+    @SuppressWarnings("unchecked")
+    public SharedRunQueue(final WaitStrategy _waitStrategy,
+                          final int _agingInterval) {
+        waitStrategy = _waitStrategy;
+        agingInterval = _agingInterval;
+        reactors = new ConcurrentLinkedQueue[PoolThreadReactorImpl.HIGH_PRIORITY + 1];
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i] = new ConcurrentLinkedQueue<PoolThreadReactorMtImpl>();
+        }
+    }
+
+    @Override
+    public void offer(final PoolThreadReactorMtImpl _reactor) {
+        reactors[_reactor.getPriority()].add(_reactor);
+        queued.incrementAndGet();
+        taskRequest.release();
+    }
+
+    @Override
+    public PoolThreadReactorMtImpl take(final ReactorPoolThread _currentThread)
+            throws InterruptedException {
+        waitStrategy.acquire(taskRequest);
+        final PoolThreadReactorMtImpl reactor = poll();
+        if (reactor != null) {
+            queued.decrementAndGet();
+        }
+        return reactor;
+    }
+
+    /**
+     * Remove the reactor with the highest priority, except on every
+     * agingInterval-th call, when the one with the lowest priority is removed.
+     *
+     * @return A reactor, or null.
+     */
+    private PoolThreadReactorMtImpl poll() {
+        PoolThreadReactorMtImpl reactor;
+        if ((takes.incrementAndGet() % agingInterval) == 0) {
+            for (int i = 0; i < reactors.length; i++) {
+                reactor = reactors[i].poll();
+                if (reactor != null) {
+                    return reactor;
+                }
+            }
+            return null;
+        }
+        for (int i = reactors.length - 1; i > -1; i--) {
+            reactor = reactors[i].poll();
+            if (reactor != null) {
+                return reactor;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return queued.get();
+    }
+
+    @Override
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    public void wakeup(final int _count) {
+        taskRequest.release(_count);
+    }
+
+    @Override
+    public void close(final int _threadCount) {
+        taskRequest.release(_threadCount);
+    }
+}
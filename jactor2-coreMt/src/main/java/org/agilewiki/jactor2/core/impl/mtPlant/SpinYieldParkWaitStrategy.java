@@ -0,0 +1,44 @@
+package org.agilewiki.jactor2.core.impl.mtPlant;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Spins for a while, then yields for a while and only then parks the idle thread.
+ * Wakeups which occur while spinning or yielding take microseconds,
+ * at the cost of burning CPU while the thread is idle.
+ */
+public class SpinYieldParkWaitStrategy extends WaitStrategy {
+
+    private final int spins;
+
+    private final int yields;
+
+    /**
+     * Create a SpinYieldParkWaitStrategy with 1000 spins and 100 yields.
+     */
+    public SpinYieldParkWaitStrategy() {
+        this(1000, 100);
+    }
+
+    /**
+     * Create a SpinYieldParkWaitStrategy.
+     *
+     * @param _spins  The number of attempts made while spinning.
+     * @param _yields The number of attempts made while yielding.
+     */
+    public SpinYieldParkWaitStrategy(final int _spins, final int _yields) {
+        spins = _spins;
+        yields = _yields;
+    }
+
+    @Override
+    public void acquire(final Semaphore _permits) throws InterruptedException {
+        if (spinAcquire(_permits, spins)) {
+            return;
+        }
+        if (yieldAcquire(_permits, yields)) {
+            return;
+        }
+        parkAcquire(_permits);
+    }
+}
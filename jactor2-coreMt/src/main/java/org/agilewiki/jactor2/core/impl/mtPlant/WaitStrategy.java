@@ -0,0 +1,111 @@
+package org.agilewiki.jactor2.core.impl.mtPlant;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class for the way an idle pool thread waits for a reactor to run.
+ * Each thread pool has a WaitStrategy of its own, created by PlantConfiguration,
+ * so its counters describe that pool alone.
+ * <p>
+ * Each completed wait is counted as a spin, a yield or a park,
+ * depending on how the thread was waiting when it acquired its permit.
+ * </p>
+ */
+public abstract class WaitStrategy {
+
+    private final AtomicLong spinCount = new AtomicLong();
+
+    private final AtomicLong yieldCount = new AtomicLong();
+
+    private final AtomicLong parkCount = new AtomicLong();
+
+    /**
+     * Wait until a permit has been acquired.
+     *
+     * @param _permits The semaphore released when there is a reactor to run.
+     */
+    abstract public void acquire(final Semaphore _permits)
+            throws InterruptedException;
+
+    /**
+     * Returns the number of waits that ended while spinning.
+     *
+     * @return The number of waits that ended while spinning.
+     */
+    public long getSpinCount() {
+        return spinCount.get();
+    }
+
+    /**
+     * Returns the number of waits that ended while yielding.
+     *
+     * @return The number of waits that ended while yielding.
+     */
+    public long getYieldCount() {
+        return yieldCount.get();
+    }
+
+    /**
+     * Returns the number of waits that ended with the thread parked.
+     *
+     * @return The number of waits that ended with the thread parked.
+     */
+    public long getParkCount() {
+        return parkCount.get();
+    }
+
+    /**
+     * Spin on the semaphore.
+     *
+     * @param _permits The semaphore.
+     * @param _spins   The maximum number of attempts.
+     * @return True when a permit was acquired.
+     */
+    protected final boolean spinAcquire(final Semaphore _permits, final int _spins)
+            throws InterruptedException {
+        for (int i = 0; i < _spins; i++) {
+            if (_permits.tryAcquire()) {
+                spinCount.incrementAndGet();
+                return true;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Yield the thread between attempts to acquire a permit.
+     *
+     * @param _permits The semaphore.
+     * @param _yields  The maximum number of attempts.
+     * @return True when a permit was acquired.
+     */
+    protected final boolean yieldAcquire(final Semaphore _permits, final int _yields)
+            throws InterruptedException {
+        for (int i = 0; i < _yields; i++) {
+            Thread.yield();
+            if (_permits.tryAcquire()) {
+                yieldCount.incrementAndGet();
+                return true;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Block the thread until a permit is acquired.
+     *
+     * @param _permits The semaphore.
+     */
+    protected final void parkAcquire(final Semaphore _permits)
+            throws InterruptedException {
+        _permits.acquire();
+        parkCount.incrementAndGet();
+    }
+}
@@ -0,0 +1,379 @@
+package org.agilewiki.jactor2.core.impl.mtPlant;
+
+import org.agilewiki.jactor2.core.impl.mtReactors.PoolThreadReactorMtImpl;
+import org.agilewiki.jactor2.core.reactors.impl.PoolThreadReactorImpl;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A RunQueue which gives each pool thread its own deque.
+ * <p>
+ * Reactors submitted from a pool thread are pushed onto that thread's deque,
+ * while reactors submitted from any other thread go to a shared queue.
+ * A thread takes work first from its own deque, then from the shared queue
+ * and finally steals from the deques of the other threads.
+ * An idle thread is signalled at most once per wait, and only when
+ * there are threads waiting. Each thread waits on a semaphore of its own,
+ * so a busy pool does not contend on a single semaphore.
+ * </p>
+ * <p>
+ * With affinity, a reactor is preferably run by the thread which last ran it,
+ * so that its state is still in that thread's cache. The reactor is pushed onto
+ * the deque of that thread and the thread is woken, provided that it is idle.
+ * Otherwise the reactor goes to any thread, as usual.
+ * </p>
+ * <p>
+ * High and low priority reactors have shared queues of their own. A thread
+ * looks for a high priority reactor before anything else and for a low
+ * priority reactor only when there is nothing else to do, except that every
+ * agingInterval-th look serves the low priority reactors first.
+ * </p>
+ */
+public class WorkStealingRunQueue extends RunQueue {
+
+    /**
+     * The deques of the pool threads, indexed by pool index.
+     */
+    private final ConcurrentLinkedDeque<PoolThreadReactorMtImpl>[] localQueues;
+
+    /**
+     * Reactors submitted by threads which are not part of the pool.
+     */
+    private final ConcurrentLinkedQueue<PoolThreadReactorMtImpl> sharedQueue = new ConcurrentLinkedQueue<PoolThreadReactorMtImpl>();
+
+    /**
+     * Reactors with a high priority.
+     */
+    private final ConcurrentLinkedQueue<PoolThreadReactorMtImpl> highQueue = new ConcurrentLinkedQueue<PoolThreadReactorMtImpl>();
+
+    /**
+     * Reactors with a low priority.
+     */
+    private final ConcurrentLinkedQueue<PoolThreadReactorMtImpl> lowQueue = new ConcurrentLinkedQueue<PoolThreadReactorMtImpl>();
+
+    /**
+     * How often the low priority reactors are served first.
+     */
+    private final int agingInterval;
+
+    /**
+     * The number of times each thread has looked for a reactor.
+     * Each slot is only updated by the thread which owns it.
+     */
+    private final long[] finds;
+
+    /**
+     * The number of threads waiting on their wakeup semaphore
+     * which have not yet been signalled. Never less than the number of idle flags set.
+     */
+    private final AtomicInteger idleThreads = new AtomicInteger();
+
+    /**
+     * 1 for each thread waiting on its wakeup semaphore
+     * which has not yet been signalled, indexed by pool index.
+     */
+    private final AtomicIntegerArray idleFlags;
+
+    /**
+     * True when a reactor is preferably run by the thread which last ran it.
+     */
+    private final boolean affinity;
+
+    /**
+     * The number of reactors pushed onto each deque by its own thread.
+     * Each slot is only updated by the thread which owns it.
+     */
+    private final long[] localPushes;
+
+    /**
+     * The number of reactors each thread has stolen from the other deques.
+     * Each slot is only updated by the thread which owns it.
+     */
+    private final long[] steals;
+
+    /**
+     * Used to wake up an idle thread, indexed by pool index.
+     */
+    private final Semaphore[] wakeups;
+
+    /**
+     * How an idle thread waits on its wakeup semaphore.
+     */
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Create a WorkStealingRunQueue which parks idle threads.
+     *
+     * @param _threadCount The number of threads in the thread pool.
+     */
+    public WorkStealingRunQueue(final int _threadCount) {
+        this(_threadCount, new BlockingWaitStrategy());
+    }
+
+    /**
+     * Create a WorkStealingRunQueue which serves the low priority reactors
+     * first every 16th look.
+     *
+     * @param _threadCount  The number of threads in the thread pool.
+     * @param _waitStrategy How an idle thread waits for a reactor to run.
+     */
+    public WorkStealingRunQueue(final int _threadCount,
+                                final WaitStrategy _waitStrategy) {
+        this(_threadCount, _waitStrategy, 16);
+    }
+
+    /**
+     * Create a WorkStealingRunQueue without affinity.
+     *
+     * @param _threadCount   The number of threads in the thread pool.
+     * @param _waitStrategy  How an idle thread waits for a reactor to run.
+     * @param _agingInterval How often a thread serves the low priority reactors first.
+     */
+    public WorkStealingRunQueue(final int _threadCount,
+                                final WaitStrategy _waitStrategy,
+                                final int _agingInterval) {
+        this(_threadCount, _waitStrategy, _agingInterval, false);
+    }
+
+    /**
+     * Create a WorkStealingRunQueue.
+     *
+     * @param _threadCount   The number of threads in the thread pool.
+     * @param _waitStrategy  How an idle thread waits for a reactor to run.
+     * @param _agingInterval How often a thread serves the low priority reactors first.
+     * @param _affinity      True when a reactor is preferably run by the thread which last ran it.
+     */
+    @SuppressWarnings("unchecked")
+    public WorkStealingRunQueue(final int _threadCount,
+                                final WaitStrategy _waitStrategy,
+                                final int _agingInterval,
+                                final boolean _affinity) {
+        waitStrategy = _waitStrategy;
+        agingInterval = _agingInterval;
+        affinity = _affinity;
+        finds = new long[_threadCount];
+        localQueues = new ConcurrentLinkedDeque[_threadCount];
+        localPushes = new long[_threadCount];
+        steals = new long[_threadCount];
+        idleFlags = new AtomicIntegerArray(_threadCount);
+        wakeups = new Semaphore[_threadCount];
+        for (int i = 0; i < _threadCount; i++) {
+            localQueues[i] = new ConcurrentLinkedDeque<PoolThreadReactorMtImpl>();
+            wakeups[i] = new Semaphore(0);
+        }
+    }
+
+    @Override
+    public void offer(final PoolThreadReactorMtImpl _reactor) {
+        final int priority = _reactor.getPriority();
+        final int index = localIndex();
+        final int last = affinity ? _reactor.getLastPoolIndex() : -1;
+        if (priority == PoolThreadReactorImpl.HIGH_PRIORITY) {
+            highQueue.offer(_reactor);
+        } else if (priority == PoolThreadReactorImpl.LOW_PRIORITY) {
+            lowQueue.offer(_reactor);
+        } else if ((last > -1) && (last != index)
+                && (last < localQueues.length) && (idleFlags.get(last) == 1)) {
+            // The thread which last ran the reactor is idle, so hand it over.
+            localQueues[last].offerLast(_reactor);
+            if (signal(last)) {
+                return;
+            }
+        } else if (index > -1) {
+            localQueues[index].offerLast(_reactor);
+            localPushes[index]++;
+        } else {
+            sharedQueue.offer(_reactor);
+        }
+        wakeup(1);
+    }
+
+    @Override
+    public PoolThreadReactorMtImpl take(final ReactorPoolThread _currentThread)
+            throws InterruptedException {
+        final int index = _currentThread.getPoolIndex();
+        PoolThreadReactorMtImpl reactor = find(index);
+        if (reactor != null) {
+            return reactor;
+        }
+        // Count ourselves before raising our flag, so the count covers the flags.
+        idleThreads.incrementAndGet();
+        idleFlags.set(index, 1);
+        // Check again, as an offer may have missed our registration as idle.
+        reactor = find(index);
+        if (reactor != null) {
+            if (idleFlags.compareAndSet(index, 1, 0)) {
+                idleThreads.decrementAndGet();
+            } else {
+                // We have already been signalled, so consume the permit.
+                wakeups[index].acquire();
+            }
+            return reactor;
+        }
+        // The thread which signals us also removes our registration.
+        waitStrategy.acquire(wakeups[index]);
+        return find(index);
+    }
+
+    @Override
+    public int size() {
+        int size = sharedQueue.size() + highQueue.size() + lowQueue.size();
+        for (final ConcurrentLinkedDeque<PoolThreadReactorMtImpl> localQueue : localQueues) {
+            size += localQueue.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of reactors which were pushed onto a deque
+     * by the thread which owns it. This is intended for monitoring.
+     *
+     * @return The approximate number of local pushes.
+     */
+    public long getLocalPushCount() {
+        long count = 0;
+        for (final long pushes : localPushes) {
+            count += pushes;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of reactors which were taken from the deque
+     * of another thread. This is intended for monitoring.
+     *
+     * @return The approximate number of steals.
+     */
+    public long getStealCount() {
+        long count = 0;
+        for (final long stolen : steals) {
+            count += stolen;
+        }
+        return count;
+    }
+
+    @Override
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    public void wakeup(final int _count) {
+        if ((_count == 0) || (idleThreads.get() <= 0)) {
+            return;
+        }
+        final int length = localQueues.length;
+        final int start = ThreadLocalRandom.current().nextInt(length);
+        int count = _count;
+        for (int i = 0; (count > 0) && (i < length); i++) {
+            if (signal((start + i) % length)) {
+                count -= 1;
+            }
+        }
+    }
+
+    /**
+     * Wakes up a thread, provided that it is idle and has not yet been signalled.
+     *
+     * @param _index The pool index of the thread.
+     * @return True when the thread was signalled.
+     */
+    private boolean signal(final int _index) {
+        if (!idleFlags.compareAndSet(_index, 1, 0)) {
+            return false;
+        }
+        idleThreads.decrementAndGet();
+        wakeups[_index].release();
+        return true;
+    }
+
+    @Override
+    public void retire(final ReactorPoolThread _currentThread) {
+        final ConcurrentLinkedDeque<PoolThreadReactorMtImpl> localQueue =
+                localQueues[_currentThread.getPoolIndex()];
+        int moved = 0;
+        PoolThreadReactorMtImpl reactor = localQueue.pollFirst();
+        while (reactor != null) {
+            sharedQueue.offer(reactor);
+            moved += 1;
+            reactor = localQueue.pollFirst();
+        }
+        wakeup(moved);
+    }
+
+    @Override
+    public void close(final int _threadCount) {
+        for (final Semaphore wakeup : wakeups) {
+            wakeup.release();
+        }
+    }
+
+    /**
+     * Returns the pool index of the current thread, or -1 when
+     * the current thread does not have a deque in this run queue.
+     *
+     * @return The pool index of the current thread, or -1.
+     */
+    private int localIndex() {
+        final Thread thread = Thread.currentThread();
+        if (!(thread instanceof ReactorPoolThread)) {
+            return -1;
+        }
+        final ReactorPoolThread poolThread = (ReactorPoolThread) thread;
+        final ReactorPoolThreadManager manager = poolThread
+                .getReactorPoolThreadManager();
+        if ((manager == null) || (manager.getRunQueue() != this)) {
+            return -1;
+        }
+        final int index = poolThread.getPoolIndex();
+        if ((index < 0) || (index >= localQueues.length)) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Look for a reactor to run: first with a high priority, then locally,
+     * then in the shared queue, then in the deques of the other threads
+     * and finally with a low priority.
+     *
+     * @param _index The pool index of the current thread.
+     * @return A reactor to be run, or null.
+     */
+    private PoolThreadReactorMtImpl find(final int _index) {
+        PoolThreadReactorMtImpl reactor;
+        if ((++finds[_index] % agingInterval) == 0) {
+            reactor = lowQueue.poll();
+            if (reactor != null) {
+                return reactor;
+            }
+        }
+        reactor = highQueue.poll();
+        if (reactor != null) {
+            return reactor;
+        }
+        reactor = localQueues[_index].pollFirst();
+        if (reactor != null) {
+            return reactor;
+        }
+        reactor = sharedQueue.poll();
+        if (reactor != null) {
+            return reactor;
+        }
+        final int length = localQueues.length;
+        for (int i = 1; i < length; i++) {
+            // Steal from the tail, away from where the owner is polling.
+            reactor = localQueues[(_index + i) % length].pollLast();
+            if (reactor != null) {
+                steals[_index]++;
+                return reactor;
+            }
+        }
+        return lowQueue.poll();
+    }
+}
@@ -28,7 +28,7 @@ public class BlockingReactorMtImpl extends PoolThreadReactorMtImpl {
 
     @Override
     protected Inbox createInbox(final int _initialLocalQueueSize) {
-        return new CommonInbox(_initialLocalQueueSize);
+        return createCommonInbox(_initialLocalQueueSize);
     }
 
     @Override
@@ -21,12 +21,23 @@ public class CommonInbox extends Inbox {
     private final ArrayDeque<Object> localQueue;
 
     /**
-     * Creates a CommonInbox.
+     * Creates a CommonInbox with a ConcurrentLinkedQueue for messages passed from other threads.
      *
      * @param initialLocalQueueSize The initial doLocal queue size.
      */
     public CommonInbox(final int initialLocalQueueSize) {
-        concurrentQueue = new ConcurrentLinkedQueue<Object>();
+        this(initialLocalQueueSize, new ConcurrentLinkedQueue<Object>());
+    }
+
+    /**
+     * Creates a CommonInbox.
+     *
+     * @param initialLocalQueueSize The initial doLocal queue size.
+     * @param _concurrentQueue      The queue for messages passed from other threads.
+     */
+    public CommonInbox(final int initialLocalQueueSize,
+            final Queue<Object> _concurrentQueue) {
+        concurrentQueue = _concurrentQueue;
         localQueue = new ArrayDeque<Object>(initialLocalQueueSize);
     }
 
@@ -40,7 +51,7 @@ public class CommonInbox extends Inbox {
 
     @Override
     public boolean isEmpty() {
-        return hasWork();
+        return !hasWork();
     }
 
     @Override
@@ -54,10 +65,10 @@ public class CommonInbox extends Inbox {
     }
 
     @Override
-    public RequestMtImpl<?> poll() {
+    protected RequestMtImpl<?> pollMessage() {
         Object obj = localQueue.peek();
         if (obj == null) {
-            obj = concurrentQueue.poll();
+            obj = pollConcurrent();
             if (obj == null) {
                 return null;
             } else {
@@ -70,6 +81,8 @@ public class CommonInbox extends Inbox {
                     if (!msgs.isEmpty()) {
                         // msgs is not empty so save it in localQueue
                         localQueue.offer(msgs);
+                    } else {
+                        MessageBlock.recycle(msgs);
                     }
                     return result;
                 }
@@ -84,6 +97,7 @@ public class CommonInbox extends Inbox {
                 if (msgs.isEmpty()) {
                     // msgs is empty, so remove msgs from localQueue
                     localQueue.poll();
+                    MessageBlock.recycle(msgs);
                 }
                 return result;
             }
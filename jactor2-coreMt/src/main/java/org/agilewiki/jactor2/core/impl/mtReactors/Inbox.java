@@ -1,14 +1,26 @@
 package org.agilewiki.jactor2.core.impl.mtReactors;
 
 import org.agilewiki.jactor2.core.impl.mtMessages.RequestMtImpl;
+import org.agilewiki.jactor2.core.plant.impl.PlantScheduler;
 
+import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Provides at least two queues for a targetReactor's incoming messages, where the first queue is a
- * concurrent linked queue for messages passed from other reactors and the other(s) are
+ * concurrent queue for messages passed from other reactors and the other(s) are
  * local queues for messages that are passed using the targetReactor's own thread.
+ * The concurrent queue is either a ConcurrentLinkedQueue or an MpscRingQueue.
+ * <p>
+ * An inbox keeps approximate counts of the messages it has received and handed out,
+ * by lane, and of the age of its oldest message. These may be read from any thread.
+ * Messages passed from other threads are counted with the atomic add which was
+ * needed anyway to track the size of the concurrent queue, while the counts kept by
+ * the targetReactor's own thread are published with lazySet.
+ * </p>
  *
  * @author monster
  */
@@ -17,7 +29,236 @@ public abstract class Inbox implements AutoCloseable {
     /**
      * Concurrent queue for cross-thread exchanges.
      */
-    protected ConcurrentLinkedQueue<Object> concurrentQueue;
+    protected Queue<Object> concurrentQueue;
+
+    /**
+     * The lane of responses.
+     */
+    public static final int RESPONSE_LANE = 0;
+
+    /**
+     * The lane of signals.
+     */
+    public static final int SIGNAL_LANE = 1;
+
+    /**
+     * The lane of new requests.
+     */
+    public static final int REQUEST_LANE = 2;
+
+    /**
+     * The number of lanes.
+     */
+    public static final int LANES = 3;
+
+    /**
+     * The number of messages passed from other threads, by lane.
+     */
+    private final AtomicLongArray passed = new AtomicLongArray(LANES);
+
+    /**
+     * The number of messages passed using the targetReactor's own thread, by lane.
+     */
+    private final AtomicLongArray passedLocally = new AtomicLongArray(LANES);
+
+    /**
+     * The number of messages handed out for processing, by lane.
+     */
+    private final AtomicLongArray taken = new AtomicLongArray(LANES);
+
+    /**
+     * The number of messages taken from the concurrent queue.
+     */
+    private final AtomicLong concurrentTaken = new AtomicLong();
+
+    /**
+     * The number of signals removed from the concurrent queue without being processed.
+     */
+    private final AtomicLong removed = new AtomicLong();
+
+    /**
+     * An upper bound on when the oldest message was received, or 0 when none is held.
+     */
+    private final AtomicLong oldestReceivedMillis = new AtomicLong();
+
+    /**
+     * The clock used to time when messages are received, or null.
+     */
+    private PlantScheduler plantScheduler;
+
+    /**
+     * Assigns the clock used to time when messages are received.
+     *
+     * @param _plantScheduler The plant scheduler of the targetReactor.
+     */
+    void setPlantScheduler(final PlantScheduler _plantScheduler) {
+        plantScheduler = _plantScheduler;
+    }
+
+    /**
+     * Returns the lane of a message.
+     *
+     * @param _message A message.
+     * @return RESPONSE_LANE, SIGNAL_LANE or REQUEST_LANE.
+     */
+    public static int lane(final RequestMtImpl<?> _message) {
+        if (_message.isComplete()) {
+            return RESPONSE_LANE;
+        }
+        if (_message.isSignal()) {
+            return SIGNAL_LANE;
+        }
+        return REQUEST_LANE;
+    }
+
+    /**
+     * Returns the number of messages passed from other threads
+     * which have not yet been taken from the concurrent queue.
+     *
+     * @return The approximate number of messages in the concurrent queue.
+     */
+    public int getConcurrentSize() {
+        final long size = passed.get(RESPONSE_LANE) + passed.get(SIGNAL_LANE)
+                + passed.get(REQUEST_LANE) - concurrentTaken.get() - removed.get();
+        return size < 0 ? 0 : (int) size;
+    }
+
+    /**
+     * Returns the number of messages received in a lane. Thread safe.
+     *
+     * @param _lane RESPONSE_LANE, SIGNAL_LANE or REQUEST_LANE.
+     * @return The approximate number of messages received.
+     */
+    public long getEnqueuedCount(final int _lane) {
+        return passed.get(_lane) + passedLocally.get(_lane);
+    }
+
+    /**
+     * Returns the number of messages of a lane which have left the inbox,
+     * either to be processed or because they were dropped. Thread safe.
+     *
+     * @param _lane RESPONSE_LANE, SIGNAL_LANE or REQUEST_LANE.
+     * @return The approximate number of messages which have left the inbox.
+     */
+    public long getDequeuedCount(final int _lane) {
+        final long count = taken.get(_lane);
+        return _lane == SIGNAL_LANE ? count + removed.get() : count;
+    }
+
+    /**
+     * Returns the number of messages of a lane held by the inbox. Thread safe.
+     *
+     * @param _lane RESPONSE_LANE, SIGNAL_LANE or REQUEST_LANE.
+     * @return The approximate number of messages held.
+     */
+    public int getSize(final int _lane) {
+        final long size = getEnqueuedCount(_lane) - getDequeuedCount(_lane);
+        return size < 0 ? 0 : (int) size;
+    }
+
+    /**
+     * Returns the number of messages held by the inbox. Thread safe.
+     *
+     * @return The approximate number of messages held.
+     */
+    public int getSize() {
+        return getSize(RESPONSE_LANE) + getSize(SIGNAL_LANE) + getSize(REQUEST_LANE);
+    }
+
+    /**
+     * Returns how long the oldest message held by the inbox has waited, or an upper
+     * bound on it when messages are not processed in the order received. Thread safe.
+     *
+     * @param _nowMillis The current time, per the plant scheduler.
+     * @return The approximate age in milliseconds, or 0 when no message is held.
+     */
+    public long getOldestAgeMillis(final long _nowMillis) {
+        final long received = oldestReceivedMillis.get();
+        if ((received == 0) || (getSize() == 0)) {
+            return 0;
+        }
+        return _nowMillis > received ? _nowMillis - received : 0;
+    }
+
+    /**
+     * Notes when a message was received.
+     *
+     * @param _msg The message received.
+     */
+    private void received(final RequestMtImpl<?> _msg) {
+        final long now = plantScheduler == null ? 0
+                : (long) plantScheduler.currentTimeMillis();
+        _msg.setReceivedMillis(now);
+        if (oldestReceivedMillis.get() == 0) {
+            oldestReceivedMillis.compareAndSet(0, now);
+        }
+    }
+
+    /**
+     * Adds to a count kept by the targetReactor's own thread.
+     *
+     * @param _counts The counts.
+     * @param _lane   The lane.
+     * @param _delta  The number to add.
+     */
+    private static void addLocally(final AtomicLongArray _counts, final int _lane,
+                                   final long _delta) {
+        _counts.lazySet(_lane, _counts.get(_lane) + _delta);
+    }
+
+    /**
+     * Retrieves and removes the next entry of the concurrent queue,
+     * which is either a message or a block of messages.
+     * Subclasses must use this rather than polling the concurrent queue directly.
+     *
+     * @return The next entry, or null.
+     */
+    protected Object pollConcurrent() {
+        final Object obj = concurrentQueue.poll();
+        if (obj != null) {
+            concurrentTaken.lazySet(concurrentTaken.get() + entrySize(obj));
+        }
+        return obj;
+    }
+
+    /**
+     * Returns the number of messages in an entry of the concurrent queue.
+     *
+     * @param _obj A message or a block of messages.
+     * @return The number of messages.
+     */
+    private static int entrySize(final Object _obj) {
+        if (_obj instanceof RequestMtImpl) {
+            return 1;
+        }
+        return ((Queue<?>) _obj).size();
+    }
+
+    /**
+     * Removes the oldest signal passed from another thread, which has not yet been taken
+     * from the concurrent queue. Signals passed in a block of messages are not considered.
+     * Only a ConcurrentLinkedQueue supports this.
+     *
+     * @return The signal removed, or null.
+     */
+    public RequestMtImpl<?> removeOldestSignal() {
+        if (!(concurrentQueue instanceof ConcurrentLinkedQueue)) {
+            return null;
+        }
+        final Iterator<Object> it = concurrentQueue.iterator();
+        while (it.hasNext()) {
+            final Object obj = it.next();
+            if (obj instanceof RequestMtImpl) {
+                final RequestMtImpl<?> message = (RequestMtImpl<?>) obj;
+                if (message.isSignal() && !message.isComplete()
+                        && concurrentQueue.remove(message)) {
+                    removed.incrementAndGet();
+                    return message;
+                }
+            }
+        }
+        return null;
+    }
 
     /**
      * Returns true when a message has been passed from another thread.
@@ -58,24 +299,108 @@ public abstract class Inbox implements AutoCloseable {
      * @param _msg   The new message.
      */
     public void offer(final boolean _local, final RequestMtImpl<?> _msg) {
+        received(_msg);
         if (_local) {
+            addLocally(passedLocally, lane(_msg), 1);
             offerLocal(_msg);
         } else {
+            passed.incrementAndGet(lane(_msg));
             concurrentQueue.offer(_msg);
         }
     }
 
     /**
      * Thread-safe message insertion.
+     * A block of messages, once drained, is to be passed to MessageBlock.recycle.
      *
      * @param _msgs The new messages.
      */
     public void offer(final Queue<RequestMtImpl<?>> _msgs) {
         if (!_msgs.isEmpty()) {
+            receivedBlock(_msgs, false);
             concurrentQueue.add(_msgs);
+        } else {
+            MessageBlock.recycle(_msgs);
         }
     }
 
+    /**
+     * Inserts a block of messages using the targetReactor's own thread.
+     * The block is recycled once drained.
+     *
+     * @param _msgs The new messages.
+     */
+    public void offerLocal(final Queue<RequestMtImpl<?>> _msgs) {
+        receivedBlock(_msgs, true);
+        addLocal(_msgs);
+    }
+
+    /**
+     * Notes when the messages of a block were received, and counts them by lane.
+     *
+     * @param _msgs  The messages received.
+     * @param _local True when the block is passed using the targetReactor's own thread.
+     */
+    private void receivedBlock(final Queue<RequestMtImpl<?>> _msgs,
+                               final boolean _local) {
+        long responses = 0;
+        long signals = 0;
+        // Rotated rather than iterated, so no iterator is allocated.
+        final int size = _msgs.size();
+        for (int i = 0; i < size; i++) {
+            final RequestMtImpl<?> msg = _msgs.poll();
+            _msgs.offer(msg);
+            received(msg);
+            final int lane = lane(msg);
+            if (lane == RESPONSE_LANE) {
+                responses++;
+            } else if (lane == SIGNAL_LANE) {
+                signals++;
+            }
+        }
+        final long requests = size - responses - signals;
+        final AtomicLongArray counts = _local ? passedLocally : passed;
+        if (responses > 0) {
+            count(counts, RESPONSE_LANE, responses, _local);
+        }
+        if (signals > 0) {
+            count(counts, SIGNAL_LANE, signals, _local);
+        }
+        if (requests > 0) {
+            count(counts, REQUEST_LANE, requests, _local);
+        }
+    }
+
+    /**
+     * Adds to a count.
+     *
+     * @param _counts The counts.
+     * @param _lane   The lane.
+     * @param _delta  The number to add.
+     * @param _local  True when the count is only updated by the targetReactor's own thread.
+     */
+    private static void count(final AtomicLongArray _counts, final int _lane,
+                              final long _delta, final boolean _local) {
+        if (_local) {
+            addLocally(_counts, _lane, _delta);
+        } else {
+            _counts.addAndGet(_lane, _delta);
+        }
+    }
+
+    /**
+     * Moves a block of messages into the local queue(s)
+     * and recycles the block once drained.
+     *
+     * @param _msgs The messages.
+     */
+    protected void addLocal(final Queue<RequestMtImpl<?>> _msgs) {
+        while (!_msgs.isEmpty()) {
+            offerLocal(_msgs.poll());
+        }
+        MessageBlock.recycle(_msgs);
+    }
+
     /**
      * Add a message to the appropriate doLocal queue.
      *
@@ -90,7 +415,26 @@ public abstract class Inbox implements AutoCloseable {
      * @return The next message to be processed, or null if there are no messages to be
      * processed.
      */
-    abstract public RequestMtImpl<?> poll();
+    public final RequestMtImpl<?> poll() {
+        final RequestMtImpl<?> msg = pollMessage();
+        if (msg != null) {
+            addLocally(taken, lane(msg), 1);
+            // The messages still held were received no earlier than this one,
+            // unless taken out of order.
+            oldestReceivedMillis.lazySet(msg.getReceivedMillis());
+        } else if (isEmpty()) {
+            oldestReceivedMillis.lazySet(0);
+        }
+        return msg;
+    }
+
+    /**
+     * Retrieves and removes the next message to be processed, or returns null.
+     *
+     * @return The next message to be processed, or null if there are no messages to be
+     * processed.
+     */
+    protected abstract RequestMtImpl<?> pollMessage();
 
     /**
      * Signals the start of a request.
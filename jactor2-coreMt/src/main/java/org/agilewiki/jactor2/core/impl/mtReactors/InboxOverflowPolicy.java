@@ -0,0 +1,29 @@
+package org.agilewiki.jactor2.core.impl.mtReactors;
+
+/**
+ * What a reactor does with a request passed from another thread
+ * when its inbox already holds as many such messages as its inbox capacity.
+ * Responses are always accepted.
+ */
+public enum InboxOverflowPolicy {
+    /**
+     * The request is not added to the inbox and the sender receives an InboxFullException.
+     * A signal is simply dropped.
+     */
+    REJECT,
+
+    /**
+     * The oldest signal in the inbox is dropped to make room. When there is none,
+     * an incoming signal is dropped and an incoming request is rejected.
+     */
+    DROP_OLDEST_SIGNAL,
+
+    /**
+     * The request is added anyway, but the pool thread reactor which sent it
+     * stops processing messages until the inbox has drained to half its capacity.
+     * Requests passed by other threads are added without deferring anything, as are
+     * requests passed to a reactor which is itself deferred, so two reactors sending to
+     * each other do not wait on each other. Longer cycles of deferred reactors can still stall.
+     */
+    DEFER
+}
@@ -12,6 +12,11 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * until a result is assigned to the previous request. This is implemented using
  * two ArrayDeques as the doLocal queues, one for requests and the other for events and
  * responses.
+ * <p>
+ * The messages of a block passed from another thread are classified by the outbox
+ * of the sender as they are buffered. When they all belong in the same doLocal queue,
+ * they are added to that queue in bulk rather than one at a time.
+ * </p>
  */
 public class IsolationInbox extends Inbox {
 
@@ -31,46 +36,116 @@ public class IsolationInbox extends Inbox {
     private final ArrayDeque<RequestMtImpl<?>> localNoResponsePendingQueue;
 
     /**
-     * Creates an IsolationInbox.
+     * The number of message blocks added to a doLocal queue in bulk.
+     */
+    private long bulkTransfers;
+
+    /**
+     * Creates an IsolationInbox with a ConcurrentLinkedQueue for messages passed from other threads.
      *
      * @param initialLocalQueueSize The initial doLocal queue size.
      */
     public IsolationInbox(final int initialLocalQueueSize) {
-        concurrentQueue = new ConcurrentLinkedQueue<Object>();
+        this(initialLocalQueueSize, new ConcurrentLinkedQueue<Object>());
+    }
+
+    /**
+     * Creates an IsolationInbox.
+     *
+     * @param initialLocalQueueSize The initial doLocal queue size.
+     * @param _concurrentQueue      The queue for messages passed from other threads.
+     */
+    public IsolationInbox(final int initialLocalQueueSize,
+            final Queue<Object> _concurrentQueue) {
+        concurrentQueue = _concurrentQueue;
         localResponsePendingQueue = new ArrayDeque<RequestMtImpl<?>>(
                 initialLocalQueueSize);
         localNoResponsePendingQueue = new ArrayDeque<RequestMtImpl<?>>(
                 initialLocalQueueSize);
     }
 
+    /**
+     * Returns the number of message blocks which were added to a doLocal queue in bulk.
+     *
+     * @return The number of bulk transfers.
+     */
+    public long getBulkTransfers() {
+        return bulkTransfers;
+    }
+
     /**
      * Add the messages in a message block to the appropriate doLocal queue.
      *
      * @param _msgs The message to be added.
      */
-    private void offerLocal(final Queue<RequestMtImpl<?>> _msgs) {
-        while (!_msgs.isEmpty()) {
-            final RequestMtImpl<?> msg = _msgs.poll();
-            offerLocal(msg);
+    @Override
+    protected void addLocal(final Queue<RequestMtImpl<?>> _msgs) {
+        final ArrayDeque<RequestMtImpl<?>> queue = localQueue(_msgs);
+        if (queue != null) {
+            bulkTransfers++;
+            queue.addAll(_msgs);
+            _msgs.clear();
+        } else {
+            while (!_msgs.isEmpty()) {
+                final RequestMtImpl<?> msg = _msgs.poll();
+                offerLocal(msg);
+            }
+        }
+        MessageBlock.recycle(_msgs);
+    }
+
+    /**
+     * Returns the doLocal queue in which all the messages of a block belong.
+     *
+     * @param _msgs A message block.
+     * @return The doLocal queue, or null when the messages belong in different queues
+     * or were not classified.
+     */
+    private ArrayDeque<RequestMtImpl<?>> localQueue(final Queue<RequestMtImpl<?>> _msgs) {
+        if (!(_msgs instanceof MessageBlock)) {
+            return null;
+        }
+        final MessageBlock block = (MessageBlock) _msgs;
+        final int size = block.size();
+        // A block with messages removed since they were classified is not trusted.
+        if (!block.forIsolation || (block.classified != size)) {
+            return null;
         }
+        if (block.noResponsePending == size) {
+            return localNoResponsePendingQueue;
+        }
+        if (block.noResponsePending == 0) {
+            return localResponsePendingQueue;
+        }
+        return null;
     }
 
     @Override
     protected void offerLocal(final RequestMtImpl<?> msg) {
-        if (msg.isComplete() || msg.isSignal()) {
+        if (isNoResponsePending(msg)) {
             localNoResponsePendingQueue.offer(msg);
-            return;
+        } else {
+            localResponsePendingQueue.offer(msg);
+        }
+    }
+
+    /**
+     * Returns true when a message does not wait for the request being processed
+     * to be completed.
+     *
+     * @param msg The message.
+     * @return True for events, responses and requests which are part of the processing
+     * of an isolated request.
+     */
+    static boolean isNoResponsePending(final RequestMtImpl<?> msg) {
+        if (msg.isComplete() || msg.isSignal()) {
+            return true;
         }
         if (msg.getSourceReactor() != null && msg.getSourceReactor() == msg.getTargetReactor()) {
-            localNoResponsePendingQueue.offer(msg);
-            return;
+            return true;
         }
         RequestMtImpl<?> oldMsg = msg.getOldRequest();
-        if (oldMsg != null && oldMsg.getIsolationReactor() != null) {
-            localNoResponsePendingQueue.offer(msg);
-            return;
-        }
-        localResponsePendingQueue.offer(msg);
+        return oldMsg != null && oldMsg.getIsolationReactor() != null;
     }
 
     @Override
@@ -89,7 +164,7 @@ public class IsolationInbox extends Inbox {
     public boolean hasWork() {
         while (localNoResponsePendingQueue.isEmpty()
                 && (processingRequest != null || localResponsePendingQueue.isEmpty())) {
-            final Object obj = concurrentQueue.poll();
+            final Object obj = pollConcurrent();
             if (obj == null) {
                 return false;
             }
@@ -99,14 +174,14 @@ public class IsolationInbox extends Inbox {
             } else {
                 @SuppressWarnings("unchecked")
                 final Queue<RequestMtImpl<?>> msgs = (Queue<RequestMtImpl<?>>) obj;
-                offerLocal(msgs);
+                addLocal(msgs);
             }
         }
         return true;
     }
 
     @Override
-    public RequestMtImpl<?> poll() {
+    protected RequestMtImpl<?> pollMessage() {
         if (!hasWork()) {
             return null;
         }
@@ -29,6 +29,37 @@ public class IsolationReactorMtImpl extends PoolThreadReactorMtImpl {
         super(_parentReactor, _initialOutboxSize, _initialLocalQueueSize);
     }
 
+    /**
+     * Create a IsolationReactorMtImpl which runs on a named thread pool.
+     *
+     * @param _parentReactor         The parent reactor.
+     * @param _initialOutboxSize     The initial buffer size for outgoing messages.
+     * @param _initialLocalQueueSize The initial local queue size.
+     * @param _reactorThreadPoolName The name of the thread pool, or null.
+     */
+    public IsolationReactorMtImpl(final IsolationReactor _parentReactor,
+                                  final int _initialOutboxSize, final int _initialLocalQueueSize,
+                                  final String _reactorThreadPoolName) {
+        this(_parentReactor, _initialOutboxSize, _initialLocalQueueSize,
+                _reactorThreadPoolName, INHERITED_PRIORITY);
+    }
+
+    /**
+     * Create a IsolationReactorMtImpl which runs on a named thread pool with a given priority.
+     *
+     * @param _parentReactor         The parent reactor.
+     * @param _initialOutboxSize     The initial buffer size for outgoing messages.
+     * @param _initialLocalQueueSize The initial local queue size.
+     * @param _reactorThreadPoolName The name of the thread pool, or null.
+     * @param _priority              The priority, or INHERITED_PRIORITY.
+     */
+    public IsolationReactorMtImpl(final IsolationReactor _parentReactor,
+                                  final int _initialOutboxSize, final int _initialLocalQueueSize,
+                                  final String _reactorThreadPoolName, final int _priority) {
+        super(_parentReactor, _initialOutboxSize, _initialLocalQueueSize,
+                _reactorThreadPoolName, _priority);
+    }
+
     @Override
     public IsolationReactor asReactor() {
         return (IsolationReactor) getReactor();
@@ -36,7 +67,8 @@ public class IsolationReactorMtImpl extends PoolThreadReactorMtImpl {
 
     @Override
     protected Inbox createInbox(final int _initialLocalQueueSize) {
-        return new IsolationInbox(_initialLocalQueueSize);
+        return new IsolationInbox(_initialLocalQueueSize,
+                createConcurrentQueue());
     }
 
     @Override
@@ -0,0 +1,160 @@
+package org.agilewiki.jactor2.core.impl.mtReactors;
+
+import org.agilewiki.jactor2.core.impl.mtMessages.RequestMtImpl;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * An inbox which sorts its messages into lanes: responses, signals and new requests.
+ * Used in place of CommonInbox when a reactor has inbox lane weights.
+ * <p>
+ * Messages are taken in rounds. Each round takes up to the weight of each lane
+ * in messages from that lane, responses first, then signals and then new requests.
+ * So a response which completes an in-flight request is not held up behind a backlog
+ * of new requests, while new requests are still processed under a steady stream
+ * of responses.
+ * </p>
+ * <p>
+ * Within a lane, messages are processed in the order received.
+ * Messages passed from other threads are moved into the lanes as they are polled.
+ * </p>
+ */
+public class LaneInbox extends Inbox {
+
+    /**
+     * The messages of each lane.
+     */
+    private final ArrayDeque<RequestMtImpl<?>>[] lanes;
+
+    /**
+     * The maximum number of messages taken from each lane per round.
+     */
+    private final int[] weights;
+
+    /**
+     * The number of messages which may still be taken from each lane this round.
+     */
+    private final int[] credits = new int[LANES];
+
+    /**
+     * Creates a LaneInbox.
+     *
+     * @param initialLocalQueueSize The initial size of each lane.
+     * @param _concurrentQueue      The queue for messages passed from other threads.
+     * @param _weights              The weight of the response, signal and request lanes.
+     */
+    @SuppressWarnings("unchecked")
+    public LaneInbox(final int initialLocalQueueSize,
+            final Queue<Object> _concurrentQueue, final int[] _weights) {
+        validateWeights(_weights);
+        concurrentQueue = _concurrentQueue;
+        weights = _weights.clone();
+        lanes = new ArrayDeque[LANES];
+        for (int i = 0; i < LANES; i++) {
+            lanes[i] = new ArrayDeque<RequestMtImpl<?>>(initialLocalQueueSize);
+        }
+    }
+
+    /**
+     * Checks that there is a positive weight for each lane.
+     *
+     * @param _weights The weight of the response, signal and request lanes.
+     */
+    public static void validateWeights(final int[] _weights) {
+        if (_weights.length != LANES) {
+            throw new IllegalArgumentException("there must be " + LANES
+                    + " lane weights");
+        }
+        for (final int weight : _weights) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("lane weights must be positive");
+            }
+        }
+    }
+
+    /**
+     * Returns the number of messages held in a lane,
+     * not counting those not yet taken from the concurrent queue.
+     * (This method is not thread safe and must be called on the targetReactor's thread.)
+     *
+     * @param _lane RESPONSE_LANE, SIGNAL_LANE or REQUEST_LANE.
+     * @return The number of messages in the lane.
+     */
+    public int getLaneSize(final int _lane) {
+        return lanes[_lane].size();
+    }
+
+    @Override
+    public boolean hasWork() {
+        for (final ArrayDeque<RequestMtImpl<?>> lane : lanes) {
+            if (!lane.isEmpty()) {
+                return true;
+            }
+        }
+        return concurrentQueue.peek() != null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !hasWork();
+    }
+
+    @Override
+    public boolean isIdle() {
+        return !hasWork();
+    }
+
+    @Override
+    protected void offerLocal(final RequestMtImpl<?> msg) {
+        lanes[lane(msg)].offer(msg);
+    }
+
+    /**
+     * Moves the messages passed from other threads into the lanes.
+     */
+    private void sort() {
+        while (true) {
+            final Object obj = pollConcurrent();
+            if (obj == null) {
+                return;
+            }
+            if (obj instanceof RequestMtImpl) {
+                offerLocal((RequestMtImpl<?>) obj);
+            } else {
+                @SuppressWarnings("unchecked")
+                final Queue<RequestMtImpl<?>> msgs = (Queue<RequestMtImpl<?>>) obj;
+                while (true) {
+                    final RequestMtImpl<?> msg = msgs.poll();
+                    if (msg == null) {
+                        break;
+                    }
+                    offerLocal(msg);
+                }
+                MessageBlock.recycle(msgs);
+            }
+        }
+    }
+
+    @Override
+    protected RequestMtImpl<?> pollMessage() {
+        sort();
+        for (int i = 0; i < LANES; i++) {
+            if ((credits[i] > 0) && !lanes[i].isEmpty()) {
+                credits[i] -= 1;
+                return lanes[i].poll();
+            }
+        }
+        // Nothing left that this round may take, so start the next round.
+        for (int i = 0; i < LANES; i++) {
+            credits[i] = weights[i];
+        }
+        for (int i = 0; i < LANES; i++) {
+            if (!lanes[i].isEmpty()) {
+                credits[i] -= 1;
+                return lanes[i].poll();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package org.agilewiki.jactor2.core.impl.mtReactors;
+
+import org.agilewiki.jactor2.core.impl.mtMessages.RequestMtImpl;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * A send buffer, holding messages all destined for the same reactor.
+ * A message block is passed as a whole to the target's inbox,
+ * and once the inbox has taken all its messages the block is returned
+ * to the outbox which filled it, to be reused.
+ */
+public class MessageBlock extends ArrayDeque<RequestMtImpl<?>> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The outbox which reuses this block.
+     */
+    private final transient Outbox owner;
+
+    /**
+     * Links the block into a list of free blocks.
+     */
+    transient MessageBlock next;
+
+    /**
+     * True when the block is destined for an IsolationInbox,
+     * so its messages are classified as they are added.
+     */
+    transient boolean forIsolation;
+
+    /**
+     * The number of messages classified.
+     */
+    transient int classified;
+
+    /**
+     * The number of messages classified which do not wait for the request being
+     * processed by an isolation reactor to be completed.
+     */
+    transient int noResponsePending;
+
+    /**
+     * Create a MessageBlock.
+     *
+     * @param _owner       The outbox which reuses this block.
+     * @param _initialSize The initial capacity of the block.
+     */
+    public MessageBlock(final Outbox _owner, final int _initialSize) {
+        super(_initialSize);
+        owner = _owner;
+    }
+
+    /**
+     * Returns the block to its outbox. Thread safe.
+     * The block must no longer be referenced by the caller.
+     */
+    public void recycle() {
+        clear();
+        forIsolation = false;
+        classified = 0;
+        noResponsePending = 0;
+        owner.recycle(this);
+    }
+
+    /**
+     * Returns a drained block of messages to its outbox,
+     * if it is a MessageBlock.
+     *
+     * @param _messages A block of messages which is no longer needed.
+     */
+    public static void recycle(final Queue<?> _messages) {
+        if (_messages instanceof MessageBlock) {
+            ((MessageBlock) _messages).recycle();
+        }
+    }
+}
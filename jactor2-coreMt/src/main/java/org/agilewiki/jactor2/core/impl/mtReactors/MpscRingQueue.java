@@ -0,0 +1,206 @@
+package org.agilewiki.jactor2.core.impl.mtReactors;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A pre-sized multi-producer/single-consumer queue backed by an array ring buffer,
+ * used as the concurrent queue of an inbox in place of a ConcurrentLinkedQueue.
+ * <p>
+ * Any thread may offer, but only the thread running the reactor may poll.
+ * Each slot carries a sequence number, so producers claim a slot with a single CAS
+ * and no node is allocated per message.
+ * </p>
+ * <p>
+ * When the ring is full, messages spill over into an unbounded linked queue,
+ * so a producer never blocks or loses a message. While there is anything in the spill
+ * queue, new messages are added to it as well, so the messages from any one producer
+ * are still received in the order sent.
+ * </p>
+ *
+ * @param <E> The type of element held.
+ */
+public class MpscRingQueue<E> extends AbstractQueue<E> {
+
+    /**
+     * The ring buffer.
+     */
+    private final AtomicReferenceArray<E> buffer;
+
+    /**
+     * The sequence number of each slot. A slot can be written when its
+     * sequence number equals the tail, and read when it equals the head + 1.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * Capacity - 1, the capacity being a power of 2.
+     */
+    private final int mask;
+
+    /**
+     * The position of the next slot to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The position of the next slot to be read by the consumer.
+     * Only updated by the consumer.
+     */
+    private volatile long head;
+
+    /**
+     * Holds the messages which did not fit in the ring.
+     */
+    private final ConcurrentLinkedQueue<E> spill = new ConcurrentLinkedQueue<E>();
+
+    /**
+     * The number of elements which were added to the spill queue.
+     */
+    private final AtomicLong spillCount = new AtomicLong();
+
+    /**
+     * Create an MpscRingQueue.
+     *
+     * @param _capacity The number of slots, rounded up to a power of 2.
+     */
+    public MpscRingQueue(final int _capacity) {
+        if (_capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        int capacity = 1;
+        while (capacity < _capacity) {
+            capacity <<= 1;
+        }
+        mask = capacity - 1;
+        buffer = new AtomicReferenceArray<E>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Returns the number of slots in the ring.
+     *
+     * @return The capacity of the ring.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the number of elements which did not fit in the ring.
+     *
+     * @return The number of elements added to the spill queue.
+     */
+    public long getSpillCount() {
+        return spillCount.get();
+    }
+
+    /**
+     * Inserts an element. Thread safe.
+     *
+     * @param _element The element.
+     * @return True.
+     */
+    @Override
+    public boolean offer(final E _element) {
+        if (_element == null) {
+            throw new NullPointerException();
+        }
+        if ((spill.peek() == null) && offerRing(_element)) {
+            return true;
+        }
+        spillCount.incrementAndGet();
+        return spill.offer(_element);
+    }
+
+    /**
+     * Inserts an element into the ring, if there is room.
+     *
+     * @param _element The element.
+     * @return True when the element was added, false when the ring was full.
+     */
+    private boolean offerRing(final E _element) {
+        while (true) {
+            final long t = tail.get();
+            final int index = (int) t & mask;
+            final long sequence = sequences.get(index);
+            if (sequence == t) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    // The ordered store of the sequence publishes the element.
+                    buffer.lazySet(index, _element);
+                    sequences.lazySet(index, t + 1);
+                    return true;
+                }
+            } else if (sequence < t) {
+                return false;
+            }
+            // Another producer claimed the slot, so try the next one.
+        }
+    }
+
+    /**
+     * Retrieves and removes the next element.
+     * Must only be called by the consumer.
+     *
+     * @return The next element, or null.
+     */
+    @Override
+    public E poll() {
+        final long h = head;
+        final int index = (int) h & mask;
+        if (sequences.get(index) != (h + 1)) {
+            return spill.poll();
+        }
+        final E element = buffer.get(index);
+        buffer.lazySet(index, null);
+        head = h + 1;
+        sequences.lazySet(index, h + mask + 1);
+        return element;
+    }
+
+    /**
+     * Retrieves, but does not remove, the next element.
+     * Thread safe, though the element may be removed by the consumer at any time.
+     *
+     * @return The next element, or null.
+     */
+    @Override
+    public E peek() {
+        while (true) {
+            final long h = head;
+            final int index = (int) h & mask;
+            if (sequences.get(index) != (h + 1)) {
+                if (h == head) {
+                    return spill.peek();
+                }
+                continue;
+            }
+            final E element = buffer.get(index);
+            if ((element != null) && (h == head)) {
+                return element;
+            }
+            // The consumer has moved on, so look again.
+        }
+    }
+
+    @Override
+    public int size() {
+        final long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, mask + 1)) + spill.size();
+    }
+
+    /**
+     * Not supported, as iterating over the ring would race with the producers.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        throw new UnsupportedOperationException();
+    }
+}
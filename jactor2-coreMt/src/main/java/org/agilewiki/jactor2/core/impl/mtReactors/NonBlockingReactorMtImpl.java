@@ -20,6 +20,37 @@ public class NonBlockingReactorMtImpl extends PoolThreadReactorMtImpl {
         super(_parentReactor, _initialOutboxSize, _initialLocalQueueSize);
     }
 
+    /**
+     * Create a NonBlockingReactorMtImpl which runs on a named thread pool.
+     *
+     * @param _parentReactor         The parent reactor.
+     * @param _initialOutboxSize     The initial buffer size for outgoing messages.
+     * @param _initialLocalQueueSize The initial local queue size.
+     * @param _reactorThreadPoolName The name of the thread pool, or null.
+     */
+    public NonBlockingReactorMtImpl(final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName) {
+        this(_parentReactor, _initialOutboxSize, _initialLocalQueueSize,
+                _reactorThreadPoolName, INHERITED_PRIORITY);
+    }
+
+    /**
+     * Create a NonBlockingReactorMtImpl which runs on a named thread pool with a given priority.
+     *
+     * @param _parentReactor         The parent reactor.
+     * @param _initialOutboxSize     The initial buffer size for outgoing messages.
+     * @param _initialLocalQueueSize The initial local queue size.
+     * @param _reactorThreadPoolName The name of the thread pool, or null.
+     * @param _priority              The priority, or INHERITED_PRIORITY.
+     */
+    public NonBlockingReactorMtImpl(final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName, final int _priority) {
+        super(_parentReactor, _initialOutboxSize, _initialLocalQueueSize,
+                _reactorThreadPoolName, _priority);
+    }
+
     @Override
     public NonBlockingReactor asReactor() {
         return (NonBlockingReactor) getReactor();
@@ -27,6 +58,6 @@ public class NonBlockingReactorMtImpl extends PoolThreadReactorMtImpl {
 
     @Override
     protected Inbox createInbox(final int _initialLocalQueueSize) {
-        return new CommonInbox(_initialLocalQueueSize);
+        return createCommonInbox(_initialLocalQueueSize);
     }
 }
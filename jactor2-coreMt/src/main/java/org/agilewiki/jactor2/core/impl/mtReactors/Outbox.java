@@ -2,14 +2,22 @@ package org.agilewiki.jactor2.core.impl.mtReactors;
 
 import org.agilewiki.jactor2.core.impl.mtMessages.RequestMtImpl;
 
-import java.util.ArrayDeque;
 import java.util.IdentityHashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * An outbox holds a collection of send buffers.
  * Each send buffer holds one or more messages, all destined for the same reactor.
+ * <p>
+ * Send buffers are message blocks, which are returned to the outbox by the inbox
+ * of the target once drained. So once an outbox has as many blocks as it has
+ * blocks in flight, buffering and flushing messages allocates nothing.
+ * </p>
+ * <p>
+ * Only the thread running the reactor which owns the outbox may buffer or flush
+ * messages, but any thread may return a block.
+ * </p>
  */
 public class Outbox implements AutoCloseable {
 
@@ -19,9 +27,40 @@ public class Outbox implements AutoCloseable {
     private final int initialBufferSize;
 
     /**
-     * A table of outboxes, one for each unique message destination.
+     * The send buffer of each unique message destination.
      */
-    private Map<ReactorMtImpl, ArrayDeque<RequestMtImpl<?>>> sendBuffer;
+    private Map<ReactorMtImpl, MessageBlock> sendBuffer;
+
+    /**
+     * The message destinations, in the order their send buffers were created.
+     */
+    private ReactorMtImpl[] targets = new ReactorMtImpl[4];
+
+    /**
+     * The send buffers, in the order they were created.
+     */
+    private MessageBlock[] blocks = new MessageBlock[4];
+
+    /**
+     * The number of send buffers.
+     */
+    private int size;
+
+    /**
+     * Blocks ready for reuse, linked by MessageBlock.next.
+     */
+    private MessageBlock freeBlocks;
+
+    /**
+     * Blocks returned by other threads, linked by MessageBlock.next.
+     * Any thread may push a block, but only the owning thread takes them.
+     */
+    private final AtomicReference<MessageBlock> returnedBlocks = new AtomicReference<MessageBlock>();
+
+    /**
+     * The number of blocks created.
+     */
+    private long createdBlockCount;
 
     /**
      * Create an Outbox
@@ -33,15 +72,103 @@ public class Outbox implements AutoCloseable {
     }
 
     /**
-     * Returns an iterator of the send buffers held by the outbox.
+     * Returns true when no messages are buffered.
      *
-     * @return An iterator of the send buffers held by the outbox.
+     * @return True when there are no send buffers.
      */
-    public Iterator<Map.Entry<ReactorMtImpl, ArrayDeque<RequestMtImpl<?>>>> getIterator() {
-        if (sendBuffer == null) {
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the destination of the last send buffer.
+     *
+     * @return The destination of the send buffer returned by pollBlock, or null.
+     */
+    public ReactorMtImpl peekTarget() {
+        if (size == 0) {
+            return null;
+        }
+        return targets[size - 1];
+    }
+
+    /**
+     * Removes and returns the last send buffer.
+     * Once drained, the block is to be returned by calling its recycle method.
+     *
+     * @return The send buffer of the destination returned by peekTarget, or null.
+     */
+    public MessageBlock pollBlock() {
+        if (size == 0) {
             return null;
         }
-        return sendBuffer.entrySet().iterator();
+        size -= 1;
+        final ReactorMtImpl target = targets[size];
+        final MessageBlock block = blocks[size];
+        targets[size] = null;
+        blocks[size] = null;
+        sendBuffer.remove(target);
+        return block;
+    }
+
+    /**
+     * Returns the number of messages buffered for a destination.
+     *
+     * @param _target The destination.
+     * @return The number of messages buffered.
+     */
+    public int getBufferSize(final ReactorMtImpl _target) {
+        final MessageBlock block = find(_target);
+        return block == null ? 0 : block.size();
+    }
+
+    /**
+     * Removes and returns the send buffer of a destination.
+     * Once drained, the block is to be returned by calling its recycle method.
+     *
+     * @param _target The destination.
+     * @return The send buffer, or null.
+     */
+    public MessageBlock pollBlock(final ReactorMtImpl _target) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (targets[i] == _target) {
+                final MessageBlock block = blocks[i];
+                size -= 1;
+                targets[i] = targets[size];
+                blocks[i] = blocks[size];
+                targets[size] = null;
+                blocks[size] = null;
+                sendBuffer.remove(_target);
+                return block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the send buffer of a destination.
+     *
+     * @param _target The destination.
+     * @return The send buffer, or null.
+     */
+    private MessageBlock find(final ReactorMtImpl _target) {
+        if (size == 0) {
+            return null;
+        }
+        if (targets[size - 1] == _target) {
+            return blocks[size - 1];
+        }
+        return sendBuffer.get(_target);
+    }
+
+    /**
+     * Returns the number of message blocks created by this outbox,
+     * which stops increasing once there are enough blocks for reuse.
+     *
+     * @return The number of message blocks created.
+     */
+    public long getCreatedBlockCount() {
+        return createdBlockCount;
     }
 
     /**
@@ -56,37 +183,83 @@ public class Outbox implements AutoCloseable {
         if (_target.isClosing()) {
             return false;
         }
-        ArrayDeque<RequestMtImpl<?>> buffer = null;
         if (sendBuffer == null) {
-            sendBuffer = new IdentityHashMap<ReactorMtImpl, ArrayDeque<RequestMtImpl<?>>>();
-        } else {
-            buffer = sendBuffer.get(_target);
+            sendBuffer = new IdentityHashMap<ReactorMtImpl, MessageBlock>();
         }
+        MessageBlock buffer = find(_target);
         if (buffer == null) {
-            buffer = new ArrayDeque<RequestMtImpl<?>>(initialBufferSize);
+            buffer = takeBlock();
+            buffer.forIsolation = _target.inbox instanceof IsolationInbox;
             sendBuffer.put(_target, buffer);
+            if (size == targets.length) {
+                final int length = size << 1;
+                final ReactorMtImpl[] newTargets = new ReactorMtImpl[length];
+                final MessageBlock[] newBlocks = new MessageBlock[length];
+                System.arraycopy(targets, 0, newTargets, 0, size);
+                System.arraycopy(blocks, 0, newBlocks, 0, size);
+                targets = newTargets;
+                blocks = newBlocks;
+            }
+            targets[size] = _target;
+            blocks[size] = buffer;
+            size += 1;
         }
         buffer.add(_message);
+        if (buffer.forIsolation) {
+            // Classified while the message is still in the sender's cache.
+            buffer.classified++;
+            if (IsolationInbox.isNoResponsePending(_message)) {
+                buffer.noResponsePending++;
+            }
+        }
         return true;
     }
 
+    /**
+     * Returns a free block, creating one only when none have been returned.
+     *
+     * @return An empty block.
+     */
+    private MessageBlock takeBlock() {
+        MessageBlock block = freeBlocks;
+        if (block == null) {
+            block = returnedBlocks.getAndSet(null);
+            if (block == null) {
+                createdBlockCount += 1;
+                return new MessageBlock(this, initialBufferSize);
+            }
+        }
+        freeBlocks = block.next;
+        block.next = null;
+        return block;
+    }
+
+    /**
+     * Returns a block for reuse. Thread safe.
+     *
+     * @param _block An empty block created by this outbox.
+     */
+    void recycle(final MessageBlock _block) {
+        while (true) {
+            final MessageBlock head = returnedBlocks.get();
+            _block.next = head;
+            if (returnedBlocks.compareAndSet(head, _block)) {
+                return;
+            }
+        }
+    }
+
     /**
      * Forwards all the buffered messages.
      */
     @Override
     public void close() {
-        final Iterator<Map.Entry<ReactorMtImpl, ArrayDeque<RequestMtImpl<?>>>> iter = getIterator();
-        if (iter != null) {
-            while (iter.hasNext()) {
-                final Map.Entry<ReactorMtImpl, ArrayDeque<RequestMtImpl<?>>> entry = iter
-                        .next();
-                final ReactorMtImpl target = entry.getKey();
-                final ArrayDeque<RequestMtImpl<?>> messages = entry.getValue();
-                iter.remove();
-                try {
-                    target.unbufferedAddMessages(messages);
-                } catch (final Exception x) {
-                }
+        while (size > 0) {
+            final ReactorMtImpl target = peekTarget();
+            final MessageBlock messages = pollBlock();
+            try {
+                target.unbufferedAddMessages(messages);
+            } catch (final Exception x) {
             }
         }
         sendBuffer = null;
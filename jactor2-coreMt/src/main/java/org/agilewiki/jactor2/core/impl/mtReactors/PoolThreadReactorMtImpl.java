@@ -1,16 +1,27 @@
 package org.agilewiki.jactor2.core.impl.mtReactors;
 
-import org.agilewiki.jactor2.core.impl.mtMessages.RequestMtImpl;
+import org.agilewiki.jactor2.core.impl.mtPlant.MigrationPolicy;
 import org.agilewiki.jactor2.core.impl.mtPlant.PlantMtImpl;
 import org.agilewiki.jactor2.core.impl.mtPlant.ReactorPoolThread;
+import org.agilewiki.jactor2.core.impl.mtPlant.ReactorPoolThreadManager;
 import org.agilewiki.jactor2.core.reactors.IsolationReactor;
 import org.agilewiki.jactor2.core.reactors.impl.PoolThreadReactorImpl;
 
-import java.util.ArrayDeque;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Base class for the reactors which are run by a ReactorPoolThreadManager.
+ * <p>
+ * A pool thread reactor is idle, scheduled (held by a run queue) or running
+ * (its threadReference is set). A reactor is placed in a run queue at most once
+ * until a pool thread takes it from the queue, so messages arriving while
+ * the reactor is waiting for a thread do not cause additional wakeups.
+ * A reactor can be both scheduled and running when a thread migrates to it,
+ * in which case the thread which later takes it from the run queue
+ * simply drops it.
+ * </p>
+ */
 abstract public class PoolThreadReactorMtImpl extends ReactorMtImpl implements
         PoolThreadReactorImpl {
     private static volatile int nextHash;
@@ -20,6 +31,60 @@ abstract public class PoolThreadReactorMtImpl extends ReactorMtImpl implements
     /** Our hashcode. */
     private final int hashCode = nextHash++;
 
+    /**
+     * The name of the thread pool assigned to this reactor, or null.
+     */
+    private final String reactorThreadPoolName;
+
+    /**
+     * The thread pool used to run this reactor.
+     */
+    private final ReactorPoolThreadManager reactorPoolThreadManager;
+
+    /**
+     * The priority with which this reactor is picked from a run queue.
+     */
+    private final int priority;
+
+    /**
+     * True while this reactor is held by a run queue.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * The pool index of the thread which last ran this reactor, or -1.
+     */
+    private volatile int lastPoolIndex = -1;
+
+    /**
+     * Decides when a thread migrates to the target of a flush.
+     */
+    private volatile MigrationPolicy migrationPolicy;
+
+    /**
+     * The average number of destinations per flush, scaled by 256.
+     * Only updated by the thread running this reactor.
+     */
+    private volatile int recentFanOut;
+
+    /**
+     * The number of times a thread has migrated from this reactor.
+     * Only updated by the thread running this reactor.
+     */
+    private volatile long migrationsOut;
+
+    /**
+     * The number of times a thread has migrated to this reactor.
+     * Only updated by the thread which has just acquired this reactor.
+     */
+    private volatile long migrationsIn;
+
+    /**
+     * The number of times the migration policy declined a migration from this reactor.
+     * Only updated by the thread running this reactor.
+     */
+    private volatile long declinedMigrations;
+
     /**
      * Create an PoolThreadReactorMtImpl.
      *
@@ -29,7 +94,172 @@ abstract public class PoolThreadReactorMtImpl extends ReactorMtImpl implements
      */
     public PoolThreadReactorMtImpl(final IsolationReactor _parentReactor,
             final int _initialOutboxSize, final int _initialLocalQueueSize) {
+        this(_parentReactor, _initialOutboxSize, _initialLocalQueueSize, null,
+                INHERITED_PRIORITY);
+    }
+
+    /**
+     * Create an PoolThreadReactorMtImpl which runs on a named thread pool.
+     *
+     * @param _parentReactor         The parent reactor.
+     * @param _initialOutboxSize     The initial buffer size for outgoing messages.
+     * @param _initialLocalQueueSize The initial local queue size.
+     * @param _reactorThreadPoolName The name of a thread pool declared by the PlantConfiguration,
+     *                               or null to use the thread pool of the parent reactor.
+     * @param _priority              LOW_PRIORITY, NORMAL_PRIORITY, HIGH_PRIORITY,
+     *                               or INHERITED_PRIORITY to use the priority of the parent reactor.
+     */
+    public PoolThreadReactorMtImpl(final IsolationReactor _parentReactor,
+            final int _initialOutboxSize, final int _initialLocalQueueSize,
+            final String _reactorThreadPoolName, final int _priority) {
         super(_parentReactor, _initialOutboxSize, _initialLocalQueueSize);
+        final PoolThreadReactorMtImpl parentReactorImpl = _parentReactor == null ? null
+                : (PoolThreadReactorMtImpl) _parentReactor.asReactorImpl();
+        if ((_reactorThreadPoolName == null) && (parentReactorImpl != null)) {
+            reactorThreadPoolName = parentReactorImpl.getReactorThreadPoolName();
+        } else {
+            reactorThreadPoolName = _reactorThreadPoolName;
+        }
+        if (_priority == INHERITED_PRIORITY) {
+            priority = parentReactorImpl == null ? NORMAL_PRIORITY
+                    : parentReactorImpl.getPriority();
+        } else if ((_priority < LOW_PRIORITY) || (_priority > HIGH_PRIORITY)) {
+            throw new IllegalArgumentException("invalid priority: " + _priority);
+        } else {
+            priority = _priority;
+        }
+        migrationPolicy = parentReactorImpl == null ? PlantMtImpl
+                .getSingleton().getPlantConfiguration().getMigrationPolicy()
+                : parentReactorImpl.getMigrationPolicy();
+        reactorPoolThreadManager = PlantMtImpl.getSingleton()
+                .getReactorPoolThreadManager(reactorThreadPoolName, isSlow());
+    }
+
+    /**
+     * Returns the pool index of the thread which last ran this reactor.
+     *
+     * @return The pool index, or -1 when the reactor has not yet been run.
+     */
+    public int getLastPoolIndex() {
+        return lastPoolIndex;
+    }
+
+    /**
+     * Records the pool index of the thread which is running this reactor.
+     *
+     * @param _lastPoolIndex The pool index of the current thread.
+     */
+    public void setLastPoolIndex(final int _lastPoolIndex) {
+        lastPoolIndex = _lastPoolIndex;
+    }
+
+    /**
+     * Returns the policy which decides when a thread migrates to the target of a flush.
+     *
+     * @return The migration policy.
+     */
+    public MigrationPolicy getMigrationPolicy() {
+        return migrationPolicy;
+    }
+
+    /**
+     * Replaces the migration policy.
+     * Reactors created afterwards with this reactor as their parent inherit the policy.
+     *
+     * @param _migrationPolicy The migration policy.
+     */
+    public void setMigrationPolicy(final MigrationPolicy _migrationPolicy) {
+        if (_migrationPolicy == null) {
+            throw new IllegalArgumentException("migrationPolicy may not be null");
+        }
+        migrationPolicy = _migrationPolicy;
+    }
+
+    /**
+     * Returns the recent average number of reactors this reactor sends
+     * messages to when its outbox is flushed.
+     *
+     * @return The recent fan-out.
+     */
+    public double getRecentFanOut() {
+        return recentFanOut / 256.0;
+    }
+
+    /**
+     * Returns the number of times a thread has migrated from this reactor
+     * to the target of a flush.
+     *
+     * @return The approximate number of migrations out.
+     */
+    public long getMigrationsOut() {
+        return migrationsOut;
+    }
+
+    /**
+     * Returns the number of times a thread has migrated to this reactor.
+     *
+     * @return The approximate number of migrations in.
+     */
+    public long getMigrationsIn() {
+        return migrationsIn;
+    }
+
+    /**
+     * Returns the number of times the migration policy kept a thread
+     * from migrating from this reactor.
+     *
+     * @return The approximate number of declined migrations.
+     */
+    public long getDeclinedMigrations() {
+        return declinedMigrations;
+    }
+
+    /**
+     * Returns the name of the thread pool assigned to this reactor.
+     *
+     * @return The name of the thread pool, or null when the default is used.
+     */
+    public String getReactorThreadPoolName() {
+        return reactorThreadPoolName;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the thread pool used to run this reactor.
+     *
+     * @return The reactor pool thread manager.
+     */
+    public ReactorPoolThreadManager getReactorPoolThreadManager() {
+        return reactorPoolThreadManager;
+    }
+
+    /**
+     * Submit this reactor for execution, unless it is already in a run queue.
+     */
+    public void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            boolean submitted = false;
+            try {
+                submitted = PlantMtImpl.getSingleton().submit(this);
+            } finally {
+                if (!submitted) {
+                    // The reactor is not in a run queue, so it may be scheduled again.
+                    scheduled.set(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called by the pool thread which has taken this reactor from a run queue.
+     * Must be called before attempting to assign the threadReference.
+     */
+    public void unschedule() {
+        scheduled.set(false);
     }
 
     /** Redefines the hashcode for a faster hashing. */
@@ -56,6 +286,22 @@ abstract public class PoolThreadReactorMtImpl extends ReactorMtImpl implements
         flush(true);
     }
 
+    /**
+     * Flushes the outbox without migrating, so that the reactor can be
+     * placed back in the run queue behind the other reactors waiting for a thread.
+     *
+     * @return True.
+     */
+    @Override
+    protected boolean yieldQuantum() {
+        try {
+            flush(false);
+        } catch (final Exception e) {
+            logger.error("Exception thrown by flush", e);
+        }
+        return true;
+    }
+
     @Override
     protected void afterAdd() {
         if (threadReference == null) {
@@ -75,7 +321,7 @@ abstract public class PoolThreadReactorMtImpl extends ReactorMtImpl implements
             throw new NullPointerException();
         }
         if (threadReference.get() == null) {
-            PlantMtImpl.getSingleton().submit(this);
+            schedule();
         }
     }
 
@@ -88,33 +334,43 @@ abstract public class PoolThreadReactorMtImpl extends ReactorMtImpl implements
      */
     protected boolean flush(final boolean _mayMigrate) throws Exception {
         boolean result = false;
-        final Iterator<Map.Entry<ReactorMtImpl, ArrayDeque<RequestMtImpl<?>>>> iter = outbox
-                .getIterator();
-        if (iter != null) {
-            while (iter.hasNext()) {
+        if (!outbox.isEmpty()) {
+            int destinations = 0;
+            while (!outbox.isEmpty()) {
                 result = true;
-                final Map.Entry<ReactorMtImpl, ArrayDeque<RequestMtImpl<?>>> entry = iter
-                        .next();
-                final ReactorMtImpl target = entry.getKey();
-                final ArrayDeque<RequestMtImpl<?>> messages = entry.getValue();
-                iter.remove();
-                if (!iter.hasNext() && _mayMigrate
+                destinations += 1;
+                final ReactorMtImpl target = outbox.peekTarget();
+                final MessageBlock messages = outbox.pollBlock();
+                final boolean last = outbox.isEmpty();
+                if (last) {
+                    // A moving average, weighing the latest flush by 1/8
+                    // and starting with the first.
+                    final int fanOut = recentFanOut;
+                    recentFanOut = fanOut == 0 ? destinations << 8
+                            : fanOut + (((destinations << 8) - fanOut) >> 3);
+                }
+                if (last && _mayMigrate
                         && (target instanceof PoolThreadReactorImpl)) {
-                    if (!target.isRunning()) {
+                    final PoolThreadReactorMtImpl targ = (PoolThreadReactorMtImpl) target;
+                    if (!target.isRunning()
+                            && (targ.reactorPoolThreadManager == reactorPoolThreadManager)) {
                         final ReactorPoolThread currentThread = (ReactorPoolThread) threadReference.get();
                         if (currentThread.checkMigrationCount()) {
-                            final PoolThreadReactorMtImpl targ = (PoolThreadReactorMtImpl) target;
-                            final AtomicReference<Thread> targetThreadReference = targ
-                                    .getThreadReference();
-                            if ((targetThreadReference.get() == null)
-                                    && targetThreadReference.compareAndSet(null,
-                                    currentThread)) {
-                                while (!messages.isEmpty()) {
-                                    final RequestMtImpl<?> m = messages.poll();
-                                    targ.unbufferedAddMessage(m, true);
+                            if (!migrationPolicy.mayMigrate(this, targ,
+                                    messages.size())) {
+                                declinedMigrations++;
+                            } else {
+                                final AtomicReference<Thread> targetThreadReference = targ
+                                        .getThreadReference();
+                                if ((targetThreadReference.get() == null)
+                                        && targetThreadReference.compareAndSet(null,
+                                        currentThread)) {
+                                    targ.unbufferedAddLocalMessages(messages);
+                                    currentThread.incMigrationCount();
+                                    migrationsOut++;
+                                    targ.migrationsIn++;
+                                    throw new MigrationException(targ);
                                 }
-                                currentThread.incMigrationCount();
-                                throw new MigrationException(targ);
                             }
                         }
                     }
@@ -8,6 +8,7 @@ import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
 import org.agilewiki.jactor2.core.impl.mtPlant.PlantMtImpl;
 import org.agilewiki.jactor2.core.impl.mtPlant.Recovery;
 import org.agilewiki.jactor2.core.impl.mtPlant.SchedulableSemaphore;
+import org.agilewiki.jactor2.core.messages.DeadlineExceededException;
 import org.agilewiki.jactor2.core.messages.ExceptionHandler;
 import org.agilewiki.jactor2.core.messages.SOp;
 import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
@@ -15,6 +16,8 @@ import org.agilewiki.jactor2.core.plant.impl.MetricsTimer;
 import org.agilewiki.jactor2.core.plant.impl.PlantImpl;
 import org.agilewiki.jactor2.core.plant.impl.PlantScheduler;
 import org.agilewiki.jactor2.core.reactors.CommonReactor;
+import org.agilewiki.jactor2.core.reactors.InboxFullException;
+import org.agilewiki.jactor2.core.reactors.InboxLane;
 import org.agilewiki.jactor2.core.reactors.IsolationReactor;
 import org.agilewiki.jactor2.core.reactors.Reactor;
 import org.agilewiki.jactor2.core.reactors.ReactorClosedException;
@@ -26,6 +29,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicReference;
 
 abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
@@ -106,6 +111,81 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
 
     private String reason;
 
+    /**
+     * The maximum number of messages processed per activation, or 0.
+     */
+    private volatile int messageQuantum;
+
+    /**
+     * The time budget per activation in microseconds, or 0.
+     */
+    private volatile long messageQuantumMicros;
+
+    /**
+     * The number of messages buffered for a target which causes them to be sent, or 0.
+     */
+    private volatile int outboxFlushThreshold;
+
+    /**
+     * How long messages are held in the outbox before being sent
+     * in microseconds, or 0.
+     */
+    private volatile long outboxFlushMicros;
+
+    /**
+     * When the outbox last went from empty to holding a message, per System.nanoTime.
+     */
+    private long outboxHeldSince;
+
+    /**
+     * The number of requests dropped as their deadline had passed.
+     */
+    private volatile long expiredRequestCount;
+
+    /**
+     * The number of slots in the ring buffer of the inbox, or 0 for a linked queue.
+     */
+    private volatile int inboxRingBufferSize;
+
+    /**
+     * The weights of the response, signal and request lanes of the inbox, or null.
+     */
+    private volatile int[] inboxLaneWeights;
+
+    /**
+     * The number of messages passed from other threads which the inbox holds
+     * before the overflow policy applies, or 0.
+     */
+    private volatile int inboxCapacity;
+
+    /**
+     * What is done with a request passed when the inbox is full.
+     */
+    private volatile InboxOverflowPolicy inboxOverflowPolicy;
+
+    /**
+     * The largest number of messages passed from other threads held by the inbox.
+     */
+    private volatile int inboxHighWaterMark;
+
+    /**
+     * True while this reactor is not to process messages,
+     * as it sent a request to a reactor whose inbox is full.
+     */
+    private volatile boolean deferred;
+
+    /**
+     * The reactors deferred by sending to this reactor when its inbox was full.
+     */
+    private final ConcurrentLinkedQueue<ReactorMtImpl> deferredSenders =
+            new ConcurrentLinkedQueue<ReactorMtImpl>();
+
+    /**
+     * The coalescing signals passed to this reactor which have not yet begun processing,
+     * by key. Created when first needed.
+     */
+    private volatile ConcurrentHashMap<Object, RequestMtImpl<?>> coalescedSignals;
+
     /**
      * Create a ReactorMtImpl instance.
      *
@@ -125,6 +205,31 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
                 : parentReactorImpl.getRecovery();
         plantScheduler = _parentReactor == null ? plantConfiguration
                 .getPlantScheduler() : parentReactorImpl.getPlantScheduler();
+        messageQuantum = _parentReactor == null ? plantConfiguration
+                .getMessageQuantum() : parentReactorImpl.getMessageQuantum();
+        messageQuantumMicros = _parentReactor == null ? plantConfiguration
+                .getMessageQuantumMicros() : parentReactorImpl
+                .getMessageQuantumMicros();
+        outboxFlushThreshold = _parentReactor == null ? plantConfiguration
+                .getOutboxFlushThreshold() : parentReactorImpl
+                .getOutboxFlushThreshold();
+        outboxFlushMicros = _parentReactor == null ? plantConfiguration
+                .getOutboxFlushMicros() : parentReactorImpl
+                .getOutboxFlushMicros();
+        inboxRingBufferSize = _parentReactor == null ? plantConfiguration
+                .getInboxRingBufferSize() : parentReactorImpl
+                .getInboxRingBufferSize();
+        final int[] laneWeights = _parentReactor == null ? plantConfiguration
+                .getInboxLaneWeights() : parentReactorImpl.getInboxLaneWeights();
+        if (laneWeights != null) {
+            LaneInbox.validateWeights(laneWeights);
+            inboxLaneWeights = laneWeights.clone();
+        }
+        inboxCapacity = _parentReactor == null ? plantConfiguration
+                .getInboxCapacity() : parentReactorImpl.getInboxCapacity();
+        inboxOverflowPolicy = _parentReactor == null ? plantConfiguration
+                .getInboxOverflowPolicy() : parentReactorImpl
+                .getInboxOverflowPolicy();
         initialBufferSize = _initialBufferSize;
         initialLocalQueueSize = _initialLocalQueueSize;
         parentReactor = _parentReactor;
@@ -144,6 +249,7 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
     public void initialize(final Reactor _reactor) throws Exception {
         super._initialize(_reactor);
         inbox = createInbox(initialLocalQueueSize);
+        inbox.setPlantScheduler(plantScheduler);
         outbox = new Outbox(initialBufferSize);
     }
 
@@ -286,6 +392,7 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
         }
 
         shuttingDown = true;
+        resumeDeferredSenders();
 
         final PlantMtImpl plantImpl = PlantMtImpl.getSingleton();
         if ((plantImpl != null) && isRunning()
@@ -342,6 +449,34 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
      */
     abstract protected Inbox createInbox(int _initialLocalQueueSize);
 
+    /**
+     * Create the inbox of a non-blocking, blocking or thread-bound reactor.
+     *
+     * @param _initialLocalQueueSize The initial number of slots in the local queue.
+     * @return A LaneInbox when there are inbox lane weights, otherwise a CommonInbox.
+     */
+    protected Inbox createCommonInbox(final int _initialLocalQueueSize) {
+        final int[] laneWeights = inboxLaneWeights;
+        if (laneWeights != null) {
+            return new LaneInbox(_initialLocalQueueSize,
+                    createConcurrentQueue(), laneWeights);
+        }
+        return new CommonInbox(_initialLocalQueueSize, createConcurrentQueue());
+    }
+
+    /**
+     * Create the queue used by the inbox for messages passed from other threads.
+     *
+     * @return An MpscRingQueue when the inbox ring buffer size is not 0,
+     * otherwise a ConcurrentLinkedQueue.
+     */
+    protected Queue<Object> createConcurrentQueue() {
+        if (inboxRingBufferSize > 0) {
+            return new MpscRingQueue<Object>(inboxRingBufferSize);
+        }
+        return new ConcurrentLinkedQueue<Object>();
+    }
+
     /**
      * Returns the message currently being processed.
      *
@@ -380,15 +515,44 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
     }
 
     /**
-     * Returns true when the inbox is not empty.
+     * Returns true when there are no more messages in the inbox.
      *
-     * @return True when the inbox is not empty.
+     * @return True when the inbox is empty.
      */
     @Override
     public final boolean isInboxEmpty() {
         return inbox.isEmpty();
     }
 
+    @Override
+    public int getInboxSize() {
+        return inbox.getSize();
+    }
+
+    @Override
+    public int getInboxSize(final InboxLane _lane) {
+        return inbox.getSize(_lane.ordinal());
+    }
+
+    @Override
+    public long getInboxAgeMillis() {
+        return inbox.getOldestAgeMillis((long) plantScheduler.currentTimeMillis());
+    }
+
+    @Override
+    public long getInboxEnqueuedCount() {
+        return inbox.getEnqueuedCount(Inbox.RESPONSE_LANE)
+                + inbox.getEnqueuedCount(Inbox.SIGNAL_LANE)
+                + inbox.getEnqueuedCount(Inbox.REQUEST_LANE);
+    }
+
+    @Override
+    public long getInboxDequeuedCount() {
+        return inbox.getDequeuedCount(Inbox.RESPONSE_LANE)
+                + inbox.getDequeuedCount(Inbox.SIGNAL_LANE)
+                + inbox.getDequeuedCount(Inbox.REQUEST_LANE);
+    }
+
     /**
      * Assign an exception handler.
      *
@@ -433,34 +597,234 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
             }
             return;
         }
+        if (!_local && (inboxCapacity > 0)
+                && !admit(_message, inbox.getConcurrentSize())) {
+            return;
+        }
         inbox.offer(_local, _message);
+        if (!_local) {
+            updateInboxHighWaterMark();
+        }
         afterAdd();
     }
 
+    /**
+     * Closes the incomplete messages of a block received while closing.
+     *
+     * @param _messages Previously buffered messages.
+     */
+    private void closeMessages(final Queue<RequestMtImpl<?>> _messages) {
+        final Iterator<RequestMtImpl<?>> itm = _messages.iterator();
+        while (itm.hasNext()) {
+            final RequestMtImpl<?> message = itm.next();
+            if (!message.isComplete()) {
+                try {
+                    message.close();
+                } catch (final Throwable t) {
+                }
+            }
+        }
+        MessageBlock.recycle(_messages);
+    }
+
     /**
      * Adds messages directly to the queue.
      *
      * @param _messages Previously buffered messages.
      */
-    public void unbufferedAddMessages(final Queue<RequestMtImpl<?>> _messages)
-            throws Exception {
+    public void unbufferedAddMessages(final Queue<RequestMtImpl<?>> _messages) {
         if (isClosing()) {
+            closeMessages(_messages);
+            return;
+        }
+        if (inboxCapacity > 0) {
+            final int depth = inbox.getConcurrentSize();
+            int admitted = 0;
             final Iterator<RequestMtImpl<?>> itm = _messages.iterator();
             while (itm.hasNext()) {
-                final RequestMtImpl<?> message = itm.next();
-                if (!message.isComplete()) {
-                    try {
-                        message.close();
-                    } catch (final Throwable t) {
-                    }
+                if (admit(itm.next(), depth + admitted)) {
+                    admitted++;
+                } else {
+                    itm.remove();
                 }
             }
-            return;
+            if (admitted == 0) {
+                MessageBlock.recycle(_messages);
+                return;
+            }
         }
         inbox.offer(_messages);
+        updateInboxHighWaterMark();
+        afterAdd();
+    }
+
+    /**
+     * Adds messages directly to the queue, using this reactor's own thread.
+     *
+     * @param _messages Previously buffered messages.
+     */
+    public void unbufferedAddLocalMessages(final Queue<RequestMtImpl<?>> _messages) {
+        if (isClosing()) {
+            closeMessages(_messages);
+            return;
+        }
+        inbox.offerLocal(_messages);
         afterAdd();
     }
 
+    /**
+     * Applies the inbox overflow policy to a message passed from another thread.
+     *
+     * @param _message The message.
+     * @param _depth   The number of messages passed from other threads held by the inbox.
+     * @return True when the message is to be added to the inbox.
+     */
+    private boolean admit(final RequestMtImpl<?> _message, final int _depth) {
+        if (_message.isComplete() || (_depth < inboxCapacity)) {
+            return true;
+        }
+        final InboxOverflowPolicy policy = inboxOverflowPolicy;
+        recovery.onInboxOverflow(this, _message, policy);
+        if (policy == InboxOverflowPolicy.DEFER) {
+            deferSender();
+            return true;
+        }
+        if (policy == InboxOverflowPolicy.DROP_OLDEST_SIGNAL) {
+            final RequestMtImpl<?> dropped = inbox.removeOldestSignal();
+            if (dropped != null) {
+                releaseCoalescedSignal(dropped);
+                return true;
+            }
+            if (_message.isSignal()) {
+                releaseCoalescedSignal(_message);
+                return false;
+            }
+        }
+        _message.reject(new InboxFullException("inbox full: " + this));
+        return false;
+    }
+
+    /**
+     * Registers a coalescing signal passed to this reactor. Thread safe.
+     *
+     * @param _signal A signal with a coalescing key.
+     * @return True when the signal is to be added to the inbox, false when
+     * a signal with an equal key is queued and has not yet begun processing.
+     */
+    public boolean coalesceSignal(final RequestMtImpl<?> _signal) {
+        ConcurrentHashMap<Object, RequestMtImpl<?>> signals = coalescedSignals;
+        if (signals == null) {
+            signals = createCoalescedSignals();
+        }
+        return signals.putIfAbsent(_signal.getCoalescingKey(), _signal) == null;
+    }
+
+    /**
+     * Creates the map of coalescing signals, unless another thread already has.
+     *
+     * @return The map of coalescing signals.
+     */
+    private synchronized ConcurrentHashMap<Object, RequestMtImpl<?>> createCoalescedSignals() {
+        if (coalescedSignals == null) {
+            coalescedSignals = new ConcurrentHashMap<Object, RequestMtImpl<?>>(16, 0.75f, 1);
+        }
+        return coalescedSignals;
+    }
+
+    /**
+     * Lets an equivalent signal be passed again, once a coalescing signal
+     * begins processing or is dropped. Thread safe.
+     *
+     * @param _message A message, which need not be a coalescing signal.
+     */
+    public void releaseCoalescedSignal(final RequestMtImpl<?> _message) {
+        final Object key = _message.getCoalescingKey();
+        if (key != null) {
+            coalescedSignals.remove(key, _message);
+        }
+    }
+
+    /**
+     * Returns the number of coalescing signals passed to this reactor
+     * which have not yet begun processing.
+     *
+     * @return The number of coalescing signals queued.
+     */
+    public int getCoalescedSignalCount() {
+        final ConcurrentHashMap<Object, RequestMtImpl<?>> signals = coalescedSignals;
+        return signals == null ? 0 : signals.size();
+    }
+
+    /**
+     * Defers the pool thread reactor which is sending to this reactor,
+     * until the inbox of this reactor has drained to half its capacity.
+     * <p>
+     * The sender is not deferred while this reactor is itself deferred,
+     * as when two reactors send to each other, since neither inbox would then drain.
+     * The sender flags itself before checking this reactor, so when two reactors
+     * defer each other at the same time, at least one of them sees the other's flag.
+     * Longer cycles, with three or more reactors each deferred by the next, are still possible.
+     * </p>
+     */
+    private void deferSender() {
+        final ReactorImpl current = PlantMtImpl.getSingleton()
+                .getCurrentReactorImpl();
+        if (!(current instanceof PoolThreadReactorMtImpl) || (current == this)) {
+            return;
+        }
+        final ReactorMtImpl sender = (ReactorMtImpl) current;
+        final boolean wasDeferred = sender.deferred;
+        sender.deferred = true;
+        if (deferred) {
+            // The message is accepted without deferring the sender.
+            sender.deferred = wasDeferred;
+            return;
+        }
+        deferredSenders.offer(sender);
+        if (isClosing() || (inbox.getConcurrentSize() <= (inboxCapacity / 2))) {
+            // The inbox may have drained before the sender was added.
+            resumeDeferredSenders();
+        }
+    }
+
+    /**
+     * Lets the reactors deferred by this reactor process messages again.
+     */
+    private void resumeDeferredSenders() {
+        ReactorMtImpl sender = deferredSenders.poll();
+        while (sender != null) {
+            sender.deferred = false;
+            sender.afterAdd();
+            sender = deferredSenders.poll();
+        }
+    }
+
+    /**
+     * Returns true while this reactor does not process messages, as it sent
+     * a request to a reactor whose inbox is full.
+     *
+     * @return True when deferred.
+     */
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    /**
+     * Records the inbox depth, reporting it to Recovery each time
+     * it reaches a new power of 2.
+     */
+    private void updateInboxHighWaterMark() {
+        final int depth = inbox.getConcurrentSize();
+        final int highWaterMark = inboxHighWaterMark;
+        if (depth <= highWaterMark) {
+            return;
+        }
+        inboxHighWaterMark = depth;
+        if (Integer.highestOneBit(depth) > Integer.highestOneBit(highWaterMark)) {
+            recovery.onInboxHighWaterMark(this, depth);
+        }
+    }
+
     /**
      * Called after adding some message(s) to the inbox.
      */
@@ -475,7 +839,27 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
      */
     public boolean buffer(final RequestMtImpl<?> _message,
                           final ReactorMtImpl _target) {
-        return outbox.buffer(_message, _target);
+        if ((outboxFlushMicros > 0) && outbox.isEmpty()) {
+            outboxHeldSince = System.nanoTime();
+        }
+        if (!outbox.buffer(_message, _target)) {
+            return false;
+        }
+        final int threshold = outboxFlushThreshold;
+        if ((threshold > 0) && (outbox.getBufferSize(_target) >= threshold)) {
+            _target.unbufferedAddMessages(outbox.pollBlock(_target));
+        }
+        return true;
+    }
+
+    /**
+     * Sends all the buffered messages, without thread migration.
+     */
+    protected void flushOutbox() {
+        while (!outbox.isEmpty()) {
+            final ReactorMtImpl target = outbox.peekTarget();
+            target.unbufferedAddMessages(outbox.pollBlock());
+        }
     }
 
     /**
@@ -484,10 +868,61 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
      * @param _message The message to be processed.
      */
     protected void processMessage(final RequestMtImpl<?> _message) {
+        final boolean response = _message.isComplete();
         _message.eval();
-        if (!_message.isComplete() && !startClosing && !_message.isOneWay()) {
-            inProcessRequests.add(_message);
+        if (response) {
+            // The response has been processed, so the request is done with.
+            _message.recycle();
+        } else if (!_message.isComplete()) {
+            if (!startClosing && !_message.isOneWay()) {
+                inProcessRequests.add(_message);
+            }
+        } else if (_message.isOneWay() || _message.isCall()) {
+            // There is no response message to follow.
+            _message.recycle();
+        }
+    }
+
+    /**
+     * Drops a request whose deadline has passed, passing back a DeadlineExceededException.
+     * Responses are never dropped.
+     *
+     * @param _message A message taken from the inbox.
+     * @return True when the message was dropped.
+     */
+    private boolean expired(final RequestMtImpl<?> _message) {
+        if ((_message.getDeadlineMillis() == 0) || _message.isComplete()
+                || !_message.isPastDeadline(plantScheduler.currentTimeMillis())) {
+            return false;
+        }
+        expiredRequestCount++;
+        _message.reject(new DeadlineExceededException("deadline exceeded: "
+                + _message.asOperation()));
+        if (!(_message.getRequestSource() instanceof ReactorMtImpl)) {
+            // There is no response message to follow.
+            _message.recycle();
         }
+        return true;
+    }
+
+    /**
+     * Returns the number of requests dropped as their deadline had passed.
+     *
+     * @return The number of requests dropped.
+     */
+    public long getExpiredRequestCount() {
+        return expiredRequestCount;
+    }
+
+    /**
+     * Called when the message quantum has been used up and there are more messages
+     * to be processed, giving the reactor the chance to release its thread.
+     * By default the reactor keeps its thread and a new quantum begins.
+     *
+     * @return True when the run method should return.
+     */
+    protected boolean yieldQuantum() {
+        return false;
     }
 
     /**
@@ -539,6 +974,11 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
     @Override
     public void run() {
         running = true;
+        final int quantum = messageQuantum;
+        final long quantumNanos = messageQuantumMicros * 1000L;
+        final long quantumStart = quantumNanos > 0 ? System.nanoTime() : 0;
+        final long flushNanos = outboxFlushMicros * 1000L;
+        int processed = 0;
         try {
             while (true) {
                 if (Thread.interrupted()) {
@@ -547,8 +987,17 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
                 if (timeoutSemaphore != null) {
                     return;
                 }
+                if (deferred && yieldQuantum()) {
+                    return;
+                }
                 RequestMtImpl<?> request = inbox.poll();
-                while ((request != null) && request._isCanceled()) {
+                while (request != null) {
+                    if (request._isCanceled()) {
+                        // An equivalent signal may be passed again.
+                        releaseCoalescedSignal(request);
+                    } else if (!expired(request)) {
+                        break;
+                    }
                     request = inbox.poll();
                 }
                 if (request == null) {
@@ -575,6 +1024,22 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
                 messageStartTimeMillis = plantScheduler.currentTimeMillis();
                 processMessage(request);
                 messageStartTimeMillis = 0;
+                processed++;
+                if ((flushNanos > 0) && !outbox.isEmpty()
+                        && ((System.nanoTime() - outboxHeldSince) >= flushNanos)) {
+                    flushOutbox();
+                }
+                if ((deferredSenders.peek() != null)
+                        && (inbox.getConcurrentSize() <= (inboxCapacity / 2))) {
+                    resumeDeferredSenders();
+                }
+                if (((quantum > 0) && (processed >= quantum))
+                        || ((quantumNanos > 0) && ((System.nanoTime() - quantumStart) >= quantumNanos))) {
+                    if (hasWork() && yieldQuantum()) {
+                        return;
+                    }
+                    processed = 0;
+                }
             }
         } catch (final InterruptedException ie) {
             if (timeoutSemaphore == null) {
@@ -714,6 +1179,218 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
         this.recovery = recovery;
     }
 
+    /**
+     * Returns the maximum number of messages processed before the reactor
+     * gives up its thread.
+     *
+     * @return The message quantum, or 0 for no limit.
+     */
+    public int getMessageQuantum() {
+        return messageQuantum;
+    }
+
+    /**
+     * Limits the number of messages processed before the reactor gives up its thread.
+     * Reactors created afterwards with this reactor as their parent inherit the limit.
+     *
+     * @param _messageQuantum The message quantum, or 0 for no limit.
+     */
+    public void setMessageQuantum(final int _messageQuantum) {
+        messageQuantum = _messageQuantum;
+    }
+
+    /**
+     * Returns how long the reactor processes messages before giving up its thread.
+     *
+     * @return The time budget in microseconds, or 0 for no limit.
+     */
+    public long getMessageQuantumMicros() {
+        return messageQuantumMicros;
+    }
+
+    /**
+     * Limits how long the reactor processes messages before giving up its thread.
+     * Reactors created afterwards with this reactor as their parent inherit the limit.
+     *
+     * @param _messageQuantumMicros The time budget in microseconds, or 0 for no limit.
+     */
+    public void setMessageQuantumMicros(final long _messageQuantumMicros) {
+        messageQuantumMicros = _messageQuantumMicros;
+    }
+
+    /**
+     * Returns the number of messages buffered for a target which causes them to be sent
+     * before the reactor is idle.
+     *
+     * @return The outbox flush threshold, or 0 for no limit.
+     */
+    public int getOutboxFlushThreshold() {
+        return outboxFlushThreshold;
+    }
+
+    /**
+     * Sends the messages buffered for a target once there are this many,
+     * rather than waiting until the reactor is idle.
+     * Reactors created afterwards with this reactor as their parent inherit the threshold.
+     *
+     * @param _outboxFlushThreshold The outbox flush threshold, or 0 for no limit.
+     */
+    public void setOutboxFlushThreshold(final int _outboxFlushThreshold) {
+        if (_outboxFlushThreshold < 0) {
+            throw new IllegalArgumentException("outboxFlushThreshold may not be negative");
+        }
+        outboxFlushThreshold = _outboxFlushThreshold;
+    }
+
+    /**
+     * Returns how long messages are held in the outbox before being sent,
+     * when the reactor is not idle sooner.
+     *
+     * @return The hold time in microseconds, or 0 for no limit.
+     */
+    public long getOutboxFlushMicros() {
+        return outboxFlushMicros;
+    }
+
+    /**
+     * Sends the buffered messages once the oldest has been held this long,
+     * rather than waiting until the reactor is idle. The time is checked after
+     * each message is processed.
+     * Reactors created afterwards with this reactor as their parent inherit the limit.
+     *
+     * @param _outboxFlushMicros The hold time in microseconds, or 0 for no limit.
+     */
+    public void setOutboxFlushMicros(final long _outboxFlushMicros) {
+        if (_outboxFlushMicros < 0) {
+            throw new IllegalArgumentException("outboxFlushMicros may not be negative");
+        }
+        outboxFlushMicros = _outboxFlushMicros;
+    }
+
+    /**
+     * Returns the inbox, which holds the messages received by this reactor.
+     *
+     * @return The inbox.
+     */
+    public Inbox getInbox() {
+        return inbox;
+    }
+
+    /**
+     * Returns the outbox, which buffers the messages sent by this reactor.
+     *
+     * @return The outbox.
+     */
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    /**
+     * Returns the weights of the response, signal and request lanes of an inbox.
+     *
+     * @return A copy of the inbox lane weights, or null when messages are processed
+     * in the order received.
+     */
+    public int[] getInboxLaneWeights() {
+        final int[] laneWeights = inboxLaneWeights;
+        return laneWeights == null ? null : laneWeights.clone();
+    }
+
+    /**
+     * Selects the inbox used by the non-blocking, blocking and thread-bound reactors
+     * created afterwards with this reactor as their parent.
+     *
+     * @param _inboxLaneWeights The weights of the response, signal and request lanes,
+     *                          or null to process messages in the order received.
+     */
+    public void setInboxLaneWeights(final int[] _inboxLaneWeights) {
+        if (_inboxLaneWeights == null) {
+            inboxLaneWeights = null;
+            return;
+        }
+        LaneInbox.validateWeights(_inboxLaneWeights);
+        inboxLaneWeights = _inboxLaneWeights.clone();
+    }
+
+    /**
+     * Returns the number of slots in the ring buffer of an inbox.
+     *
+     * @return The inbox ring buffer size, or 0 when the inbox uses a linked queue.
+     */
+    public int getInboxRingBufferSize() {
+        return inboxRingBufferSize;
+    }
+
+    /**
+     * Selects the queue used by the inbox of the reactors created afterwards
+     * with this reactor as their parent.
+     *
+     * @param _inboxRingBufferSize The number of slots in the ring buffer,
+     *                             or 0 to use a linked queue.
+     */
+    public void setInboxRingBufferSize(final int _inboxRingBufferSize) {
+        if (_inboxRingBufferSize < 0) {
+            throw new IllegalArgumentException("inboxRingBufferSize may not be negative");
+        }
+        inboxRingBufferSize = _inboxRingBufferSize;
+    }
+
+    /**
+     * Returns the number of messages passed from other threads which the inbox
+     * holds before the overflow policy applies.
+     *
+     * @return The inbox capacity, or 0 when the inbox is unbounded.
+     */
+    public int getInboxCapacity() {
+        return inboxCapacity;
+    }
+
+    /**
+     * Limits the number of messages passed from other threads which the inbox holds.
+     * Reactors created afterwards with this reactor as their parent inherit the limit.
+     *
+     * @param _inboxCapacity The inbox capacity, or 0 for an unbounded inbox.
+     */
+    public void setInboxCapacity(final int _inboxCapacity) {
+        if (_inboxCapacity < 0) {
+            throw new IllegalArgumentException("inboxCapacity may not be negative");
+        }
+        inboxCapacity = _inboxCapacity;
+    }
+
+    /**
+     * Returns what is done with a request passed when the inbox is full.
+     *
+     * @return The inbox overflow policy.
+     */
+    public InboxOverflowPolicy getInboxOverflowPolicy() {
+        return inboxOverflowPolicy;
+    }
+
+    /**
+     * Selects what is done with a request passed when the inbox is full.
+     * Reactors created afterwards with this reactor as their parent inherit the policy.
+     *
+     * @param _inboxOverflowPolicy The inbox overflow policy.
+     */
+    public void setInboxOverflowPolicy(
+            final InboxOverflowPolicy _inboxOverflowPolicy) {
+        if (_inboxOverflowPolicy == null) {
+            throw new IllegalArgumentException("inboxOverflowPolicy may not be null");
+        }
+        inboxOverflowPolicy = _inboxOverflowPolicy;
+    }
+
+    /**
+     * Returns the largest number of messages passed from other threads
+     * which the inbox has held.
+     *
+     * @return The inbox high-water mark.
+     */
+    public int getInboxHighWaterMark() {
+        return inboxHighWaterMark;
+    }
+
     /**
      * The PlantScheduler object used by this ReactorImpl.
      */
@@ -723,6 +1400,9 @@ abstract public class ReactorMtImpl extends BladeBase implements ReactorImpl,
 
     public void setPlantScheduler(final PlantScheduler plantScheduler) {
         this.plantScheduler = plantScheduler;
+        if (inbox != null) {
+            inbox.setPlantScheduler(plantScheduler);
+        }
     }
 
     /**
@@ -1,13 +1,8 @@
 package org.agilewiki.jactor2.core.impl.mtReactors;
 
-import org.agilewiki.jactor2.core.impl.mtMessages.RequestMtImpl;
 import org.agilewiki.jactor2.core.reactors.IsolationReactor;
 import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
 
-import java.util.ArrayDeque;
-import java.util.Iterator;
-import java.util.Map;
-
 /**
  * A reactor bound to a thread.
  */
@@ -81,7 +76,7 @@ public class ThreadBoundReactorMtImpl extends ReactorMtImpl {
 
     @Override
     protected Inbox createInbox(final int _initialLocalQueueSize) {
-        return new CommonInbox(_initialLocalQueueSize);
+        return createCommonInbox(_initialLocalQueueSize);
     }
 
     @Override
@@ -100,20 +95,8 @@ public class ThreadBoundReactorMtImpl extends ReactorMtImpl {
      * @return True when one or more buffered messages were delivered.
      */
     public final boolean flush() throws Exception {
-        boolean result = false;
-        final Iterator<Map.Entry<ReactorMtImpl, ArrayDeque<RequestMtImpl<?>>>> iter = outbox
-                .getIterator();
-        if (iter != null) {
-            while (iter.hasNext()) {
-                result = true;
-                final Map.Entry<ReactorMtImpl, ArrayDeque<RequestMtImpl<?>>> entry = iter
-                        .next();
-                final ReactorMtImpl target = entry.getKey();
-                final ArrayDeque<RequestMtImpl<?>> messages = entry.getValue();
-                iter.remove();
-                target.unbufferedAddMessages(messages);
-            }
-        }
+        final boolean result = !outbox.isEmpty();
+        flushOutbox();
         return result;
     }
 }
@@ -0,0 +1,38 @@
+package org.agilewiki.jactor2.core.impl.blades.firehose;
+
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantMtImpl;
+import org.agilewiki.jactor2.core.impl.mtPlant.WaitStrategy;
+
+/**
+ * Runs the firehose with more data until all of it has been acknowledged,
+ * then reports the number of pool thread wakeups.
+ * This is not part of the unit tests; run it with the number of longs
+ * as an optional argument.
+ */
+public class FirehoseBenchmark {
+    public static void main(final String[] _args) throws Exception {
+        final long count = _args.length > 0 ? Long.parseLong(_args[0]) : 5000000;
+        System.gc();
+        new Plant();
+        try {
+            DataProcessor next = new EndStage();
+            for (int i = 0; i < 9; i++) {
+                next = new NullStage(next);
+            }
+            new FirstStage(next, count, 10);
+            try {
+                // FirstStage interrupts this thread once the last ack arrives.
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (final InterruptedException ie) {
+            }
+            final WaitStrategy waitStrategy = PlantMtImpl.getSingleton()
+                    .getReactorPoolThreadManager().getWaitStrategy();
+            System.out.println("pool thread wakeups: "
+                    + (waitStrategy.getSpinCount() + waitStrategy.getYieldCount()
+                    + waitStrategy.getParkCount()));
+        } finally {
+            Plant.close();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.agilewiki.jactor2.core.impl.blades.streams;
+
+import org.agilewiki.jactor2.core.blades.BladeBase;
+import org.agilewiki.jactor2.core.blades.streams.StreamProcessorBase;
+import org.agilewiki.jactor2.core.blades.streams.StreamSourceBase;
+import org.agilewiki.jactor2.core.blades.streams.StreamSubscriberBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes streams of elements between blades, checking that no more elements
+ * are passed than requested.
+ */
+public class StreamTest extends CallTestBase {
+    public void testPipeline() throws Exception {
+        new Plant();
+        try {
+            final Counter counter = new Counter(new NonBlockingReactor(), 10000, 64);
+            final EvenOnly evenOnly = new EvenOnly(new NonBlockingReactor());
+            final Increment increment = new Increment(new NonBlockingReactor());
+            final Sink sink = new Sink(new NonBlockingReactor(), 100);
+            increment.subscribeSOp(sink).signal();
+            evenOnly.subscribeSOp(increment).signal();
+            counter.subscribeSOp(evenOnly).signal();
+            assertTrue(sink.done.await(10, TimeUnit.SECONDS));
+
+            assertNull(sink.exception);
+            assertEquals(5000, sink.received.size());
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(Integer.valueOf(2 * i + 1), sink.received.get(i));
+            }
+            assertEquals(5000, sink.getElementCount());
+            assertEquals(10000, counter.getElementCount());
+            assertEquals(5000, evenOnly.getDroppedCount());
+            assertEquals(5000, evenOnly.getElementCount());
+            assertEquals(5000, increment.getElementCount());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testBackpressure() throws Exception {
+        new Plant();
+        try {
+            final Counter counter = new Counter(threadBoundReactor(), -1, 4);
+            final Sink sink = new Sink(threadBoundReactor(), 10);
+            counter.subscribeSOp(sink).signal();
+            run(counter);
+            run(sink);
+            run(counter);
+            // The window of 10 was passed in batches of no more than 4.
+            assertEquals(10, counter.getElementCount());
+            assertEquals(3, counter.getBatchCount());
+            assertEquals(0, counter.getDemand());
+            run(counter);
+            assertEquals(10, counter.getElementCount());
+
+            // Once 8 are received, only 2 are outstanding, so 8 more are requested.
+            run(sink);
+            assertEquals(10, sink.getElementCount());
+            run(counter);
+            assertEquals(18, counter.getElementCount());
+            assertEquals(0, counter.getDemand());
+
+            sink.stop();
+            run(counter);
+            assertTrue(counter.isDone());
+            // The batches passed before the cancel are passed over, and there is no completion.
+            run(sink);
+            assertEquals(10, sink.received.size());
+            assertEquals(1, sink.done.getCount());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testError() throws Exception {
+        new Plant();
+        try {
+            final Counter counter = new Counter(threadBoundReactor(), -1, 4);
+            counter.failAt = 6;
+            final Sink sink = new Sink(threadBoundReactor(), 10);
+            counter.subscribeSOp(sink).signal();
+            run(counter);
+            run(sink);
+            run(counter);
+            run(sink);
+            assertEquals(6, counter.getElementCount());
+            assertEquals(6, sink.received.size());
+            assertEquals("fail at 6", sink.exception.getMessage());
+            assertEquals(0, sink.done.getCount());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testSecondSubscriber() throws Exception {
+        new Plant();
+        try {
+            final Counter counter = new Counter(threadBoundReactor(), 10, 4);
+            final Sink first = new Sink(threadBoundReactor(), 10);
+            final Sink second = new Sink(threadBoundReactor(), 10);
+            counter.subscribeSOp(first).signal();
+            counter.subscribeSOp(second).signal();
+            run(counter);
+            run(second);
+            assertTrue(second.exception instanceof IllegalStateException);
+            run(first);
+            run(counter);
+            run(first);
+            // The end of the stream is found once more elements are requested.
+            assertEquals(1, first.done.getCount());
+            run(counter);
+            run(first);
+            assertNull(first.exception);
+            assertEquals(10, first.received.size());
+            assertEquals(0, first.done.getCount());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static Reactor threadBoundReactor() throws Exception {
+        return new ThreadBoundReactor(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    private static void run(final BladeBase _blade) {
+        ((ReactorMtImpl) _blade.getReactor().asReactorImpl()).run();
+    }
+
+    /**
+     * Passes 0, 1, 2 and so on, either up to a limit or without end.
+     */
+    private static class Counter extends StreamSourceBase<Integer> {
+        private final int limit;
+
+        int failAt = -1;
+
+        private int count;
+
+        Counter(final Reactor _reactor, final int _limit, final int _batchSize) {
+            super(_reactor, _batchSize);
+            limit = _limit;
+        }
+
+        @Override
+        protected Integer next() throws Exception {
+            if (count == failAt) {
+                throw new Exception("fail at " + count);
+            }
+            if (count == limit) {
+                return null;
+            }
+            return count++;
+        }
+    }
+
+    /**
+     * Drops odd elements.
+     */
+    private static class EvenOnly extends StreamProcessorBase<Integer, Integer> {
+        EvenOnly(final Reactor _reactor) {
+            super(_reactor);
+        }
+
+        @Override
+        protected Integer process(final Integer _element) {
+            return (_element % 2 == 0) ? _element : null;
+        }
+    }
+
+    /**
+     * Adds 1 to each element.
+     */
+    private static class Increment extends StreamProcessorBase<Integer, Integer> {
+        Increment(final Reactor _reactor) {
+            super(_reactor);
+        }
+
+        @Override
+        protected Integer process(final Integer _element) {
+            return _element + 1;
+        }
+    }
+
+    /**
+     * Records the elements received and how the stream ended.
+     */
+    private static class Sink extends StreamSubscriberBase<Integer> {
+        final List<Integer> received = new ArrayList<Integer>();
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Exception exception;
+
+        Sink(final Reactor _reactor, final int _window) {
+            super(_reactor, _window);
+        }
+
+        void stop() {
+            cancel();
+        }
+
+        @Override
+        protected void process(final Integer _element) {
+            received.add(_element);
+        }
+
+        @Override
+        protected void completed() {
+            done.countDown();
+        }
+
+        @Override
+        protected void failed(final Exception _exception) {
+            exception = _exception;
+            done.countDown();
+        }
+    }
+}
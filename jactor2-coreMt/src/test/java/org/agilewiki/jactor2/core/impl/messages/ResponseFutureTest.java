@@ -0,0 +1,218 @@
+package org.agilewiki.jactor2.core.impl.messages;
+
+import org.agilewiki.jactor2.core.blades.BladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.messages.AOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.ResponseFuture;
+import org.agilewiki.jactor2.core.messages.SOp;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes requests with future from the test thread.
+ */
+public class ResponseFutureTest extends CallTestBase {
+    public void testGet() throws Exception {
+        new Plant();
+        try {
+            final Doubler doubler = new Doubler(new NonBlockingReactor());
+            assertEquals(Integer.valueOf(42), doubler.doubleSOp(21).future().get());
+            assertEquals(Integer.valueOf(42), doubler.doubleAOp(21).future()
+                    .get(10, TimeUnit.SECONDS));
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testMany() throws Exception {
+        new Plant();
+        try {
+            final Doubler doubler = new Doubler(new NonBlockingReactor());
+            final List<ResponseFuture<Integer>> futures =
+                    new ArrayList<ResponseFuture<Integer>>();
+            for (int i = 0; i < 5000; i++) {
+                futures.add(doubler.doubleSOp(i).future());
+            }
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(Integer.valueOf(2 * i), futures.get(i).get());
+            }
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testException() throws Exception {
+        new Plant();
+        try {
+            final Doubler doubler = new Doubler(new NonBlockingReactor());
+            final ResponseFuture<Integer> future = doubler.doubleSOp(-1).future();
+            try {
+                future.get();
+                fail();
+            } catch (final ExecutionException e) {
+                assertEquals("negative", e.getCause().getMessage());
+            }
+            final Listener listener = new Listener();
+            future.whenComplete(listener);
+            // Already complete, so the listener was run by this thread.
+            assertSame(Thread.currentThread(), listener.thread);
+            assertNull(listener.response);
+            assertEquals("negative", listener.exception.getMessage());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testCompletionExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor(
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable _runnable) {
+                        return new Thread(_runnable, "completion");
+                    }
+                });
+        new Plant(new PlantConfiguration() {
+            @Override
+            public Executor getCompletionExecutor() {
+                return executor;
+            }
+        });
+        try {
+            final Doubler doubler = new Doubler(new NonBlockingReactor());
+            final Listener listener = new Listener();
+            doubler.doubleSOp(4).future().whenComplete(listener);
+            final Listener.Result result = listener.results.poll(10, TimeUnit.SECONDS);
+            assertNotNull(result);
+            assertEquals("completion", result.thread.getName());
+            assertEquals(Integer.valueOf(8), result.response);
+            assertNull(result.exception);
+        } finally {
+            Plant.close();
+            executor.shutdown();
+        }
+    }
+
+    public void testCancel() throws Exception {
+        new Plant();
+        try {
+            final Doubler doubler = new Doubler(new ThreadBoundReactor(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                        }
+                    }));
+            final ResponseFuture<Integer> future = doubler.doubleSOp(3).future();
+            final Listener listener = new Listener();
+            future.whenComplete(listener);
+            assertFalse(future.isDone());
+            assertTrue(future.cancel(false));
+            assertFalse(future.cancel(false));
+            assertTrue(future.isDone());
+            assertTrue(future.isCancelled());
+            assertTrue(listener.exception instanceof CancellationException);
+            // The canceled request is then passed over.
+            ((ReactorMtImpl) doubler.getReactor().asReactorImpl()).run();
+            assertEquals(0, doubler.count);
+            try {
+                future.get();
+                fail();
+            } catch (final CancellationException e) {
+            }
+        } finally {
+            Plant.close();
+        }
+    }
+
+    /**
+     * Records what it is passed and the thread which passed it.
+     */
+    private static class Listener implements
+            ResponseFuture.CompletionListener<Integer> {
+
+        final LinkedBlockingQueue<Result> results = new LinkedBlockingQueue<Result>();
+
+        volatile Thread thread;
+
+        volatile Integer response;
+
+        volatile Throwable exception;
+
+        @Override
+        public void onComplete(final Integer _response, final Throwable _exception) {
+            thread = Thread.currentThread();
+            response = _response;
+            exception = _exception;
+            results.offer(new Result(thread, _response, _exception));
+        }
+
+        static class Result {
+            final Thread thread;
+
+            final Integer response;
+
+            final Throwable exception;
+
+            Result(final Thread _thread, final Integer _response,
+                   final Throwable _exception) {
+                thread = _thread;
+                response = _response;
+                exception = _exception;
+            }
+        }
+    }
+
+    /**
+     * Doubles non-negative values.
+     */
+    private static class Doubler extends BladeBase {
+
+        int count;
+
+        Doubler(final Reactor _reactor) throws Exception {
+            _initialize(_reactor);
+        }
+
+        SOp<Integer> doubleSOp(final int _value) {
+            return new SOp<Integer>("double", getReactor()) {
+                @Override
+                protected Integer processSyncOperation(final RequestImpl _requestImpl)
+                        throws Exception {
+                    count += 1;
+                    if (_value < 0) {
+                        throw new Exception("negative");
+                    }
+                    return 2 * _value;
+                }
+            };
+        }
+
+        AOp<Integer> doubleAOp(final int _value) {
+            return new AOp<Integer>("double", getReactor()) {
+                @Override
+                protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                     final AsyncResponseProcessor<Integer> _asyncResponseProcessor)
+                        throws Exception {
+                    _asyncRequestImpl.send(doubleSOp(_value), _asyncResponseProcessor);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.agilewiki.jactor2.core.impl.messages;
+
+import org.agilewiki.jactor2.core.blades.NonBlockingBladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.messages.AOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.SOp;
+import org.agilewiki.jactor2.core.messages.ScatterGather;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scatters requests over a few echo blades and gathers the responses.
+ */
+public class ScatterGatherTest extends CallTestBase {
+    public void testAll() throws Exception {
+        new Plant();
+        try {
+            final Sum sum = new Sum(echoes(4), 100, 8, 100);
+            assertEquals(Long.valueOf(99 * 100 / 2), call(gatherAOp(sum)));
+            assertEquals(100, sum.getSent());
+            assertEquals(100, sum.getGathered());
+            assertEquals(8, sum.maxPending);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testWindowOfOne() throws Exception {
+        new Plant();
+        try {
+            final Sum sum = new Sum(echoes(3), 10, 1, 10);
+            assertEquals(Long.valueOf(45), call(gatherAOp(sum)));
+            assertEquals(1, sum.maxPending);
+            final List<Integer> inOrder = new ArrayList<Integer>();
+            for (int i = 0; i < 10; i++) {
+                inOrder.add(i);
+            }
+            assertEquals(inOrder, sum.responses);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testQuorum() throws Exception {
+        new Plant();
+        try {
+            final Sum sum = new Sum(echoes(4), 20, 20, 3);
+            final long result = call(gatherAOp(sum));
+            assertEquals(20, sum.getSent());
+            assertEquals(3, sum.getGathered());
+            assertEquals(3, sum.responses.size());
+            assertEquals(sum.responses.get(0) + sum.responses.get(1)
+                    + sum.responses.get(2), result);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testEmpty() throws Exception {
+        new Plant();
+        try {
+            final Sum sum = new Sum(echoes(1), 0, 4, 0);
+            assertEquals(Long.valueOf(0), call(gatherAOp(sum)));
+            assertEquals(0, sum.getSent());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testArguments() throws Exception {
+        try {
+            new Sum(null, -1, 1, 0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+        }
+        try {
+            new Sum(null, 1, 0, 1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+        }
+        try {
+            new Sum(null, 1, 1, 2);
+            fail();
+        } catch (final IllegalArgumentException e) {
+        }
+    }
+
+    private static Echo[] echoes(final int _count) throws Exception {
+        final Echo[] echoes = new Echo[_count];
+        for (int i = 0; i < _count; i++) {
+            echoes[i] = new Echo();
+        }
+        return echoes;
+    }
+
+    private static AOp<Long> gatherAOp(final Sum _sum) throws Exception {
+        return new AOp<Long>("gather", new IsolationReactor()) {
+            @SuppressWarnings("unchecked")
+            @Override
+            protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                 final AsyncResponseProcessor<Long> _asyncResponseProcessor)
+                    throws Exception {
+                _asyncRequestImpl.scatterGather(_sum, _asyncResponseProcessor);
+            }
+        };
+    }
+
+    /**
+     * Sums the indexes echoed back, noting the most requests pending at a time.
+     */
+    private static class Sum extends ScatterGather<Integer, Long> {
+        private final Echo[] echoes;
+
+        final List<Integer> responses = new ArrayList<Integer>();
+
+        int maxPending;
+
+        private long total;
+
+        Sum(final Echo[] _echoes, final int _size, final int _window,
+            final int _quorum) {
+            super(_size, _window, _quorum);
+            echoes = _echoes;
+        }
+
+        @Override
+        protected void send(final AsyncRequestImpl<?> _asyncRequestImpl,
+                            final int _index,
+                            final AsyncResponseProcessor<Integer> _responseProcessor) {
+            maxPending = Math.max(maxPending, getSent() - getGathered());
+            _asyncRequestImpl.send(echoes[_index % echoes.length].echoSOp(_index),
+                    _responseProcessor);
+        }
+
+        @Override
+        protected void gather(final Integer _response) {
+            responses.add(_response);
+            total += _response;
+        }
+
+        @Override
+        protected Long getResult() {
+            return total;
+        }
+    }
+
+    /**
+     * Responds with the value given.
+     */
+    private static class Echo extends NonBlockingBladeBase {
+
+        Echo() throws Exception {
+        }
+
+        SOp<Integer> echoSOp(final int _value) {
+            return new SOp<Integer>("echo", getReactor()) {
+                @Override
+                protected Integer processSyncOperation(final RequestImpl _requestImpl)
+                        throws Exception {
+                    return _value;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.agilewiki.jactor2.core.impl.messages;
+
+import org.agilewiki.jactor2.core.blades.BladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.messages.AIOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.ChunkProcessor;
+import org.agilewiki.jactor2.core.messages.StreamAOp;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the rows of a table back to the reactor which requested them.
+ */
+public class StreamAOpTest extends CallTestBase {
+    public void testWindow() throws Exception {
+        new Plant();
+        try {
+            final Table table = new Table(threadBoundReactor(), 100);
+            final Reader reader = new Reader(threadBoundReactor(), table);
+            reader.readAOp(16, 2).signal();
+            run(reader);
+            run(table);
+            // Only a window of 2 chunks of 16 rows is produced.
+            assertEquals(32, table.produced);
+            run(table);
+            assertEquals(32, table.produced);
+
+            // Each chunk processed is a credit for one more.
+            run(reader);
+            assertEquals(32, reader.rows.size());
+            run(table);
+            assertEquals(64, table.produced);
+            while (reader.count == null) {
+                run(reader);
+                run(table);
+            }
+            assertEquals(Long.valueOf(100), reader.count);
+            assertEquals(100, table.produced);
+            assertEquals(7, reader.chunkSizes.size());
+            assertEquals(Integer.valueOf(4), reader.chunkSizes.get(6));
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Integer.valueOf(i), reader.rows.get(i));
+            }
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testCall() throws Exception {
+        new Plant();
+        try {
+            final Table table = new Table(new NonBlockingReactor(), 1000);
+            final List<Integer> rows = new ArrayList<Integer>();
+            final long count = table.rowsAOp(new ChunkProcessor<Integer>() {
+                @Override
+                public void processChunk(final List<Integer> _chunk) {
+                    rows.addAll(_chunk);
+                }
+            }, 64, 4).call();
+            assertEquals(1000, count);
+            assertEquals(1000, rows.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(Integer.valueOf(i), rows.get(i));
+            }
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testIsolationReactor() throws Exception {
+        new Plant();
+        try {
+            // The chunks are passed to the isolation reactor while it awaits the response.
+            final Table table = new Table(new NonBlockingReactor(), 500);
+            final Reader reader = new Reader(new IsolationReactor(), table);
+            reader.readAOp(16, 2).call();
+            assertEquals(Long.valueOf(500), reader.count);
+            assertEquals(500, reader.rows.size());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testEmpty() throws Exception {
+        new Plant();
+        try {
+            final Table table = new Table(new NonBlockingReactor(), 0);
+            final List<Integer> rows = new ArrayList<Integer>();
+            final long count = table.rowsAOp(new ChunkProcessor<Integer>() {
+                @Override
+                public void processChunk(final List<Integer> _chunk) {
+                    rows.addAll(_chunk);
+                }
+            }, 8, 1).call();
+            assertEquals(0, count);
+            assertTrue(rows.isEmpty());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testChunkException() throws Exception {
+        new Plant();
+        try {
+            final Table table = new Table(new NonBlockingReactor(), 1000);
+            final List<Integer> rows = new ArrayList<Integer>();
+            try {
+                table.rowsAOp(new ChunkProcessor<Integer>() {
+                    @Override
+                    public void processChunk(final List<Integer> _chunk)
+                            throws Exception {
+                        if (rows.size() == 20) {
+                            throw new Exception("full");
+                        }
+                        rows.addAll(_chunk);
+                    }
+                }, 10, 1).call();
+                fail();
+            } catch (final Exception e) {
+                assertEquals("full", e.getMessage());
+            }
+            assertEquals(20, rows.size());
+            // With a window of 1, no chunk was produced past the one which failed.
+            assertEquals(30, table.produced);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testArguments() throws Exception {
+        new Plant();
+        try {
+            final Table table = new Table(new NonBlockingReactor(), 0);
+            try {
+                table.rowsAOp(null, 1, 1);
+                fail();
+            } catch (final NullPointerException e) {
+            }
+            try {
+                table.rowsAOp(new Reader(new NonBlockingReactor(), table), 0, 1);
+                fail();
+            } catch (final IllegalArgumentException e) {
+            }
+            try {
+                table.rowsAOp(new Reader(new NonBlockingReactor(), table), 1, 0);
+                fail();
+            } catch (final IllegalArgumentException e) {
+            }
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static Reactor threadBoundReactor() throws Exception {
+        return new ThreadBoundReactor(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    private static void run(final BladeBase _blade) {
+        ((ReactorMtImpl) _blade.getReactor().asReactorImpl()).run();
+    }
+
+    /**
+     * Produces the rows 0 to size - 1, counting the rows produced.
+     */
+    private static class Table extends BladeBase {
+        private final int size;
+
+        int produced;
+
+        Table(final Reactor _reactor, final int _size) throws Exception {
+            _initialize(_reactor);
+            size = _size;
+        }
+
+        StreamAOp<Integer> rowsAOp(final ChunkProcessor<Integer> _chunkProcessor,
+                                   final int _batchSize, final int _window) {
+            return new StreamAOp<Integer>("rows", getReactor(), _chunkProcessor,
+                    _batchSize, _window) {
+                private int next;
+
+                @Override
+                protected Integer next() {
+                    if (next == size) {
+                        return null;
+                    }
+                    produced += 1;
+                    return next++;
+                }
+            };
+        }
+    }
+
+    /**
+     * Reads the rows of a table, recording them on its own reactor.
+     */
+    private static class Reader extends BladeBase implements ChunkProcessor<Integer> {
+        private final Table table;
+
+        final List<Integer> rows = new ArrayList<Integer>();
+
+        final List<Integer> chunkSizes = new ArrayList<Integer>();
+
+        Long count;
+
+        Reader(final Reactor _reactor, final Table _table) throws Exception {
+            _initialize(_reactor);
+            table = _table;
+        }
+
+        @Override
+        public void processChunk(final List<Integer> _chunk) {
+            chunkSizes.add(_chunk.size());
+            rows.addAll(_chunk);
+        }
+
+        AIOp<Void> readAOp(final int _batchSize, final int _window) {
+            return new AIOp<Void>("read", getReactor()) {
+                @Override
+                protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                     final AsyncResponseProcessor<Void> _asyncResponseProcessor)
+                        throws Exception {
+                    _asyncRequestImpl.send(table.rowsAOp(Reader.this, _batchSize, _window),
+                            new AsyncResponseProcessor<Long>() {
+                                @Override
+                                public void processAsyncResponse(final Long _response)
+                                        throws Exception {
+                                    count = _response;
+                                    _asyncResponseProcessor.processAsyncResponse(null);
+                                }
+                            });
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.blades.NonBlockingBladeBase;
+import org.agilewiki.jactor2.core.messages.AOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+/**
+ * Responds to each request with 1.
+ */
+public class Adder extends NonBlockingBladeBase {
+
+    public Adder(final NonBlockingReactor _reactor) throws Exception {
+        super(_reactor);
+    }
+
+    public AOp<Integer> oneAOp() {
+        return new AOp<Integer>("one", getReactor()) {
+            @Override
+            protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                 final AsyncResponseProcessor<Integer> _asyncResponseProcessor)
+                    throws Exception {
+                _asyncResponseProcessor.processAsyncResponse(1);
+            }
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantMtImpl;
+import org.agilewiki.jactor2.core.impl.mtPlant.ReactorPoolThreadManager;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+public class AffinityTest extends CallTestBase {
+    public void testa() throws Exception {
+        new Plant(new PlantConfiguration(4) {
+            @Override
+            public boolean isWorkStealing() {
+                return true;
+            }
+
+            @Override
+            public boolean isReactorAffinity() {
+                return true;
+            }
+        });
+        try {
+            final Adder adder = new Adder(new NonBlockingReactor());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(Integer.valueOf(1), call(adder.oneAOp()));
+            }
+            final ReactorPoolThreadManager manager = PlantMtImpl.getSingleton()
+                    .getReactorPoolThreadManager();
+            // Between calls the thread which ran the adder is idle,
+            // so it is the one which runs it again.
+            assertTrue(manager.getAffinityHitRate() > 0.5);
+        } finally {
+            Plant.close();
+        }
+    }
+}
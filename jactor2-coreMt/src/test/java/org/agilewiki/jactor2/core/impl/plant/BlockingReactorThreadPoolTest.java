@@ -0,0 +1,92 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.blades.BlockingBladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantMtImpl;
+import org.agilewiki.jactor2.core.impl.mtPlant.ReactorPoolThread;
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.SOp;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.plant.impl.PlantImpl;
+import org.agilewiki.jactor2.core.reactors.BlockingReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BlockingReactorThreadPoolTest extends CallTestBase {
+    public void testa() throws Exception {
+        new Plant(new PlantConfiguration(2) {
+            @Override
+            public boolean isBlockingReactorThreadPool() {
+                return true;
+            }
+        });
+        final CountDownLatch blocked = new CountDownLatch(4);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            final Sleeper[] sleepers = new Sleeper[4];
+            for (int i = 0; i < sleepers.length; i++) {
+                sleepers[i] = new Sleeper(new BlockingReactor(), blocked, release);
+                sleepers[i].blockSOp().signal();
+            }
+            // The reactor thread pool only has 2 threads,
+            // so all 4 can only block at once on the blocking reactor thread pool.
+            assertTrue(blocked.await(10, TimeUnit.SECONDS));
+            final Adder adder = new Adder(new NonBlockingReactor());
+            assertEquals(Integer.valueOf(1), call(adder.oneAOp()));
+            release.countDown();
+            assertEquals(Boolean.TRUE, call(sleepers[0].whereSOp()));
+        } finally {
+            release.countDown();
+            Plant.close();
+        }
+    }
+}
+
+class Sleeper extends BlockingBladeBase {
+
+    private final CountDownLatch blocked;
+
+    private final CountDownLatch release;
+
+    public Sleeper(final BlockingReactor _reactor,
+                   final CountDownLatch _blocked,
+                   final CountDownLatch _release) throws Exception {
+        super(_reactor);
+        blocked = _blocked;
+        release = _release;
+    }
+
+    public SIOp<Void> blockSOp() {
+        return new SIOp<Void>("block", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                blocked.countDown();
+                release.await();
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Returns true when the reactor runs on the blocking reactor thread pool
+     * and the thread still knows which reactor it is running.
+     */
+    public SOp<Boolean> whereSOp() {
+        return new SOp<Boolean>("where", getReactor()) {
+            @Override
+            protected Boolean processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                final ReactorPoolThread thread = (ReactorPoolThread) Thread.currentThread();
+                return (thread.getCurrentReactorImpl() == PlantImpl.getSingleton()
+                        .getCurrentReactorImpl())
+                        && (thread.getReactorPoolThreadManager() == PlantMtImpl
+                        .getSingleton().getBlockingReactorPoolThreadManager());
+            }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantMtImpl;
+import org.agilewiki.jactor2.core.impl.mtPlant.ReactorPoolThreadManager;
+import org.agilewiki.jactor2.core.reactors.BlockingReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ElasticThreadPoolTest extends CallTestBase {
+    public void testa() throws Exception {
+        new Plant(new PlantConfiguration(2) {
+            @Override
+            public boolean isElasticReactorThreadPool() {
+                return true;
+            }
+
+            @Override
+            public long getElasticKeepAliveMillis() {
+                return 50;
+            }
+        });
+        final CountDownLatch blocked = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            final ReactorPoolThreadManager manager = PlantMtImpl.getSingleton()
+                    .getReactorPoolThreadManager();
+            assertEquals(8, manager.getMaxThreadCount());
+            final Sleeper[] sleepers = new Sleeper[2];
+            for (int i = 0; i < sleepers.length; i++) {
+                sleepers[i] = new Sleeper(new BlockingReactor(), blocked, release);
+                sleepers[i].blockSOp().signal();
+            }
+            // Both threads of the pool are now blocked,
+            // so the adder can only run on a compensating thread.
+            assertTrue(blocked.await(10, TimeUnit.SECONDS));
+            final Adder adder = new Adder(new NonBlockingReactor());
+            assertEquals(Integer.valueOf(1), call(adder.oneAOp()));
+            assertTrue(manager.getAddedThreadCount() > 0);
+            assertTrue(manager.getLiveThreadCount() > 2);
+            release.countDown();
+            // Once unblocked, the surplus threads are retired.
+            final long deadline = System.currentTimeMillis() + 10000;
+            while ((manager.getLiveThreadCount() > 2)
+                    && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, manager.getLiveThreadCount());
+            assertEquals(manager.getAddedThreadCount(),
+                    manager.getRetiredThreadCount());
+            assertEquals(Integer.valueOf(1), call(adder.oneAOp()));
+        } finally {
+            release.countDown();
+            Plant.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.blades.NonBlockingBladeBase;
+import org.agilewiki.jactor2.core.messages.AOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+/**
+ * Sends a request to each of a set of adders and sums the responses.
+ */
+public class FanOut extends NonBlockingBladeBase {
+
+    private final Adder[] adders;
+
+    public FanOut(final NonBlockingReactor _reactor, final Adder[] _adders)
+            throws Exception {
+        super(_reactor);
+        adders = _adders;
+    }
+
+    public AOp<Integer> sumAOp() {
+        return new AOp<Integer>("sum", getReactor()) {
+            private int sum;
+
+            @Override
+            protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                 final AsyncResponseProcessor<Integer> _asyncResponseProcessor)
+                    throws Exception {
+                final AsyncResponseProcessor<Integer> adderResponseProcessor =
+                        new AsyncResponseProcessor<Integer>() {
+                            @Override
+                            public void processAsyncResponse(final Integer _response)
+                                    throws Exception {
+                                sum += _response;
+                                if (_asyncRequestImpl.hasNoPendingResponses()) {
+                                    _asyncResponseProcessor.processAsyncResponse(sum);
+                                }
+                            }
+                        };
+                for (final Adder adder : adders) {
+                    _asyncRequestImpl.send(adder.oneAOp(), adderResponseProcessor);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,277 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.blades.BlockingBladeBase;
+import org.agilewiki.jactor2.core.blades.NonBlockingBladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtReactors.InboxOverflowPolicy;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.SOp;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.BlockingReactor;
+import org.agilewiki.jactor2.core.reactors.InboxFullException;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InboxCapacityTest extends CallTestBase {
+    public void testReject() throws Exception {
+        new Plant();
+        final Gate gate = new Gate(new BlockingReactor(
+                parent(InboxOverflowPolicy.REJECT)));
+        try {
+            fill(gate, 3);
+            try {
+                call(gate.runsSOp());
+                fail();
+            } catch (final InboxFullException ife) {
+            }
+            assertEquals(2, impl(gate).getInboxHighWaterMark());
+            assertEquals(3, drain(gate, 3));
+        } finally {
+            gate.release.countDown();
+            Plant.close();
+        }
+    }
+
+    public void testDropOldestSignal() throws Exception {
+        new Plant();
+        final Gate gate = new Gate(new BlockingReactor(
+                parent(InboxOverflowPolicy.DROP_OLDEST_SIGNAL)));
+        try {
+            fill(gate, 4);
+            // The second signal was dropped to make room for the fourth.
+            assertEquals(3, drain(gate, 3));
+        } finally {
+            gate.release.countDown();
+            Plant.close();
+        }
+    }
+
+    public void testDefer() throws Exception {
+        new Plant();
+        final Gate gate = new Gate(new BlockingReactor(
+                parent(InboxOverflowPolicy.DEFER)));
+        try {
+            fill(gate, 1);
+            final Pump pump = new Pump(new NonBlockingReactor(), gate);
+            call(pump.pumpSOp(3));
+            // Nothing is lost, but the pump waits for the gate to drain.
+            assertTrue(impl(pump).isDeferred());
+            assertEquals(4, drain(gate, 4));
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (impl(pump).isDeferred()
+                    && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(10);
+            }
+            assertFalse(impl(pump).isDeferred());
+            assertEquals(Integer.valueOf(0), call(pump.pumpSOp(0)));
+        } finally {
+            gate.release.countDown();
+            Plant.close();
+        }
+    }
+
+    public void testDeferEachOther() throws Exception {
+        new Plant();
+        final IsolationReactor parent = parent(InboxOverflowPolicy.DEFER);
+        final Peer a = new Peer(new BlockingReactor(parent));
+        final Peer b = new Peer(new BlockingReactor(parent));
+        a.peer = b;
+        b.peer = a;
+        try {
+            // b is held with a full inbox, so a is deferred when it sends to b.
+            b.holdSOp().signal();
+            assertTrue(b.started.await(10, TimeUnit.SECONDS));
+            b.countSOp().signal();
+            b.countSOp().signal();
+            call(a.sendSOp());
+            assertTrue(impl(a).isDeferred());
+            a.countSOp().signal();
+            a.countSOp().signal();
+
+            // Once released, b sends to a, whose inbox is full. But a is itself deferred,
+            // so b is not, and both inboxes drain.
+            b.go.countDown();
+            assertTrue(b.sent.await(10, TimeUnit.SECONDS));
+            assertFalse(b.deferredAfterSend);
+            assertTrue(b.counted.await(10, TimeUnit.SECONDS));
+            assertTrue(a.counted.await(10, TimeUnit.SECONDS));
+        } finally {
+            b.go.countDown();
+            Plant.close();
+        }
+    }
+
+    /**
+     * Blocks the gate with one signal, then queues up the others.
+     */
+    private void fill(final Gate _gate, final int _signals) throws Exception {
+        _gate.blockSOp().signal();
+        assertTrue(_gate.started.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < _signals; i++) {
+            _gate.blockSOp().signal();
+        }
+    }
+
+    /**
+     * Releases the gate, waits until the expected number of signals has started
+     * and returns the number of signals processed. Any signal still queued
+     * is processed before the call, so a surplus is counted too.
+     */
+    private int drain(final Gate _gate, final int _expected) throws Exception {
+        _gate.release.countDown();
+        final long deadline = System.currentTimeMillis() + 10000;
+        while ((_gate.runs.get() < _expected)
+                && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        return call(_gate.runsSOp());
+    }
+
+    private static IsolationReactor parent(final InboxOverflowPolicy _policy)
+            throws Exception {
+        final IsolationReactor parent = new IsolationReactor();
+        final ReactorMtImpl parentImpl = (ReactorMtImpl) parent.asReactorImpl();
+        parentImpl.setInboxCapacity(2);
+        parentImpl.setInboxOverflowPolicy(_policy);
+        return parent;
+    }
+
+    private static ReactorMtImpl impl(final BlockingBladeBase _blade) {
+        return (ReactorMtImpl) _blade.getReactor().asReactorImpl();
+    }
+
+    private static ReactorMtImpl impl(final NonBlockingBladeBase _blade) {
+        return (ReactorMtImpl) _blade.getReactor().asReactorImpl();
+    }
+}
+
+/**
+ * Holds the first request until released, so that the others queue up.
+ */
+class Gate extends BlockingBladeBase {
+
+    final CountDownLatch started = new CountDownLatch(1);
+
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final AtomicInteger runs = new AtomicInteger();
+
+    Gate(final BlockingReactor _reactor) throws Exception {
+        super(_reactor);
+    }
+
+    SIOp<Void> blockSOp() {
+        return new SIOp<Void>("block", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                runs.incrementAndGet();
+                started.countDown();
+                release.await();
+                return null;
+            }
+        };
+    }
+
+    SOp<Integer> runsSOp() {
+        return new SOp<Integer>("runs", getReactor()) {
+            @Override
+            protected Integer processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                return runs.get();
+            }
+        };
+    }
+}
+
+/**
+ * Signals a gate.
+ */
+class Pump extends NonBlockingBladeBase {
+
+    private final Gate gate;
+
+    Pump(final NonBlockingReactor _reactor, final Gate _gate) throws Exception {
+        super(_reactor);
+        gate = _gate;
+    }
+
+    SOp<Integer> pumpSOp(final int _signals) {
+        return new SOp<Integer>("pump", getReactor()) {
+            @Override
+            protected Integer processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                for (int i = 0; i < _signals; i++) {
+                    gate.blockSOp().signal();
+                }
+                return _signals;
+            }
+        };
+    }
+}
+
+/**
+ * Sends to another peer, optionally after being held.
+ */
+class Peer extends BlockingBladeBase {
+
+    Peer peer;
+
+    final CountDownLatch started = new CountDownLatch(1);
+
+    final CountDownLatch go = new CountDownLatch(1);
+
+    final CountDownLatch sent = new CountDownLatch(1);
+
+    final CountDownLatch counted = new CountDownLatch(3);
+
+    boolean deferredAfterSend;
+
+    Peer(final BlockingReactor _reactor) throws Exception {
+        super(_reactor);
+    }
+
+    SIOp<Void> holdSOp() {
+        return new SIOp<Void>("hold", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                started.countDown();
+                go.await();
+                peer.countSOp().signal();
+                deferredAfterSend = ((ReactorMtImpl) getReactor().asReactorImpl())
+                        .isDeferred();
+                sent.countDown();
+                return null;
+            }
+        };
+    }
+
+    SOp<Void> sendSOp() {
+        return new SOp<Void>("send", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                peer.countSOp().signal();
+                return null;
+            }
+        };
+    }
+
+    SIOp<Void> countSOp() {
+        return new SIOp<Void>("count", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                counted.countDown();
+                return null;
+            }
+        };
+    }
+}
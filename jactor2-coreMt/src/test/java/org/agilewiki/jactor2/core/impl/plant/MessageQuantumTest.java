@@ -0,0 +1,70 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.blades.NonBlockingBladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+public class MessageQuantumTest extends CallTestBase {
+    public void testa() throws Exception {
+        new Plant(new PlantConfiguration(1) {
+            @Override
+            public int getMessageQuantum() {
+                return 100;
+            }
+        });
+        try {
+            final Spinner spinner = new Spinner(new NonBlockingReactor());
+            spinner.spinSOp().signal();
+            final Adder adder = new Adder(new NonBlockingReactor());
+            // With a single pool thread, the adder only runs when the spinner yields.
+            assertEquals(Integer.valueOf(1), call(adder.oneAOp()));
+            spinner.stop = true;
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testb() throws Exception {
+        new Plant(new PlantConfiguration(1) {
+            @Override
+            public long getMessageQuantumMicros() {
+                return 1000;
+            }
+        });
+        try {
+            final Spinner spinner = new Spinner(new NonBlockingReactor());
+            spinner.spinSOp().signal();
+            final Adder adder = new Adder(new NonBlockingReactor());
+            assertEquals(Integer.valueOf(1), call(adder.oneAOp()));
+            spinner.stop = true;
+        } finally {
+            Plant.close();
+        }
+    }
+}
+
+class Spinner extends NonBlockingBladeBase {
+
+    volatile boolean stop;
+
+    public Spinner(final NonBlockingReactor _reactor) throws Exception {
+        super(_reactor);
+    }
+
+    public SIOp<Void> spinSOp() {
+        return new SIOp<Void>("spin", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                if (!stop) {
+                    spinSOp().signal();
+                }
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.MigrationPolicy;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtReactors.PoolThreadReactorMtImpl;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+
+public class MigrationPolicyTest extends CallTestBase {
+    public void testPipeline() throws Exception {
+        new Plant(new PlantConfiguration(1));
+        try {
+            final Adder adder = new Adder(new NonBlockingReactor());
+            final FanOut fanOut = new FanOut(new NonBlockingReactor(),
+                    new Adder[]{adder});
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Integer.valueOf(1), call(fanOut.sumAOp()));
+            }
+            // With a single target, the thread follows the request to the adder.
+            assertTrue(impl(adder.getReactor()).getMigrationsIn() > 0);
+            assertTrue(impl(fanOut.getReactor()).getMigrationsOut() > 0);
+            assertEquals(1.0, impl(fanOut.getReactor()).getRecentFanOut(), 0.1);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testHub() throws Exception {
+        new Plant(new PlantConfiguration(1));
+        try {
+            final Adder[] adders = new Adder[100];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new Adder(new NonBlockingReactor());
+            }
+            final FanOut fanOut = new FanOut(new NonBlockingReactor(), adders);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Integer.valueOf(100), call(fanOut.sumAOp()));
+            }
+            // The responses do not take the only thread back to the hub.
+            final PoolThreadReactorMtImpl hub = impl(fanOut.getReactor());
+            assertTrue(hub.getRecentFanOut() > 2);
+            assertEquals(0, hub.getMigrationsIn());
+            long declined = 0;
+            for (final Adder adder : adders) {
+                declined += impl(adder.getReactor()).getDeclinedMigrations();
+            }
+            assertTrue(declined > 0);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testInheritance() throws Exception {
+        new Plant(new PlantConfiguration(1));
+        try {
+            final IsolationReactor parent = new IsolationReactor();
+            final MigrationPolicy never = new MigrationPolicy() {
+                @Override
+                public boolean mayMigrate(final PoolThreadReactorMtImpl _source,
+                                          final PoolThreadReactorMtImpl _target,
+                                          final int _bufferedMessageCount) {
+                    return false;
+                }
+            };
+            impl(parent).setMigrationPolicy(never);
+            final Adder adder = new Adder(new NonBlockingReactor(parent));
+            final FanOut fanOut = new FanOut(new NonBlockingReactor(parent),
+                    new Adder[]{adder});
+            assertSame(never, impl(fanOut.getReactor()).getMigrationPolicy());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Integer.valueOf(1), call(fanOut.sumAOp()));
+            }
+            assertEquals(0, impl(fanOut.getReactor()).getMigrationsOut());
+            assertTrue(impl(fanOut.getReactor()).getDeclinedMigrations() > 0);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static PoolThreadReactorMtImpl impl(final Reactor _reactor) {
+        return (PoolThreadReactorMtImpl) _reactor.asReactorImpl();
+    }
+}
@@ -0,0 +1,83 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.blades.NonBlockingBladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantMtImpl;
+import org.agilewiki.jactor2.core.impl.mtPlant.ReactorPoolThread;
+import org.agilewiki.jactor2.core.impl.mtPlant.ReactorPoolThreadManager;
+import org.agilewiki.jactor2.core.impl.mtReactors.PoolThreadReactorMtImpl;
+import org.agilewiki.jactor2.core.messages.SOp;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.BlockingReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.facilities.Facility;
+
+public class NamedThreadPoolTest extends CallTestBase {
+    public void testa() throws Exception {
+        new Plant(new PlantConfiguration(4) {
+            @Override
+            public String[] getReactorThreadPoolNames() {
+                return new String[]{"batch"};
+            }
+
+            @Override
+            public int getReactorThreadPoolSize(final String _name) {
+                return 2;
+            }
+
+            @Override
+            public boolean isBlockingReactorThreadPool() {
+                return true;
+            }
+        });
+        try {
+            final PlantMtImpl plant = PlantMtImpl.getSingleton();
+            final ReactorPoolThreadManager batch = plant
+                    .getReactorPoolThreadManager("batch");
+            assertEquals(2, batch.getThreadCount());
+
+            final Facility facility = new Facility("batchFacility", null, "batch");
+            final PoolWhere batchWhere = new PoolWhere(new NonBlockingReactor(facility));
+            assertSame(batch, call(batchWhere.whereSOp()));
+
+            final PoolWhere namedWhere = new PoolWhere(new NonBlockingReactor(
+                    plant.getInternalFacility(), "batch"));
+            assertSame(batch, call(namedWhere.whereSOp()));
+
+            // Blocking reactors keep to the blocking reactor thread pool.
+            final PoolThreadReactorMtImpl blocking = (PoolThreadReactorMtImpl)
+                    new BlockingReactor(facility).asReactorImpl();
+            assertSame(plant.getBlockingReactorPoolThreadManager(),
+                    blocking.getReactorPoolThreadManager());
+
+            final PoolWhere defaultWhere = new PoolWhere(new NonBlockingReactor());
+            assertSame(plant.getReactorPoolThreadManager(),
+                    call(defaultWhere.whereSOp()));
+
+            assertEquals(0, batch.getQueueDepth());
+            assertTrue(batch.getUtilization() <= 1.0);
+        } finally {
+            Plant.close();
+        }
+    }
+}
+
+class PoolWhere extends NonBlockingBladeBase {
+
+    public PoolWhere(final NonBlockingReactor _reactor) throws Exception {
+        super(_reactor);
+    }
+
+    public SOp<ReactorPoolThreadManager> whereSOp() {
+        return new SOp<ReactorPoolThreadManager>("where", getReactor()) {
+            @Override
+            protected ReactorPoolThreadManager processSyncOperation(
+                    final RequestImpl _requestImpl) throws Exception {
+                return ((ReactorPoolThread) Thread.currentThread())
+                        .getReactorPoolThreadManager();
+            }
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.blades.NonBlockingBladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.messages.AOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.SOp;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OutboxFlushTest extends CallTestBase {
+    public void testThreshold() throws Exception {
+        new Plant(new PlantConfiguration(4) {
+            @Override
+            public int getOutboxFlushThreshold() {
+                return 4;
+            }
+        });
+        try {
+            final Sink sink = new Sink(new NonBlockingReactor());
+            final Source source = new Source(new NonBlockingReactor(), sink);
+            // 8 of the 10 were sent while the source was still busy.
+            assertEquals(Integer.valueOf(2), call(source.burstAOp(10)));
+            assertEquals(10, sink.received.get());
+            final IsolationReactor parent = new IsolationReactor();
+            final ReactorMtImpl parentImpl = (ReactorMtImpl) parent.asReactorImpl();
+            assertEquals(4, parentImpl.getOutboxFlushThreshold());
+            parentImpl.setOutboxFlushThreshold(0);
+            final Source child = new Source(new NonBlockingReactor(parent), sink);
+            assertEquals(Integer.valueOf(10), call(child.burstAOp(10)));
+            assertEquals(20, sink.received.get());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testHoldTime() throws Exception {
+        new Plant(new PlantConfiguration(4) {
+            @Override
+            public long getOutboxFlushMicros() {
+                return 1;
+            }
+        });
+        try {
+            final Sink sink = new Sink(new NonBlockingReactor());
+            final Source source = new Source(new NonBlockingReactor(), sink);
+            call(source.holdAOp(2000));
+            // Sent before the check was processed.
+            assertEquals(Integer.valueOf(0), call(source.heldSOp()));
+            final IsolationReactor parent = new IsolationReactor();
+            ((ReactorMtImpl) parent.asReactorImpl()).setOutboxFlushMicros(0);
+            final Source child = new Source(new NonBlockingReactor(parent), sink);
+            call(child.holdAOp(2000));
+            // Held until the source was idle.
+            assertEquals(Integer.valueOf(1), call(child.heldSOp()));
+        } finally {
+            Plant.close();
+        }
+    }
+}
+
+/**
+ * Counts the requests received.
+ */
+class Sink extends NonBlockingBladeBase {
+
+    final AtomicInteger received = new AtomicInteger();
+
+    Sink(final NonBlockingReactor _reactor) throws Exception {
+        super(_reactor);
+    }
+
+    SOp<Void> takeSOp() {
+        return new SOp<Void>("take", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                received.incrementAndGet();
+                return null;
+            }
+        };
+    }
+}
+
+/**
+ * Sends requests to a sink and reports how many are still buffered.
+ */
+class Source extends NonBlockingBladeBase {
+
+    private final Sink sink;
+
+    private int held = -1;
+
+    Source(final NonBlockingReactor _reactor, final Sink _sink) throws Exception {
+        super(_reactor);
+        sink = _sink;
+    }
+
+    private int buffered() {
+        final ReactorMtImpl impl = (ReactorMtImpl) getReactor().asReactorImpl();
+        return impl.getOutbox().getBufferSize(
+                (ReactorMtImpl) sink.getReactor().asReactorImpl());
+    }
+
+    /**
+     * Sends the requests and, once all have been answered,
+     * returns how many were still buffered after the last was sent.
+     */
+    AOp<Integer> burstAOp(final int _requests) {
+        return new AOp<Integer>("burst", getReactor()) {
+            private int buffered;
+
+            @Override
+            protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                 final AsyncResponseProcessor<Integer> _asyncResponseProcessor)
+                    throws Exception {
+                final AsyncResponseProcessor<Void> takeResponseProcessor =
+                        new AsyncResponseProcessor<Void>() {
+                            @Override
+                            public void processAsyncResponse(final Void _response)
+                                    throws Exception {
+                                if (_asyncRequestImpl.hasNoPendingResponses()) {
+                                    _asyncResponseProcessor.processAsyncResponse(buffered);
+                                }
+                            }
+                        };
+                for (int i = 0; i < _requests; i++) {
+                    _asyncRequestImpl.send(sink.takeSOp(), takeResponseProcessor);
+                }
+                buffered = buffered();
+            }
+        };
+    }
+
+    /**
+     * Sends a request, stays busy for the given time and then signals itself
+     * to record whether the request is still buffered.
+     */
+    AOp<Void> holdAOp(final long _nanos) {
+        return new AOp<Void>("hold", getReactor()) {
+            @Override
+            protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                 final AsyncResponseProcessor<Void> _asyncResponseProcessor)
+                    throws Exception {
+                _asyncRequestImpl.send(sink.takeSOp(), _asyncResponseProcessor);
+                final long start = System.nanoTime();
+                while ((System.nanoTime() - start) < _nanos) {
+                }
+                checkSOp().signal();
+            }
+        };
+    }
+
+    private SIOp<Void> checkSOp() {
+        return new SIOp<Void>("check", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                held = buffered();
+                return null;
+            }
+        };
+    }
+
+    SOp<Integer> heldSOp() {
+        return new SOp<Integer>("held", getReactor()) {
+            @Override
+            protected Integer processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                return held;
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.BlockingWaitStrategy;
+import org.agilewiki.jactor2.core.impl.mtPlant.SharedRunQueue;
+import org.agilewiki.jactor2.core.impl.mtReactors.PoolThreadReactorMtImpl;
+import org.agilewiki.jactor2.core.plant.impl.PlantBase;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.facilities.Facility;
+import org.agilewiki.jactor2.core.reactors.impl.PoolThreadReactorImpl;
+
+public class ReactorPriorityTest extends TestCase {
+    public void testInheritance() throws Exception {
+        new Plant();
+        try {
+            assertEquals(PoolThreadReactorImpl.NORMAL_PRIORITY,
+                    impl(new NonBlockingReactor()).getPriority());
+            final Facility control = new Facility("control", null, null,
+                    PoolThreadReactorImpl.HIGH_PRIORITY);
+            assertEquals(PoolThreadReactorImpl.HIGH_PRIORITY,
+                    impl(new NonBlockingReactor(control)).getPriority());
+            assertEquals(PoolThreadReactorImpl.LOW_PRIORITY,
+                    impl(new NonBlockingReactor(control,
+                            PoolThreadReactorImpl.LOW_PRIORITY)).getPriority());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testOrder() throws Exception {
+        new Plant();
+        try {
+            final SharedRunQueue runQueue = new SharedRunQueue(
+                    new BlockingWaitStrategy(), 1000);
+            final PoolThreadReactorMtImpl low = reactor(PoolThreadReactorImpl.LOW_PRIORITY);
+            final PoolThreadReactorMtImpl normal = reactor(PoolThreadReactorImpl.NORMAL_PRIORITY);
+            final PoolThreadReactorMtImpl high = reactor(PoolThreadReactorImpl.HIGH_PRIORITY);
+            runQueue.offer(low);
+            runQueue.offer(normal);
+            runQueue.offer(high);
+            assertSame(high, runQueue.take(null));
+            assertSame(normal, runQueue.take(null));
+            assertSame(low, runQueue.take(null));
+            assertEquals(0, runQueue.size());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testStarvation() throws Exception {
+        new Plant();
+        try {
+            final SharedRunQueue runQueue = new SharedRunQueue(
+                    new BlockingWaitStrategy(), 4);
+            final PoolThreadReactorMtImpl normal = reactor(PoolThreadReactorImpl.NORMAL_PRIORITY);
+            final PoolThreadReactorMtImpl low = reactor(PoolThreadReactorImpl.LOW_PRIORITY);
+            for (int i = 0; i < 10; i++) {
+                runQueue.offer(normal);
+            }
+            runQueue.offer(low);
+            boolean served = false;
+            for (int i = 0; i < 4; i++) {
+                served |= runQueue.take(null) == low;
+            }
+            assertTrue(served);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static PoolThreadReactorMtImpl reactor(final int _priority)
+            throws Exception {
+        return impl(new NonBlockingReactor(PlantBase.getInternalFacility(),
+                _priority));
+    }
+
+    private static PoolThreadReactorMtImpl impl(final NonBlockingReactor _reactor) {
+        return (PoolThreadReactorMtImpl) _reactor.asReactorImpl();
+    }
+}
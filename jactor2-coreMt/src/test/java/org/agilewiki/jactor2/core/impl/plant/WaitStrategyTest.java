@@ -0,0 +1,81 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.BlockingWaitStrategy;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantMtImpl;
+import org.agilewiki.jactor2.core.impl.mtPlant.SpinYieldParkWaitStrategy;
+import org.agilewiki.jactor2.core.impl.mtPlant.WaitStrategy;
+
+import java.util.concurrent.Semaphore;
+
+public class WaitStrategyTest extends TestCase {
+    public void testSpin() throws Exception {
+        final WaitStrategy waitStrategy = new SpinYieldParkWaitStrategy(1000000, 0);
+        final Semaphore permits = new Semaphore(1);
+        waitStrategy.acquire(permits);
+        assertEquals(1, waitStrategy.getSpinCount());
+        assertEquals(0, waitStrategy.getYieldCount());
+        assertEquals(0, waitStrategy.getParkCount());
+    }
+
+    public void testYield() throws Exception {
+        final WaitStrategy waitStrategy = new SpinYieldParkWaitStrategy(0, 1000000);
+        final Semaphore permits = new Semaphore(1);
+        waitStrategy.acquire(permits);
+        assertEquals(0, waitStrategy.getSpinCount());
+        assertEquals(1, waitStrategy.getYieldCount());
+        assertEquals(0, waitStrategy.getParkCount());
+    }
+
+    public void testPark() throws Exception {
+        final WaitStrategy waitStrategy = new BlockingWaitStrategy();
+        final Semaphore permits = new Semaphore(0);
+        final Thread releaser = new Thread() {
+            @Override
+            public void run() {
+                permits.release();
+            }
+        };
+        releaser.start();
+        waitStrategy.acquire(permits);
+        releaser.join();
+        assertEquals(0, waitStrategy.getSpinCount());
+        assertEquals(0, waitStrategy.getYieldCount());
+        assertEquals(1, waitStrategy.getParkCount());
+    }
+
+    public void testPerPool() throws Exception {
+        new Plant(new PlantConfiguration(4) {
+            @Override
+            protected WaitStrategy createWaitStrategy() {
+                return new SpinYieldParkWaitStrategy();
+            }
+
+            @Override
+            public boolean isBlockingReactorThreadPool() {
+                return true;
+            }
+
+            @Override
+            public String[] getReactorThreadPoolNames() {
+                return new String[]{"batch"};
+            }
+        });
+        try {
+            final PlantMtImpl plant = PlantMtImpl.getSingleton();
+            final WaitStrategy main = plant.getReactorPoolThreadManager()
+                    .getWaitStrategy();
+            final WaitStrategy batch = plant.getReactorPoolThreadManager("batch")
+                    .getWaitStrategy();
+            assertTrue(main instanceof SpinYieldParkWaitStrategy);
+            assertTrue(batch instanceof SpinYieldParkWaitStrategy);
+            assertNotSame(main, batch);
+            assertTrue(plant.getBlockingReactorPoolThreadManager()
+                    .getWaitStrategy() instanceof BlockingWaitStrategy);
+        } finally {
+            Plant.close();
+        }
+    }
+}
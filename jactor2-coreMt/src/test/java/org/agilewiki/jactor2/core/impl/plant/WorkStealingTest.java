@@ -0,0 +1,41 @@
+package org.agilewiki.jactor2.core.impl.plant;
+
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantMtImpl;
+import org.agilewiki.jactor2.core.impl.mtPlant.WorkStealingRunQueue;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+public class WorkStealingTest extends CallTestBase {
+    public void testa() throws Exception {
+        new Plant(new PlantConfiguration(4) {
+            @Override
+            public boolean isWorkStealing() {
+                return true;
+            }
+        });
+        try {
+            final Adder[] adders = new Adder[100];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new Adder(new NonBlockingReactor());
+            }
+            final FanOut fanOut = new FanOut(new NonBlockingReactor(), adders);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Integer.valueOf(100), call(fanOut.sumAOp()));
+            }
+            final WorkStealingRunQueue runQueue = (WorkStealingRunQueue) PlantMtImpl
+                    .getSingleton().getReactorPoolThreadManager().getRunQueue();
+            // The fan out pushes the adders onto the deque of its own thread,
+            // and the idle threads steal them from there, though whether they
+            // get there first in any one round depends on the scheduling.
+            assertTrue(runQueue.getLocalPushCount() > 0);
+            for (int i = 0; (runQueue.getStealCount() == 0) && (i < 1000); i++) {
+                assertEquals(Integer.valueOf(100), call(fanOut.sumAOp()));
+            }
+            assertTrue(runQueue.getStealCount() > 0);
+        } finally {
+            Plant.close();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtMessages.RequestMtImpl;
+import org.agilewiki.jactor2.core.impl.mtReactors.InboxOverflowPolicy;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.plant.impl.PlantImpl;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Passes coalescing signals to a thread-bound reactor, which processes them
+ * only when the test runs it.
+ */
+public class CoalescingSignalTest extends CallTestBase {
+    public void testCoalesce() throws Exception {
+        new Plant();
+        try {
+            final Recorder recorder = new Recorder(new ThreadBoundReactor(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                        }
+                    }));
+            assertTrue(recorder.signalSOp("refresh").signal("refresh"));
+            assertFalse(recorder.signalSOp("refresh").signal("refresh"));
+            assertFalse(recorder.signalSOp("refresh").signal("refresh"));
+            assertTrue(recorder.signalSOp("other").signal("other"));
+            recorder.signalSOp("plain").signal();
+            assertEquals(2, impl(recorder).getCoalescedSignalCount());
+            impl(recorder).run();
+            assertEquals(Arrays.asList("refresh", "other", "plain"), recorder.recorded);
+            assertEquals(0, impl(recorder).getCoalescedSignalCount());
+
+            // Once processed, the same signal is passed again.
+            assertTrue(recorder.signalSOp("refresh").signal("refresh"));
+            impl(recorder).run();
+            assertEquals(Arrays.asList("refresh", "other", "plain", "refresh"),
+                    recorder.recorded);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testReleasedWhenProcessingBegins() throws Exception {
+        new Plant();
+        try {
+            final Recorder recorder = new Recorder(new ThreadBoundReactor(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                        }
+                    }));
+            final List<Boolean> passed = new ArrayList<Boolean>();
+            new SIOp<Void>("resignal", recorder.getReactor()) {
+                @Override
+                protected Void processSyncOperation(final RequestImpl _requestImpl)
+                        throws Exception {
+                    // A change made while processing is not lost.
+                    passed.add(recorder.signalSOp("again").signal("key"));
+                    return null;
+                }
+            }.signal("key");
+            impl(recorder).run();
+            assertEquals(Arrays.asList(Boolean.TRUE), passed);
+            assertEquals(Arrays.asList("again"), recorder.recorded);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testReleasedWhenDropped() throws Exception {
+        new Plant();
+        try {
+            final IsolationReactor parent = new IsolationReactor();
+            ((ReactorMtImpl) parent.asReactorImpl()).setInboxCapacity(1);
+            ((ReactorMtImpl) parent.asReactorImpl())
+                    .setInboxOverflowPolicy(InboxOverflowPolicy.DROP_OLDEST_SIGNAL);
+            final Recorder recorder = new Recorder(new ThreadBoundReactor(parent,
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                        }
+                    }));
+            assertTrue(recorder.signalSOp("dropped").signal("key"));
+            // Drops the coalescing signal to make room.
+            recorder.signalSOp("plain").signal();
+            assertEquals(0, impl(recorder).getCoalescedSignalCount());
+            impl(recorder).run();
+            assertTrue(recorder.signalSOp("passed").signal("key"));
+            impl(recorder).run();
+            assertEquals(Arrays.asList("plain", "passed"), recorder.recorded);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testReleasedWhenCanceled() throws Exception {
+        new Plant();
+        try {
+            final Recorder recorder = new Recorder(new ThreadBoundReactor(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                        }
+                    }));
+            final RequestMtImpl<Void> canceled = (RequestMtImpl<Void>) PlantImpl
+                    .getSingleton().createSyncRequestImpl(
+                            recorder.signalSOp("canceled"), recorder.getReactor());
+            assertTrue(canceled.signal("key"));
+            canceled.cancel();
+            impl(recorder).run();
+            assertEquals(0, impl(recorder).getCoalescedSignalCount());
+            assertTrue(recorder.signalSOp("passed").signal("key"));
+            impl(recorder).run();
+            assertEquals(Arrays.asList("passed"), recorder.recorded);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static ReactorMtImpl impl(final Recorder _recorder) {
+        return (ReactorMtImpl) _recorder.getReactor().asReactorImpl();
+    }
+}
@@ -0,0 +1,138 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.blades.BladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.messages.AIOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.DeadlineExceededException;
+import org.agilewiki.jactor2.core.messages.ExceptionHandler;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.plant.impl.PlantBase;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
+
+/**
+ * Passes a deadline from a request to the request it sends, with both reactors
+ * run by the test thread.
+ */
+public class DeadlineTest extends CallTestBase {
+    public void testExpired() throws Exception {
+        new Plant();
+        try {
+            final Recorder target = new Recorder(threadBoundReactor());
+            final Relay relay = new Relay(threadBoundReactor(), target);
+            relay.relayAOp(1).signal();
+            run(relay);
+            assertEquals(1, relay.sent.getDeadlineMillis());
+
+            // The deadline has passed, so the request is dropped unprocessed.
+            run(target);
+            assertTrue(target.recorded.isEmpty());
+            assertEquals(1, expiredRequestCount(target));
+
+            run(relay);
+            assertTrue(relay.exception instanceof DeadlineExceededException);
+            assertTrue(relay.request.hasNoPendingResponses());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testNotExpired() throws Exception {
+        new Plant();
+        try {
+            final Recorder target = new Recorder(threadBoundReactor());
+            final Relay relay = new Relay(threadBoundReactor(), target);
+            final long deadline = (long) PlantBase.getPlantScheduler()
+                    .currentTimeMillis() + 60000;
+            relay.relayAOp(deadline).signal();
+            run(relay);
+            // A later deadline, or none, does not replace the one already set.
+            assertEquals(deadline, relay.request.getDeadlineMillis());
+            assertEquals(deadline, relay.sent.getDeadlineMillis());
+
+            run(target);
+            assertEquals(1, target.recorded.size());
+            assertEquals(0, expiredRequestCount(target));
+
+            run(relay);
+            assertNull(relay.exception);
+            assertTrue(relay.responded);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static long expiredRequestCount(final BladeBase _blade) {
+        return ((ReactorMtImpl) _blade.getReactor().asReactorImpl())
+                .getExpiredRequestCount();
+    }
+
+    private static Reactor threadBoundReactor() throws Exception {
+        return new ThreadBoundReactor(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    private static void run(final BladeBase _blade) {
+        ((ReactorMtImpl) _blade.getReactor().asReactorImpl()).run();
+    }
+
+    /**
+     * Sets a deadline and then sends a request to a recorder,
+     * noting the response or exception.
+     */
+    private static class Relay extends BladeBase {
+
+        private final Recorder target;
+
+        AsyncRequestImpl<Void> request;
+
+        RequestImpl<Void> sent;
+
+        boolean responded;
+
+        Exception exception;
+
+        Relay(final Reactor _reactor, final Recorder _target) throws Exception {
+            _initialize(_reactor);
+            target = _target;
+        }
+
+        AIOp<Void> relayAOp(final long _deadlineMillis) {
+            return new AIOp<Void>("relay", getReactor()) {
+                @SuppressWarnings("unchecked")
+                @Override
+                protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                     final AsyncResponseProcessor<Void> _asyncResponseProcessor)
+                        throws Exception {
+                    request = _asyncRequestImpl;
+                    _asyncRequestImpl.setDeadlineMillis(_deadlineMillis);
+                    _asyncRequestImpl.setDeadlineMillis(_deadlineMillis + 1000);
+                    _asyncRequestImpl.setDeadlineMillis(0);
+                    _asyncRequestImpl.setExceptionHandler(new ExceptionHandler<Void>() {
+                        @Override
+                        public Void processException(final Exception _e) {
+                            exception = _e;
+                            return null;
+                        }
+                    });
+                    sent = _asyncRequestImpl.send(target.recordSOp("r"),
+                            new AsyncResponseProcessor<Void>() {
+                                @Override
+                                public void processAsyncResponse(final Void _response)
+                                        throws Exception {
+                                    responded = true;
+                                    _asyncResponseProcessor.processAsyncResponse(null);
+                                }
+                            });
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.plant.impl.PlantScheduler;
+import org.agilewiki.jactor2.core.reactors.InboxLane;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues messages on a thread-bound reactor, which processes them
+ * only when the test runs it, and checks what its inbox reports.
+ */
+public class InboxIntrospectionTest extends CallTestBase {
+    public void testSignals() throws Exception {
+        new Plant();
+        try {
+            final Recorder recorder = new Recorder(new ThreadBoundReactor(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                        }
+                    }));
+            final Reactor reactor = recorder.getReactor();
+            final ReactorMtImpl reactorImpl = (ReactorMtImpl) reactor.asReactorImpl();
+            final Clock clock = new Clock(reactorImpl.getPlantScheduler());
+            reactorImpl.setPlantScheduler(clock);
+            assertTrue(reactor.isInboxEmpty());
+            assertEquals(0, reactor.getInboxSize());
+            assertEquals(0, reactor.getInboxAgeMillis());
+
+            clock.millis = 1000;
+            recorder.signalSOp("a").signal();
+            clock.millis = 1100;
+            recorder.signalSOp("b").signal();
+            clock.millis = 1250;
+            assertFalse(reactor.isInboxEmpty());
+            assertEquals(2, reactor.getInboxSize());
+            assertEquals(2, reactor.getInboxSize(InboxLane.SIGNAL));
+            assertEquals(0, reactor.getInboxSize(InboxLane.REQUEST));
+            assertEquals(0, reactor.getInboxSize(InboxLane.RESPONSE));
+            assertEquals(250, reactor.getInboxAgeMillis());
+            assertEquals(2, reactor.getInboxEnqueuedCount());
+            assertEquals(0, reactor.getInboxDequeuedCount());
+
+            reactorImpl.run();
+            assertTrue(reactor.isInboxEmpty());
+            assertEquals(0, reactor.getInboxSize());
+            assertEquals(0, reactor.getInboxAgeMillis());
+            assertEquals(2, reactor.getInboxEnqueuedCount());
+            assertEquals(2, reactor.getInboxDequeuedCount());
+
+            // The age starts over once the inbox has been emptied.
+            clock.millis = 5000;
+            recorder.signalSOp("c").signal();
+            clock.millis = 5010;
+            assertEquals(10, reactor.getInboxAgeMillis());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testLanes() throws Exception {
+        new Plant();
+        try {
+            final Semaphore recorderAdds = new Semaphore(0);
+            final Recorder recorder = new Recorder(new ThreadBoundReactor(
+                    release(recorderAdds)));
+            final Semaphore echoAdds = new Semaphore(0);
+            final Recorder echo = new Recorder(new ThreadBoundReactor(
+                    release(echoAdds)));
+            final Recorder requester = new Recorder(new NonBlockingReactor());
+            final Reactor reactor = recorder.getReactor();
+
+            // Two new requests.
+            requester.sendAOp(recorder, "request").signal();
+            await(recorderAdds, 1);
+            assertEquals(2, reactor.getInboxSize(InboxLane.REQUEST));
+            run(recorder);
+
+            // Two responses.
+            recorder.sendAOp(echo, "response").signal();
+            await(recorderAdds, 1);
+            run(recorder);
+            await(echoAdds, 1);
+            run(echo);
+            await(recorderAdds, 1);
+            assertEquals(2, reactor.getInboxSize(InboxLane.RESPONSE));
+            assertEquals(2, reactor.getInboxSize());
+            run(recorder);
+            assertEquals(0, reactor.getInboxSize());
+            assertEquals(5, reactor.getInboxEnqueuedCount());
+            assertEquals(5, reactor.getInboxDequeuedCount());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static Runnable release(final Semaphore _semaphore) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                _semaphore.release();
+            }
+        };
+    }
+
+    private static void await(final Semaphore _semaphore, final int _permits)
+            throws InterruptedException {
+        assertTrue(_semaphore.tryAcquire(_permits, 10, TimeUnit.SECONDS));
+    }
+
+    private static void run(final Recorder _recorder) {
+        ((ReactorMtImpl) _recorder.getReactor().asReactorImpl()).run();
+    }
+
+    /**
+     * A plant scheduler whose clock is set by the test.
+     */
+    private static class Clock implements PlantScheduler {
+        private final PlantScheduler plantScheduler;
+
+        volatile double millis;
+
+        Clock(final PlantScheduler _plantScheduler) {
+            plantScheduler = _plantScheduler;
+        }
+
+        @Override
+        public Object schedule(final Runnable _runnable, final int _millisecondDelay) {
+            return plantScheduler.schedule(_runnable, _millisecondDelay);
+        }
+
+        @Override
+        public Object scheduleAtFixedRate(final Runnable _runnable,
+                                          final int _millisecondDelay) {
+            return plantScheduler.scheduleAtFixedRate(_runnable, _millisecondDelay);
+        }
+
+        @Override
+        public void cancel(final Object _task) {
+            plantScheduler.cancel(_task);
+        }
+
+        @Override
+        public double currentTimeMillis() {
+            return millis;
+        }
+
+        @Override
+        public void close() {
+            plantScheduler.close();
+        }
+    }
+}
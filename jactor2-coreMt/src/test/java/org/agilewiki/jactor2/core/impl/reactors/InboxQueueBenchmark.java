@@ -0,0 +1,89 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.impl.mtReactors.MpscRingQueue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the queues an inbox can use for cross-thread messages:
+ * several producers offer the same message to a single consumer,
+ * and the throughput and the bytes allocated per message are reported.
+ * The producers hold back while there are more than IN_FLIGHT messages queued,
+ * as a reactor's inbox is normally drained about as fast as it is filled,
+ * so the ring buffer does not simply spill over.
+ * This is not part of the unit tests; run it with the number of messages
+ * per producer as an optional argument.
+ */
+public class InboxQueueBenchmark {
+    private static final int PRODUCERS = 3;
+
+    private static final int IN_FLIGHT = 512;
+
+    public static void main(final String[] _args) throws Exception {
+        final int count = _args.length > 0 ? Integer.parseInt(_args[0]) : 5000000;
+        for (int i = 0; i < 3; i++) {
+            run("ConcurrentLinkedQueue", new ConcurrentLinkedQueue<Object>(), count);
+            run("MpscRingQueue(1024)", new MpscRingQueue<Object>(1024), count);
+        }
+    }
+
+    private static void run(final String _name, final Queue<Object> _queue,
+                            final int _count) throws Exception {
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final Object message = new Object();
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong received = new AtomicLong();
+        final long[] allocated = new long[PRODUCERS];
+        final Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            producers[p] = new Thread() {
+                @Override
+                public void run() {
+                    final long id = Thread.currentThread().getId();
+                    final long before = threadMXBean.getThreadAllocatedBytes(id);
+                    for (int i = 0; i < _count; i++) {
+                        if ((i % 64) == 0) {
+                            while ((sent.get() - received.get()) > IN_FLIGHT) {
+                                Thread.yield();
+                            }
+                            sent.addAndGet(64);
+                        }
+                        _queue.offer(message);
+                    }
+                    allocated[producer] = threadMXBean.getThreadAllocatedBytes(id) - before;
+                }
+            };
+        }
+        final long start = System.nanoTime();
+        for (final Thread producer : producers) {
+            producer.start();
+        }
+        final long total = (long) _count * PRODUCERS;
+        long polled = 0;
+        while (polled < total) {
+            if (_queue.poll() != null) {
+                polled++;
+                if ((polled % 64) == 0) {
+                    received.lazySet(polled);
+                }
+            } else {
+                Thread.yield();
+            }
+        }
+        final long nanos = System.nanoTime() - start;
+        long bytes = 0;
+        for (int p = 0; p < PRODUCERS; p++) {
+            producers[p].join();
+            bytes += allocated[p];
+        }
+        System.out.println(_name + ": " + (total * 1000 / nanos) + "M messages/sec, "
+                + ((double) bytes / total) + " bytes allocated per message"
+                + (_queue instanceof MpscRingQueue ? ", "
+                + ((MpscRingQueue<Object>) _queue).getSpillCount() + " spilled" : ""));
+    }
+}
@@ -0,0 +1,142 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.blades.BladeBase;
+import org.agilewiki.jactor2.core.blades.IsolationBladeBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.plant.Adder;
+import org.agilewiki.jactor2.core.messages.AOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.SOp;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+
+/**
+ * Measures an isolation-heavy topology, where isolation reactors receive
+ * large blocks of messages from other threads.
+ * <ul>
+ * <li>requests: a non-blocking reactor sends a block of requests to each of
+ * several isolation reactors, which queue them until each is processed in turn.</li>
+ * <li>responses: an isolation reactor sends a block of requests to each of
+ * several non-blocking reactors, and their responses come back in blocks.</li>
+ * </ul>
+ * This is not part of the unit tests; run it with the number of rounds
+ * as an optional argument.
+ */
+public class IsolationInboxBenchmark {
+    static final int TARGETS = 4;
+
+    static final int BATCH = 1000;
+
+    public static void main(final String[] _args) throws Exception {
+        final int rounds = _args.length > 0 ? Integer.parseInt(_args[0]) : 2000;
+        new Plant();
+        try {
+            final Counter[] counters = new Counter[TARGETS];
+            for (int i = 0; i < TARGETS; i++) {
+                counters[i] = new Counter(new IsolationReactor());
+            }
+            final Scatter requests = new Scatter(new NonBlockingReactor()) {
+                @Override
+                void send(final AsyncRequestImpl _asyncRequestImpl, final int _target,
+                          final AsyncResponseProcessor<Integer> _responseProcessor) {
+                    _asyncRequestImpl.send(counters[_target].countSOp(),
+                            _responseProcessor);
+                }
+            };
+            final Adder[] adders = new Adder[TARGETS];
+            for (int i = 0; i < TARGETS; i++) {
+                adders[i] = new Adder(new NonBlockingReactor());
+            }
+            final Scatter responses = new Scatter(new IsolationReactor()) {
+                @Override
+                void send(final AsyncRequestImpl _asyncRequestImpl, final int _target,
+                          final AsyncResponseProcessor<Integer> _responseProcessor) {
+                    _asyncRequestImpl.send(adders[_target].oneAOp(),
+                            _responseProcessor);
+                }
+            };
+            for (int i = 0; i < 3; i++) {
+                run("requests", requests, rounds);
+                run("responses", responses, rounds);
+            }
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static void run(final String _name, final Scatter _scatter,
+                            final int _rounds) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < _rounds; i++) {
+            _scatter.roundAOp().call();
+        }
+        final long nanos = System.nanoTime() - start;
+        final long messages = 2L * TARGETS * BATCH * _rounds;
+        System.out.println(_name + ": " + (messages * 1000000 / nanos)
+                + "K messages/sec");
+    }
+
+    /**
+     * Sends a block of requests to each target and waits for all the responses.
+     */
+    abstract static class Scatter extends BladeBase {
+
+        Scatter(final Reactor _reactor) throws Exception {
+            _initialize(_reactor);
+        }
+
+        abstract void send(AsyncRequestImpl _asyncRequestImpl, int _target,
+                           AsyncResponseProcessor<Integer> _responseProcessor);
+
+        AOp<Integer> roundAOp() {
+            return new AOp<Integer>("round", getReactor()) {
+                private int sum;
+
+                @Override
+                protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                     final AsyncResponseProcessor<Integer> _asyncResponseProcessor)
+                        throws Exception {
+                    final AsyncResponseProcessor<Integer> responseProcessor =
+                            new AsyncResponseProcessor<Integer>() {
+                                @Override
+                                public void processAsyncResponse(final Integer _response)
+                                        throws Exception {
+                                    sum += _response;
+                                    if (_asyncRequestImpl.hasNoPendingResponses()) {
+                                        _asyncResponseProcessor.processAsyncResponse(sum);
+                                    }
+                                }
+                            };
+                    for (int t = 0; t < TARGETS; t++) {
+                        for (int i = 0; i < BATCH; i++) {
+                            send(_asyncRequestImpl, t, responseProcessor);
+                        }
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Responds to each request with 1.
+     */
+    static class Counter extends IsolationBladeBase {
+
+        Counter(final IsolationReactor _reactor) throws Exception {
+            super(_reactor);
+        }
+
+        SOp<Integer> countSOp() {
+            return new SOp<Integer>("count", getReactor()) {
+                @Override
+                protected Integer processSyncOperation(final RequestImpl _requestImpl)
+                        throws Exception {
+                    return 1;
+                }
+            };
+        }
+    }
+}
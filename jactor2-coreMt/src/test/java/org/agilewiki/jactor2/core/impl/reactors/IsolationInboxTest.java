@@ -0,0 +1,60 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtReactors.IsolationInbox;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.impl.plant.Adder;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+
+public class IsolationInboxTest extends CallTestBase {
+    public void testBulkRequests() throws Exception {
+        new Plant();
+        try {
+            final IsolationInboxBenchmark.Counter counter =
+                    new IsolationInboxBenchmark.Counter(new IsolationReactor());
+            final IsolationInboxBenchmark.Scatter scatter =
+                    new IsolationInboxBenchmark.Scatter(new NonBlockingReactor()) {
+                        @Override
+                        void send(final AsyncRequestImpl _asyncRequestImpl, final int _target,
+                                  final AsyncResponseProcessor<Integer> _responseProcessor) {
+                            _asyncRequestImpl.send(counter.countSOp(), _responseProcessor);
+                        }
+                    };
+            assertEquals(Integer.valueOf(IsolationInboxBenchmark.TARGETS
+                    * IsolationInboxBenchmark.BATCH), call(scatter.roundAOp()));
+            assertTrue(inbox(counter.getReactor()).getBulkTransfers() > 0);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testBulkResponses() throws Exception {
+        new Plant();
+        try {
+            final Adder adder = new Adder(new NonBlockingReactor());
+            final IsolationInboxBenchmark.Scatter scatter =
+                    new IsolationInboxBenchmark.Scatter(new IsolationReactor()) {
+                        @Override
+                        void send(final AsyncRequestImpl _asyncRequestImpl, final int _target,
+                                  final AsyncResponseProcessor<Integer> _responseProcessor) {
+                            _asyncRequestImpl.send(adder.oneAOp(), _responseProcessor);
+                        }
+                    };
+            assertEquals(Integer.valueOf(IsolationInboxBenchmark.TARGETS
+                    * IsolationInboxBenchmark.BATCH), call(scatter.roundAOp()));
+            assertTrue(inbox(scatter.getReactor()).getBulkTransfers() > 0);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static IsolationInbox inbox(final Reactor _reactor) {
+        return (IsolationInbox) ((ReactorMtImpl) _reactor.asReactorImpl())
+                .getInbox();
+    }
+}
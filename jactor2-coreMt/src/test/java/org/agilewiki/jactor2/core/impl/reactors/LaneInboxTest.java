@@ -0,0 +1,158 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.blades.BladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.messages.AIOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.SIOp;
+import org.agilewiki.jactor2.core.messages.SOp;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues up two each of new requests, signals and responses, in that order,
+ * on a thread-bound reactor and records the order in which it processes them.
+ */
+public class LaneInboxTest extends CallTestBase {
+    public void testFifo() throws Exception {
+        assertEquals(Arrays.asList("request", "request", "signal", "signal",
+                "response", "response"), order(null));
+    }
+
+    public void testPriority() throws Exception {
+        assertEquals(Arrays.asList("response", "response", "signal", "signal",
+                "request", "request"), order(new int[]{4, 2, 1}));
+    }
+
+    public void testWeights() throws Exception {
+        assertEquals(Arrays.asList("response", "signal", "request", "response",
+                "signal", "request"), order(new int[]{1, 1, 1}));
+    }
+
+    private List<String> order(final int[] _weights) throws Exception {
+        new Plant();
+        try {
+            final IsolationReactor parent = new IsolationReactor();
+            ((ReactorMtImpl) parent.asReactorImpl())
+                    .setInboxLaneWeights(_weights);
+            final Semaphore recorderAdds = new Semaphore(0);
+            final Recorder recorder = new Recorder(new ThreadBoundReactor(
+                    parent, release(recorderAdds)));
+            final Semaphore echoAdds = new Semaphore(0);
+            final Recorder echo = new Recorder(new ThreadBoundReactor(
+                    release(echoAdds)));
+            final Recorder requester = new Recorder(new NonBlockingReactor());
+
+            // The recorder sends two requests to the echo, which does not answer yet.
+            recorder.sendAOp(echo, "response").signal();
+            await(recorderAdds, 1);
+            run(recorder);
+            await(echoAdds, 1);
+            // New requests.
+            requester.sendAOp(recorder, "request").signal();
+            await(recorderAdds, 1);
+            // Signals.
+            recorder.signalSOp("signal").signal();
+            recorder.signalSOp("signal").signal();
+            await(recorderAdds, 2);
+            // Responses.
+            run(echo);
+            await(recorderAdds, 1);
+
+            run(recorder);
+            return recorder.recorded;
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static Runnable release(final Semaphore _semaphore) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                _semaphore.release();
+            }
+        };
+    }
+
+    private static void await(final Semaphore _semaphore, final int _permits)
+            throws InterruptedException {
+        assertTrue(_semaphore.tryAcquire(_permits, 10, TimeUnit.SECONDS));
+    }
+
+    private static void run(final Recorder _recorder) {
+        ((ReactorMtImpl) _recorder.getReactor().asReactorImpl()).run();
+    }
+}
+
+/**
+ * Records the messages processed.
+ */
+class Recorder extends BladeBase {
+
+    final List<String> recorded = new ArrayList<String>();
+
+    Recorder(final Reactor _reactor) throws Exception {
+        _initialize(_reactor);
+    }
+
+    SOp<Void> recordSOp(final String _name) {
+        return new SOp<Void>("record", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                recorded.add(_name);
+                return null;
+            }
+        };
+    }
+
+    SIOp<Void> signalSOp(final String _name) {
+        return new SIOp<Void>("signal", getReactor()) {
+            @Override
+            protected Void processSyncOperation(final RequestImpl _requestImpl)
+                    throws Exception {
+                recorded.add(_name);
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Sends two requests to another recorder, recording the responses under a name.
+     */
+    AIOp<Void> sendAOp(final Recorder _target, final String _name) {
+        return new AIOp<Void>("send", getReactor()) {
+            @Override
+            protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                 final AsyncResponseProcessor<Void> _asyncResponseProcessor)
+                    throws Exception {
+                final AsyncResponseProcessor<Void> responseProcessor =
+                        new AsyncResponseProcessor<Void>() {
+                            @Override
+                            public void processAsyncResponse(final Void _response)
+                                    throws Exception {
+                                recorded.add(_name);
+                                if (_asyncRequestImpl.hasNoPendingResponses()) {
+                                    _asyncResponseProcessor.processAsyncResponse(null);
+                                }
+                            }
+                        };
+                _asyncRequestImpl.send(_target.recordSOp(_name), responseProcessor);
+                _asyncRequestImpl.send(_target.recordSOp(_name), responseProcessor);
+            }
+        };
+    }
+}
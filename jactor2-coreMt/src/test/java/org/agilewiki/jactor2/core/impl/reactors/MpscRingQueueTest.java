@@ -0,0 +1,101 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import junit.framework.TestCase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtReactors.MpscRingQueue;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.impl.plant.Adder;
+import org.agilewiki.jactor2.core.impl.plant.FanOut;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+public class MpscRingQueueTest extends CallTestBase {
+    public void testFifo() {
+        final MpscRingQueue<Integer> queue = new MpscRingQueue<Integer>(3);
+        assertEquals(4, queue.getCapacity());
+        assertNull(queue.peek());
+        for (int i = 0; i < 6; i++) {
+            queue.offer(i);
+        }
+        // 2 did not fit.
+        assertEquals(2, queue.getSpillCount());
+        assertEquals(6, queue.size());
+        queue.poll();
+        // Still in the spill queue, so the next offer goes behind it.
+        queue.offer(6);
+        assertEquals(3, queue.getSpillCount());
+        for (int i = 1; i < 7; i++) {
+            assertEquals(Integer.valueOf(i), queue.peek());
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    public void testProducers() throws Exception {
+        final MpscRingQueue<long[]> queue = new MpscRingQueue<long[]>(64);
+        final int producers = 4;
+        final int count = 100000;
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        queue.offer(new long[]{producer, i});
+                    }
+                }
+            };
+            threads[p].start();
+        }
+        final long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * count) {
+            final long[] element = queue.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            // The messages from each producer arrive in the order sent.
+            TestCase.assertEquals(next[(int) element[0]], element[1]);
+            next[(int) element[0]]++;
+            received++;
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(queue.poll());
+    }
+
+    public void testInbox() throws Exception {
+        new Plant(new PlantConfiguration(4) {
+            @Override
+            public int getInboxRingBufferSize() {
+                return 4;
+            }
+        });
+        try {
+            final Adder[] adders = new Adder[100];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new Adder(new NonBlockingReactor());
+            }
+            final FanOut fanOut = new FanOut(new NonBlockingReactor(), adders);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Integer.valueOf(100), call(fanOut.sumAOp()));
+            }
+            final IsolationReactor parent = new IsolationReactor();
+            final ReactorMtImpl parentImpl = (ReactorMtImpl) parent.asReactorImpl();
+            assertEquals(4, parentImpl.getInboxRingBufferSize());
+            parentImpl.setInboxRingBufferSize(0);
+            final NonBlockingReactor child = new NonBlockingReactor(parent);
+            assertEquals(0, ((ReactorMtImpl) child.asReactorImpl())
+                    .getInboxRingBufferSize());
+            assertEquals(Integer.valueOf(1), call(new Adder(child).oneAOp()));
+        } finally {
+            Plant.close();
+        }
+    }
+}
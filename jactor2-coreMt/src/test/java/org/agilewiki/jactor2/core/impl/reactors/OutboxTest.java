@@ -0,0 +1,102 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtMessages.RequestMtImpl;
+import org.agilewiki.jactor2.core.impl.mtMessages.SyncRequestMtImpl;
+import org.agilewiki.jactor2.core.impl.mtReactors.CommonInbox;
+import org.agilewiki.jactor2.core.impl.mtReactors.MpscRingQueue;
+import org.agilewiki.jactor2.core.impl.mtReactors.Outbox;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.impl.plant.Adder;
+import org.agilewiki.jactor2.core.impl.plant.FanOut;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+import java.lang.management.ManagementFactory;
+
+public class OutboxTest extends CallTestBase {
+    public void testAllocation() throws Exception {
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        new Plant();
+        try {
+            final NonBlockingReactor a = new NonBlockingReactor();
+            final NonBlockingReactor b = new NonBlockingReactor();
+            final ReactorMtImpl[] targets = new ReactorMtImpl[]{
+                    (ReactorMtImpl) a.asReactorImpl(),
+                    (ReactorMtImpl) b.asReactorImpl()};
+            // Stand-ins for the inboxes of a and b, so nothing is processed.
+            final CommonInbox[] inboxes = new CommonInbox[]{
+                    new CommonInbox(16, new MpscRingQueue<Object>(16)),
+                    new CommonInbox(16, new MpscRingQueue<Object>(16))};
+            final RequestMtImpl<?>[] messages = new RequestMtImpl<?>[8];
+            for (int i = 0; i < messages.length; i++) {
+                messages[i] = new SyncRequestMtImpl<Void>(i % 2 == 0 ? a : b);
+            }
+            final Outbox outbox = new Outbox(4);
+            assertEquals(10000 * messages.length,
+                    sendAndReceive(outbox, targets, inboxes, messages, 10000));
+            final long id = Thread.currentThread().getId();
+            final int cycles = 100000;
+            final long before = threadMXBean.getThreadAllocatedBytes(id);
+            final int received = sendAndReceive(outbox, targets, inboxes,
+                    messages, cycles);
+            final long allocated = threadMXBean.getThreadAllocatedBytes(id) - before;
+            assertEquals(cycles * messages.length, received);
+            // One block per target, reused on every cycle.
+            assertEquals(2, outbox.getCreatedBlockCount());
+            assertTrue("allocated " + allocated + " bytes", allocated < cycles);
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static int sendAndReceive(final Outbox _outbox,
+            final ReactorMtImpl[] _targets, final CommonInbox[] _inboxes,
+            final RequestMtImpl<?>[] _messages, final int _cycles) {
+        int received = 0;
+        for (int c = 0; c < _cycles; c++) {
+            for (int i = 0; i < _messages.length; i++) {
+                _outbox.buffer(_messages[i], _targets[i % 2]);
+            }
+            while (!_outbox.isEmpty()) {
+                final ReactorMtImpl target = _outbox.peekTarget();
+                _inboxes[target == _targets[0] ? 0 : 1].offer(_outbox
+                        .pollBlock());
+            }
+            for (final CommonInbox inbox : _inboxes) {
+                while (inbox.poll() != null) {
+                    received++;
+                }
+            }
+        }
+        return received;
+    }
+
+    public void testReuse() throws Exception {
+        new Plant();
+        try {
+            final Adder[] adders = new Adder[100];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new Adder(new NonBlockingReactor());
+            }
+            final NonBlockingReactor reactor = new NonBlockingReactor();
+            final FanOut fanOut = new FanOut(reactor, adders);
+            final Outbox outbox = ((ReactorMtImpl) reactor.asReactorImpl())
+                    .getOutbox();
+            assertEquals(Integer.valueOf(100), call(fanOut.sumAOp()));
+            final long created = outbox.getCreatedBlockCount();
+            assertTrue(created >= 99);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Integer.valueOf(100), call(fanOut.sumAOp()));
+            }
+            // The blocks sent by the first fan out are reused by the others.
+            assertEquals(created, outbox.getCreatedBlockCount());
+        } finally {
+            Plant.close();
+        }
+    }
+}
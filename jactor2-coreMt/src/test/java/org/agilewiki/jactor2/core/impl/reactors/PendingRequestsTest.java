@@ -0,0 +1,167 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.blades.BladeBase;
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.messages.AIOp;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.messages.impl.RequestImpl;
+import org.agilewiki.jactor2.core.reactors.Reactor;
+import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends a large number of requests from one thread-bound reactor to another,
+ * both run by the test thread, and tracks the requests still pending.
+ */
+public class PendingRequestsTest extends CallTestBase {
+    public void testFanOut() throws Exception {
+        new Plant();
+        try {
+            final Recorder target = new Recorder(threadBoundReactor());
+            final FanOut fanOut = new FanOut(threadBoundReactor(), target);
+            fanOut.fanOutAOp().signal();
+            run(fanOut);
+            assertEquals(FanOut.REQUESTS, fanOut.sent.size());
+            assertFalse(fanOut.request.hasNoPendingResponses());
+            // Owner-thread cancel removes a pending request only once.
+            assertEquals(Boolean.TRUE, fanOut.firstCancel);
+            assertEquals(Boolean.FALSE, fanOut.secondCancel);
+
+            run(target);
+            run(fanOut);
+            // Every request but the canceled one was responded to in turn.
+            assertEquals(FanOut.REQUESTS - 1, target.recorded.size());
+            assertEquals(FanOut.REQUESTS - 1, fanOut.responses);
+            assertEquals(FanOut.REQUESTS - 1, fanOut.responsesWhenDone);
+            assertTrue(fanOut.request.hasNoPendingResponses());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testCancelAllFromAnotherThread() throws Exception {
+        new Plant();
+        try {
+            final Recorder target = new Recorder(threadBoundReactor());
+            final FanOut fanOut = new FanOut(threadBoundReactor(), target);
+            fanOut.fanOutAOp().signal();
+            run(fanOut);
+            assertFalse(fanOut.request.hasNoPendingResponses());
+
+            // The test thread is not running the reactor, so cancelAll is passed to it.
+            fanOut.request.cancelAll();
+            assertFalse(fanOut.sent.get(1).isCanceled());
+            run(fanOut);
+            assertTrue(fanOut.request.hasNoPendingResponses());
+            for (final RequestImpl<Void> request : fanOut.sent) {
+                assertTrue(request.isCanceled());
+            }
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testCancelFromAnotherThread() throws Exception {
+        new Plant();
+        try {
+            final Recorder target = new Recorder(threadBoundReactor());
+            final FanOut fanOut = new FanOut(threadBoundReactor(), target);
+            final FanOut other = new FanOut(threadBoundReactor(), target);
+            fanOut.fanOutAOp().signal();
+            other.fanOutAOp().signal();
+            run(fanOut);
+            run(other);
+
+            // Only a pending subordinate request can be canceled.
+            assertFalse(fanOut.request.cancel(other.sent.get(1)));
+            // The test thread is not running the reactor, so the cancel is passed to it.
+            assertTrue(fanOut.request.cancel(fanOut.sent.get(1)));
+            assertFalse(fanOut.sent.get(1).isCanceled());
+            run(fanOut);
+            assertTrue(fanOut.sent.get(1).isCanceled());
+            assertFalse(other.sent.get(1).isCanceled());
+
+            run(target);
+            run(fanOut);
+            assertEquals(FanOut.REQUESTS - 2, fanOut.responses);
+            // A request which has responded can no longer be canceled.
+            assertFalse(fanOut.request.cancel(fanOut.sent.get(2)));
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static Reactor threadBoundReactor() throws Exception {
+        return new ThreadBoundReactor(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    private static void run(final BladeBase _blade) {
+        ((ReactorMtImpl) _blade.getReactor().asReactorImpl()).run();
+    }
+}
+
+/**
+ * Sends REQUESTS requests to a recorder, canceling the first of them,
+ * and records what it sees. The request does not respond.
+ */
+class FanOut extends BladeBase {
+
+    static final int REQUESTS = 300;
+
+    private final Recorder target;
+
+    AsyncRequestImpl<Void> request;
+
+    final List<RequestImpl<Void>> sent = new ArrayList<RequestImpl<Void>>();
+
+    Boolean firstCancel;
+
+    Boolean secondCancel;
+
+    int responses;
+
+    int responsesWhenDone = -1;
+
+    FanOut(final Reactor _reactor, final Recorder _target) throws Exception {
+        _initialize(_reactor);
+        target = _target;
+    }
+
+    AIOp<Void> fanOutAOp() {
+        return new AIOp<Void>("fanOut", getReactor()) {
+            @SuppressWarnings("unchecked")
+            @Override
+            protected void processAsyncOperation(final AsyncRequestImpl _asyncRequestImpl,
+                                                 final AsyncResponseProcessor<Void> _asyncResponseProcessor)
+                    throws Exception {
+                request = _asyncRequestImpl;
+                _asyncRequestImpl.setNoHungRequestCheck();
+                final AsyncResponseProcessor<Void> responseProcessor =
+                        new AsyncResponseProcessor<Void>() {
+                            @Override
+                            public void processAsyncResponse(final Void _response) {
+                                responses += 1;
+                                if (_asyncRequestImpl.hasNoPendingResponses()) {
+                                    responsesWhenDone = responses;
+                                }
+                            }
+                        };
+                for (int i = 0; i < REQUESTS; i++) {
+                    sent.add(_asyncRequestImpl.send(target.recordSOp("r"),
+                            responseProcessor));
+                }
+                firstCancel = _asyncRequestImpl.cancel(sent.get(0));
+                secondCancel = _asyncRequestImpl.cancel(sent.get(0));
+            }
+        };
+    }
+}
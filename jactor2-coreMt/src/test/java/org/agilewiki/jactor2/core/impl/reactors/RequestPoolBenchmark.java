@@ -0,0 +1,109 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.messages.AsyncResponseProcessor;
+import org.agilewiki.jactor2.core.messages.impl.AsyncRequestImpl;
+import org.agilewiki.jactor2.core.reactors.IsolationReactor;
+import org.agilewiki.jactor2.core.reactors.NonBlockingReactor;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares the allocation and garbage collection of sync requests,
+ * with and without request pooling. A non-blocking reactor sends a block of
+ * sync requests to each of several isolation reactors, as in
+ * IsolationInboxBenchmark.
+ * This is not part of the unit tests; run it with the number of rounds
+ * as an optional argument.
+ */
+public class RequestPoolBenchmark {
+
+    public static void main(final String[] _args) throws Exception {
+        final int rounds = _args.length > 0 ? Integer.parseInt(_args[0]) : 2000;
+        for (int i = 0; i < 3; i++) {
+            run("unpooled", 0, rounds);
+            // Enough free requests for every request of a round.
+            run("pooled", IsolationInboxBenchmark.TARGETS * IsolationInboxBenchmark.BATCH,
+                    rounds);
+        }
+    }
+
+    private static void run(final String _name, final int _poolSize,
+                            final int _rounds) throws Exception {
+        new Plant(new PlantConfiguration() {
+            @Override
+            public int getRequestPoolSize() {
+                return _poolSize;
+            }
+        });
+        try {
+            final IsolationInboxBenchmark.Counter[] counters =
+                    new IsolationInboxBenchmark.Counter[IsolationInboxBenchmark.TARGETS];
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = new IsolationInboxBenchmark.Counter(new IsolationReactor());
+            }
+            final IsolationInboxBenchmark.Scatter scatter =
+                    new IsolationInboxBenchmark.Scatter(new NonBlockingReactor()) {
+                        @Override
+                        void send(final AsyncRequestImpl _asyncRequestImpl, final int _target,
+                                  final AsyncResponseProcessor<Integer> _responseProcessor) {
+                            _asyncRequestImpl.send(counters[_target].countSOp(),
+                                    _responseProcessor);
+                        }
+                    };
+            // Warm up the pools.
+            scatter.roundAOp().call();
+            final long allocatedBefore = allocatedBytes();
+            final long collectionsBefore = collections();
+            final long collectionMillisBefore = collectionMillis();
+            final long start = System.nanoTime();
+            for (int i = 0; i < _rounds; i++) {
+                scatter.roundAOp().call();
+            }
+            final long nanos = System.nanoTime() - start;
+            final long messages = 2L * IsolationInboxBenchmark.TARGETS
+                    * IsolationInboxBenchmark.BATCH * _rounds;
+            System.out.println(_name + ": "
+                    + (messages * 1000000 / nanos) + "K messages/sec, "
+                    + ((allocatedBytes() - allocatedBefore) / messages) + " bytes/message, "
+                    + (collections() - collectionsBefore) + " collections, "
+                    + (collectionMillis() - collectionMillisBefore) + " ms collecting");
+        } finally {
+            Plant.close();
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by all live threads.
+     */
+    private static long allocatedBytes() {
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (final long allocated : threadMXBean.getThreadAllocatedBytes(
+                threadMXBean.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    private static long collections() {
+        long total = 0;
+        for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += bean.getCollectionCount();
+        }
+        return total;
+    }
+
+    private static long collectionMillis() {
+        long total = 0;
+        for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += bean.getCollectionTime();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,79 @@
+package org.agilewiki.jactor2.core.impl.reactors;
+
+import org.agilewiki.jactor2.core.impl.CallTestBase;
+import org.agilewiki.jactor2.core.impl.Plant;
+import org.agilewiki.jactor2.core.impl.mtMessages.SyncRequestPool;
+import org.agilewiki.jactor2.core.impl.mtPlant.PlantConfiguration;
+import org.agilewiki.jactor2.core.impl.mtReactors.ReactorMtImpl;
+import org.agilewiki.jactor2.core.reactors.ThreadBoundReactor;
+
+import java.util.Arrays;
+
+/**
+ * Passes signals to a thread-bound reactor run by the test thread,
+ * so that requests are both created and recycled by the test thread.
+ */
+public class RequestPoolTest extends CallTestBase {
+    public void testPooled() throws Exception {
+        new Plant(new PlantConfiguration() {
+            @Override
+            public int getRequestPoolSize() {
+                return 2;
+            }
+        });
+        try {
+            final Recorder recorder = recorder();
+            final long created = SyncRequestPool.getCreatedCount();
+            final int free = SyncRequestPool.getFreeCount();
+            for (int i = 0; i < 10; i++) {
+                recorder.signalSOp("a").signal();
+                recorder.signalSOp("b").signal();
+                recorder.signalSOp("c").signal();
+                impl(recorder).run();
+            }
+            assertEquals(30, recorder.recorded.size());
+            assertEquals(Arrays.asList("a", "b", "c"), recorder.recorded.subList(27, 30));
+            // Three requests are needed at a time, but only two are kept.
+            assertEquals(2, SyncRequestPool.getFreeCount() - free);
+            // Three for the first round, then one per round.
+            assertEquals(3 + 9, SyncRequestPool.getCreatedCount() - created);
+
+            final long reused = SyncRequestPool.getCreatedCount();
+            recorder.signalSOp("d").signal();
+            recorder.signalSOp("e").signal();
+            assertEquals(reused, SyncRequestPool.getCreatedCount());
+            impl(recorder).run();
+            assertEquals(Arrays.asList("d", "e"), recorder.recorded.subList(30, 32));
+        } finally {
+            Plant.close();
+        }
+    }
+
+    public void testNotPooled() throws Exception {
+        new Plant();
+        try {
+            final Recorder recorder = recorder();
+            final long created = SyncRequestPool.getCreatedCount();
+            final int free = SyncRequestPool.getFreeCount();
+            recorder.signalSOp("a").signal();
+            impl(recorder).run();
+            assertEquals(Arrays.asList("a"), recorder.recorded);
+            assertEquals(created, SyncRequestPool.getCreatedCount());
+            assertEquals(free, SyncRequestPool.getFreeCount());
+        } finally {
+            Plant.close();
+        }
+    }
+
+    private static Recorder recorder() throws Exception {
+        return new Recorder(new ThreadBoundReactor(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }));
+    }
+
+    private static ReactorMtImpl impl(final Recorder _recorder) {
+        return (ReactorMtImpl) _recorder.getReactor().asReactorImpl();
+    }
+}